@@ -696,4 +696,27 @@ create table gen_table_column (
   update_by         varchar(64)     default ''                 comment '更新者',
   update_time       datetime                                   comment '更新时间',
   primary key (column_id)
-) engine=innodb auto_increment=1 comment = '代码生成业务表字段';
\ No newline at end of file
+) engine=innodb auto_increment=1 comment = '代码生成业务表字段';
+
+
+-- ----------------------------
+-- 20、部门层级关系表（闭包表，每个部门与自身及全部上级部门各一条）
+-- ----------------------------
+drop table if exists sys_dept_closure;
+create table sys_dept_closure (
+  ancestor_id       bigint(20)      not null                   comment '上级部门ID',
+  descendant_id     bigint(20)      not null                   comment '下级部门ID',
+  depth             int(4)          default 0                  comment '层级距离（自身为0）',
+  primary key (ancestor_id, descendant_id),
+  key idx_descendant (descendant_id)
+) engine=innodb comment = '部门层级关系表';
+
+-- ----------------------------
+-- 初始化-部门层级关系表数据（已有部门数据的库也可执行本段，应用启动时亦会校验重建）
+-- ----------------------------
+insert into sys_dept_closure (ancestor_id, descendant_id, depth)
+select d.dept_id, d.dept_id, 0 from sys_dept d;
+insert into sys_dept_closure (ancestor_id, descendant_id, depth)
+select a.dept_id, d.dept_id,
+  (length(d.ancestors) - length(replace(d.ancestors, ',', ''))) - (length(a.ancestors) - length(replace(a.ancestors, ',', '')))
+from sys_dept d inner join sys_dept a on find_in_set(a.dept_id, d.ancestors);
\ No newline at end of file
@@ -11,6 +11,21 @@ public class CacheConstants {
 	 */
 	public static final String LOGIN_TOKEN_KEY = "login_tokens:";
 
+	/**
+	 * 在线会话索引 redis key（有序集合，分数为过期时间）
+	 */
+	public static final String LOGIN_TOKEN_INDEX_KEY = "login_token_index";
+
+	/**
+	 * 在线会话摘要 redis key
+	 */
+	public static final String LOGIN_TOKEN_SUMMARY_KEY = "login_token_summary:";
+
+	/**
+	 * 用户在线会话索引 redis key
+	 */
+	public static final String LOGIN_USER_TOKEN_INDEX_KEY = "login_user_token_index:";
+
 	/**
 	 * 验证码 redis key
 	 */
@@ -21,11 +36,46 @@ public class CacheConstants {
 	 */
 	public static final String SYS_CONFIG_KEY = "sys_config:";
 
+	/**
+	 * 参数配置版本号 redis key
+	 */
+	public static final String SYS_CONFIG_VERSION_KEY = "sys_config_version";
+
+	/**
+	 * 参数配置变更通知频道
+	 */
+	public static final String SYS_CONFIG_CHANNEL = "channel:sys_config";
+
 	/**
 	 * 字典管理 cache key
 	 */
 	public static final String SYS_DICT_KEY = "sys_dict:";
 
+	/**
+	 * 字典版本号 cache key
+	 */
+	public static final String SYS_DICT_VERSION_KEY = "sys_dict_version";
+
+	/**
+	 * 字典变更通知频道
+	 */
+	public static final String SYS_DICT_CHANNEL = "channel:sys_dict";
+
+	/**
+	 * 部门版本号 redis key，部门变更时加一
+	 */
+	public static final String SYS_DEPT_VERSION_KEY = "sys_dept_version";
+
+	/**
+	 * 部门变更通知频道
+	 */
+	public static final String SYS_DEPT_CHANNEL = "channel:sys_dept";
+
+	/**
+	 * 热点键失效通知频道
+	 */
+	public static final String HOT_KEY_CHANNEL = "channel:hot_keys";
+
 	/**
 	 * 防重提交 redis key
 	 */
@@ -41,4 +91,34 @@ public class CacheConstants {
 	 */
 	public static final String PWD_ERR_CNT_KEY = "pwd_err_cnt:";
 	public static final String PWD_BLOCKED_CNT_KEY = "pwd_blocked_cnt:";
+
+	/**
+	 * 登录用户近端缓存失效通知频道
+	 */
+	public static final String LOGIN_TOKEN_CHANNEL = "channel:login_tokens";
+
+	/**
+	 * 角色权限快照失效通知频道
+	 */
+	public static final String ROLE_PERMS_CHANNEL = "channel:role_perms";
+
+	/**
+	 * 数据权限条件失效通知频道
+	 */
+	public static final String DATA_SCOPE_CHANNEL = "channel:data_scope";
+
+	/**
+	 * 前端路由缓存失效通知频道
+	 */
+	public static final String ROUTER_CHANNEL = "channel:router";
+
+	/**
+	 * 会话代数 redis key（全局、用户、部门、角色）
+	 */
+	public static final String SESSION_EPOCH_KEY = "session_epochs";
+
+	/**
+	 * 会话代数变更通知频道
+	 */
+	public static final String SESSION_EPOCH_CHANNEL = "channel:session_epochs";
 }
@@ -1,12 +1,16 @@
 package com.github.ecsoya.bear.common.utils;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.github.ecsoya.bear.common.constant.CacheConstants;
 import com.github.ecsoya.bear.common.utils.spring.SpringUtils;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
+import com.github.ecsoya.bear.framework.cache.DictIndex;
+import com.github.ecsoya.bear.framework.cache.ICache;
 import com.github.ecsoya.bear.project.system.domain.SysDictData;
 
 /**
@@ -20,6 +24,11 @@ public class DictUtils {
 	 */
 	public static final String SEPARATOR = ",";
 
+	/**
+	 * 字典本地索引
+	 */
+	private static volatile DictIndex dictIndex;
+
 	/**
 	 * 设置字典缓存
 	 * 
@@ -27,7 +36,18 @@ public class DictUtils {
 	 * @param dictDatas 字典数据列表
 	 */
 	public static void setDictCache(String key, List<SysDictData> dictDatas) {
-		SpringUtils.getBean(RedisCache.class).setCacheObject(getCacheKey(key), dictDatas);
+		SpringUtils.getBean(ICache.class).setCacheObject(getCacheKey(key), dictDatas);
+	}
+
+	/**
+	 * 批量设置字典缓存
+	 * 
+	 * @param dictDataMap 字典类型与字典数据列表
+	 */
+	public static void setDictCaches(Map<String, List<SysDictData>> dictDataMap) {
+		Map<String, List<SysDictData>> caches = new LinkedHashMap<String, List<SysDictData>>(dictDataMap.size());
+		dictDataMap.forEach((key, dictDatas) -> caches.put(getCacheKey(key), dictDatas));
+		SpringUtils.getBean(ICache.class).setCacheObjects(caches);
 	}
 
 	/**
@@ -37,9 +57,33 @@ public class DictUtils {
 	 * @return dictDatas 字典数据列表
 	 */
 	public static List<SysDictData> getDictCache(String key) {
-		JSONArray arrayCache = SpringUtils.getBean(RedisCache.class).getCacheObject(getCacheKey(key));
-		if (StringUtils.isNotNull(arrayCache)) {
-			return arrayCache.toList(SysDictData.class);
+		return toDictDatas(SpringUtils.getBean(ICache.class).getCacheObject(getCacheKey(key)));
+	}
+
+	/**
+	 * 批量获取字典缓存
+	 * 
+	 * @param keys 字典类型集合
+	 * @return 字典类型与字典数据列表，未缓存的类型值为空
+	 */
+	public static Map<String, List<SysDictData>> getDictCaches(Collection<String> keys) {
+		List<String> cacheKeys = keys.stream().map(DictUtils::getCacheKey).collect(Collectors.toList());
+		List<Object> caches = SpringUtils.getBean(ICache.class).getCacheObjects(cacheKeys);
+		Map<String, List<SysDictData>> dictDataMap = new LinkedHashMap<String, List<SysDictData>>(keys.size());
+		int index = 0;
+		for (String key : keys) {
+			dictDataMap.put(key, toDictDatas(caches.get(index++)));
+		}
+		return dictDataMap;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<SysDictData> toDictDatas(Object cache) {
+		if (cache instanceof JSONArray) {
+			return ((JSONArray) cache).toList(SysDictData.class);
+		}
+		if (cache instanceof List) {
+			return (List<SysDictData>) cache;
 		}
 		return null;
 	}
@@ -75,28 +119,14 @@ public class DictUtils {
 	 * @return 字典标签
 	 */
 	public static String getDictLabel(String dictType, String dictValue, String separator) {
-		StringBuilder propertyString = new StringBuilder();
-		List<SysDictData> datas = getDictCache(dictType);
-
-		if (StringUtils.isNotEmpty(datas)) {
-			if (StringUtils.containsAny(separator, dictValue)) {
-				for (SysDictData dict : datas) {
-					for (String value : dictValue.split(separator)) {
-						if (value.equals(dict.getDictValue())) {
-							propertyString.append(dict.getDictLabel()).append(separator);
-							break;
-						}
-					}
-				}
-			} else {
-				for (SysDictData dict : datas) {
-					if (dictValue.equals(dict.getDictValue())) {
-						return dict.getDictLabel();
-					}
-				}
-			}
+		DictIndex.TypeIndex index = getDictIndex().getIndex(dictType);
+		if (index == null || dictValue == null) {
+			return StringUtils.EMPTY;
 		}
-		return StringUtils.stripEnd(propertyString.toString(), separator);
+		if (dictValue.contains(separator)) {
+			return index.getLabels(dictValue, separator);
+		}
+		return StringUtils.nvl(index.getLabel(dictValue), StringUtils.EMPTY);
 	}
 
 	/**
@@ -108,26 +138,23 @@ public class DictUtils {
 	 * @return 字典值
 	 */
 	public static String getDictValue(String dictType, String dictLabel, String separator) {
-		StringBuilder propertyString = new StringBuilder();
-		List<SysDictData> datas = getDictCache(dictType);
-
-		if (StringUtils.containsAny(separator, dictLabel) && StringUtils.isNotEmpty(datas)) {
-			for (SysDictData dict : datas) {
-				for (String label : dictLabel.split(separator)) {
-					if (label.equals(dict.getDictLabel())) {
-						propertyString.append(dict.getDictValue()).append(separator);
-						break;
-					}
-				}
-			}
-		} else {
-			for (SysDictData dict : datas) {
-				if (dictLabel.equals(dict.getDictLabel())) {
-					return dict.getDictValue();
-				}
-			}
+		DictIndex.TypeIndex index = getDictIndex().getIndex(dictType);
+		if (index == null || dictLabel == null) {
+			return StringUtils.EMPTY;
+		}
+		if (dictLabel.contains(separator)) {
+			return index.getValues(dictLabel, separator);
+		}
+		return StringUtils.nvl(index.getValue(dictLabel), StringUtils.EMPTY);
+	}
+
+	private static DictIndex getDictIndex() {
+		DictIndex index = dictIndex;
+		if (index == null) {
+			index = SpringUtils.getBean(DictIndex.class);
+			dictIndex = index;
 		}
-		return StringUtils.stripEnd(propertyString.toString(), separator);
+		return index;
 	}
 
 	/**
@@ -136,15 +163,14 @@ public class DictUtils {
 	 * @param key 字典键
 	 */
 	public static void removeDictCache(String key) {
-		SpringUtils.getBean(RedisCache.class).deleteObject(getCacheKey(key));
+		SpringUtils.getBean(ICache.class).deleteObject(getCacheKey(key));
 	}
 
 	/**
 	 * 清空字典缓存
 	 */
 	public static void clearDictCache() {
-		Collection<String> keys = SpringUtils.getBean(RedisCache.class).keys(CacheConstants.SYS_DICT_KEY + "*");
-		SpringUtils.getBean(RedisCache.class).deleteObject(keys);
+		SpringUtils.getBean(ICache.class).deleteByPattern(CacheConstants.SYS_DICT_KEY + "*");
 	}
 
 	/**
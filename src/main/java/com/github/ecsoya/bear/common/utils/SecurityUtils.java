@@ -2,11 +2,12 @@ package com.github.ecsoya.bear.common.utils;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import com.github.ecsoya.bear.common.constant.HttpStatus;
 import com.github.ecsoya.bear.common.exception.ServiceException;
+import com.github.ecsoya.bear.common.utils.spring.SpringUtils;
 import com.github.ecsoya.bear.framework.security.LoginUser;
+import com.github.ecsoya.bear.framework.security.service.PasswordHashService;
 
 /**
  * 安全服务工具类
@@ -81,8 +82,7 @@ public class SecurityUtils {
 	 * @return 加密字符串
 	 */
 	public static String encryptPassword(String password) {
-		BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-		return passwordEncoder.encode(password);
+		return SpringUtils.getBean(PasswordHashService.class).encode(password);
 	}
 
 	/**
@@ -93,8 +93,7 @@ public class SecurityUtils {
 	 * @return 结果
 	 */
 	public static boolean matchesPassword(String rawPassword, String encodedPassword) {
-		BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-		return passwordEncoder.matches(rawPassword, encodedPassword);
+		return SpringUtils.getBean(PasswordHashService.class).matches(rawPassword, encodedPassword);
 	}
 
 	/**
@@ -1,11 +1,15 @@
 package com.github.ecsoya.bear.framework.aspectj;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.github.ecsoya.bear.common.core.text.Convert;
@@ -14,6 +18,8 @@ import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.framework.aspectj.lang.annotation.DataScope;
 import com.github.ecsoya.bear.framework.security.LoginUser;
 import com.github.ecsoya.bear.framework.security.context.PermissionContextHolder;
+import com.github.ecsoya.bear.framework.security.service.DataScopeCache;
+import com.github.ecsoya.bear.framework.security.service.DataScopeCache.Predicate;
 import com.github.ecsoya.bear.framework.web.domain.BaseEntity;
 import com.github.ecsoya.bear.project.system.domain.SysRole;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
@@ -56,6 +62,18 @@ public class DataScopeAspect {
 	 */
 	public static final String DATA_SCOPE = "dataScope";
 
+	/**
+	 * 数据权限条件绑定的参数：用户ID、部门ID、自定数据权限的角色ID
+	 */
+	public static final String DATA_SCOPE_USER_ID = "dataScopeUserId";
+
+	public static final String DATA_SCOPE_DEPT_ID = "dataScopeDeptId";
+
+	public static final String DATA_SCOPE_ROLE_IDS = "dataScopeRoleIds";
+
+	@Autowired
+	private DataScopeCache dataScopeCache;
+
 	@Before("@annotation(controllerDataScope)")
 	public void doBefore(JoinPoint point, DataScope controllerDataScope) throws Throwable {
 		clearDataScope(point);
@@ -86,37 +104,68 @@ public class DataScopeAspect {
 	 * @param userAlias  用户别名
 	 * @param permission 权限字符
 	 */
-	public static void dataScopeFilter(JoinPoint joinPoint, SysUser user, String deptAlias, String userAlias,
+	public void dataScopeFilter(JoinPoint joinPoint, SysUser user, String deptAlias, String userAlias,
 			String permission) {
+		Object params = joinPoint.getArgs()[0];
+		if (StringUtils.isNull(params) || !(params instanceof BaseEntity)) {
+			return;
+		}
+		List<SysRole> roles = new ArrayList<SysRole>(user.getRoles());
+		roles.sort(Comparator.comparing(SysRole::getRoleId, Comparator.nullsFirst(Comparator.naturalOrder())));
+		StringBuilder key = new StringBuilder().append(deptAlias).append('|').append(userAlias).append('|')
+				.append(permission);
+		// 角色是否包含权限字符取自登录时的权限快照，各用户可能不同，需计入缓存键
+		for (SysRole role : roles) {
+			key.append('|').append(role.getRoleId()).append(':').append(role.getDataScope()).append(':')
+					.append(matchesPermission(role, permission) ? '1' : '0');
+		}
+		Predicate predicate = dataScopeCache.get(key.toString(),
+				() -> compile(roles, deptAlias, userAlias, permission));
+		if (predicate.getSql().isEmpty()) {
+			return;
+		}
+		Map<String, Object> baseParams = ((BaseEntity) params).getParams();
+		baseParams.put(DATA_SCOPE, predicate.getSql());
+		baseParams.put(DATA_SCOPE_USER_ID, user.getUserId());
+		baseParams.put(DATA_SCOPE_DEPT_ID, user.getDeptId());
+		baseParams.put(DATA_SCOPE_ROLE_IDS, predicate.getRoleIds());
+	}
+
+	/**
+	 * 编译数据权限条件，用户、部门和角色ID以参数引用，同一组角色的所有用户共用
+	 *
+	 * @param roles      按角色ID排序的角色
+	 * @param deptAlias  部门别名
+	 * @param userAlias  用户别名
+	 * @param permission 权限字符
+	 * @return 条件
+	 */
+	private static Predicate compile(List<SysRole> roles, String deptAlias, String userAlias, String permission) {
 		StringBuilder sqlString = new StringBuilder();
 		List<String> conditions = new ArrayList<String>();
+		List<Long> roleIds = new ArrayList<Long>();
 
-		for (SysRole role : user.getRoles()) {
+		for (SysRole role : roles) {
 			String dataScope = role.getDataScope();
 			if (!DATA_SCOPE_CUSTOM.equals(dataScope) && conditions.contains(dataScope)) {
 				continue;
 			}
-			if (StringUtils.isNotEmpty(permission) && StringUtils.isNotEmpty(role.getPermissions())
-					&& !StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission))) {
+			if (!matchesPermission(role, permission)) {
 				continue;
 			}
 			if (DATA_SCOPE_ALL.equals(dataScope)) {
-				sqlString = new StringBuilder();
-				conditions.add(dataScope);
-				break;
+				return Predicate.NONE;
 			} else if (DATA_SCOPE_CUSTOM.equals(dataScope)) {
-				sqlString.append(StringUtils.format(
-						" OR {}.dept_id IN ( SELECT dept_id FROM sys_role_dept WHERE role_id = {} ) ", deptAlias,
-						role.getRoleId()));
+				roleIds.add(role.getRoleId());
 			} else if (DATA_SCOPE_DEPT.equals(dataScope)) {
-				sqlString.append(StringUtils.format(" OR {}.dept_id = {} ", deptAlias, user.getDeptId()));
+				sqlString.append(StringUtils.format(" OR {}.dept_id = {} ", deptAlias, param(DATA_SCOPE_DEPT_ID)));
 			} else if (DATA_SCOPE_DEPT_AND_CHILD.equals(dataScope)) {
 				sqlString.append(StringUtils.format(
-						" OR {}.dept_id IN ( SELECT dept_id FROM sys_dept WHERE dept_id = {} or find_in_set( {} , ancestors ) )",
-						deptAlias, user.getDeptId(), user.getDeptId()));
+						" OR {}.dept_id IN ( SELECT descendant_id FROM sys_dept_closure WHERE ancestor_id = {} )",
+						deptAlias, param(DATA_SCOPE_DEPT_ID)));
 			} else if (DATA_SCOPE_SELF.equals(dataScope)) {
 				if (StringUtils.isNotBlank(userAlias)) {
-					sqlString.append(StringUtils.format(" OR {}.user_id = {} ", userAlias, user.getUserId()));
+					sqlString.append(StringUtils.format(" OR {}.user_id = {} ", userAlias, param(DATA_SCOPE_USER_ID)));
 				} else {
 					// 数据权限为仅本人且没有userAlias别名不查询任何数据
 					sqlString.append(StringUtils.format(" OR {}.dept_id = 0 ", deptAlias));
@@ -125,18 +174,42 @@ public class DataScopeAspect {
 			conditions.add(dataScope);
 		}
 
+		if (!roleIds.isEmpty()) {
+			StringJoiner placeholders = new StringJoiner(",");
+			for (int i = 0; i < roleIds.size(); i++) {
+				placeholders.add(param(DATA_SCOPE_ROLE_IDS + "[" + i + "]"));
+			}
+			sqlString.append(StringUtils.format(
+					" OR {}.dept_id IN ( SELECT dept_id FROM sys_role_dept WHERE role_id IN ( {} ) ) ", deptAlias,
+					placeholders));
+		}
+
 		// 多角色情况下，所有角色都不包含传递过来的权限字符，这个时候sqlString也会为空，所以要限制一下,不查询任何数据
 		if (StringUtils.isEmpty(conditions)) {
 			sqlString.append(StringUtils.format(" OR {}.dept_id = 0 ", deptAlias));
 		}
-
-		if (StringUtils.isNotBlank(sqlString.toString())) {
-			Object params = joinPoint.getArgs()[0];
-			if (StringUtils.isNotNull(params) && params instanceof BaseEntity) {
-				BaseEntity baseEntity = (BaseEntity) params;
-				baseEntity.getParams().put(DATA_SCOPE, " AND (" + sqlString.substring(4) + ")");
-			}
+		if (sqlString.length() == 0) {
+			return Predicate.NONE;
 		}
+		return new Predicate(" AND (" + sqlString.substring(4) + ")", roleIds);
+	}
+
+	/**
+	 * 角色是否参与数据过滤，指定了权限字符而角色不包含时不参与
+	 *
+	 * @param role       角色
+	 * @param permission 权限字符
+	 */
+	public static boolean matchesPermission(SysRole role, String permission) {
+		return StringUtils.isEmpty(permission) || StringUtils.isEmpty(role.getPermissions())
+				|| StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission));
+	}
+
+	/**
+	 * 条件片段经 ${params.dataScope} 拼入后，MyBatis 再将其中的 #{} 解析为绑定参数
+	 */
+	private static String param(String name) {
+		return "#{params." + name + "}";
 	}
 
 	/**
@@ -11,7 +11,6 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
@@ -20,6 +19,7 @@ import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.ip.IpUtils;
 import com.github.ecsoya.bear.framework.aspectj.lang.annotation.RateLimiter;
 import com.github.ecsoya.bear.framework.aspectj.lang.enums.LimitType;
+import com.github.ecsoya.bear.framework.cache.ICache;
 
 /**
  * 限流处理
@@ -31,13 +31,13 @@ import com.github.ecsoya.bear.framework.aspectj.lang.enums.LimitType;
 public class RateLimiterAspect {
 	private static final Logger log = LoggerFactory.getLogger(RateLimiterAspect.class);
 
-	private RedisTemplate<Object, Object> redisTemplate;
+	private ICache redisCache;
 
 	private RedisScript<Long> limitScript;
 
 	@Autowired
-	public void setRedisTemplate1(RedisTemplate<Object, Object> redisTemplate) {
-		this.redisTemplate = redisTemplate;
+	public void setRedisCache(ICache redisCache) {
+		this.redisCache = redisCache;
 	}
 
 	@Autowired
@@ -51,10 +51,15 @@ public class RateLimiterAspect {
 		int count = rateLimiter.count();
 
 		String combineKey = getCombineKey(rateLimiter, point);
-		List<Object> keys = Collections.singletonList(combineKey);
+		List<String> keys = Collections.singletonList(combineKey);
 		try {
-			Long number = redisTemplate.execute(limitScript, keys, count, time);
-			if (StringUtils.isNull(number) || number.intValue() > count) {
+			Long number = redisCache.execute(limitScript, keys, String.valueOf(count), String.valueOf(time));
+			if (StringUtils.isNull(number)) {
+				// Redis 不可用时限流按 fail-open 降级放行
+				log.warn("限流降级放行，缓存key'{}'", combineKey);
+				return;
+			}
+			if (number.intValue() > count) {
 				throw new ServiceException("访问过于频繁，请稍候再试");
 			}
 			log.info("限制请求'{}',当前请求'{}',缓存key'{}'", count, number.intValue(), combineKey);
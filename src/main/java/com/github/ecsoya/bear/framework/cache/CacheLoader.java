@@ -0,0 +1,127 @@
+package com.github.ecsoya.bear.framework.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.github.ecsoya.bear.framework.redis.NearCache;
+
+/**
+ * 缓存未命中时的加载器
+ * <p>
+ * 同一节点上同一个键的并发未命中只加载一次，其余请求等待该次结果；加载期间如有上次读到的值则直接返回（允许短暂过期）。
+ * 数据库中不存在的键在本节点记为“不存在”，有效期内不再查询数据库。缓存中写入新值后立即可读，不受“不存在”记录影响。
+ *
+ * @author angryred
+ */
+public class CacheLoader<V> {
+	/** 每个加载器本地记录的最大条目数 */
+	private static final int MAX_SIZE = 1000;
+
+	/** 从缓存读取，未命中返回空 */
+	private final Function<String, V> reader;
+
+	/** 加载结果写入缓存 */
+	private final BiConsumer<String, V> writer;
+
+	/** 从数据库加载，不存在返回空 */
+	private final Function<String, V> loader;
+
+	/** 数据库中不存在的键 */
+	private final NearCache<String, Boolean> absent;
+
+	/** 上次读到的值，加载期间返回 */
+	private final NearCache<String, V> stale;
+
+	/** 正在加载的键 */
+	private final ConcurrentHashMap<String, CompletableFuture<V>> loading = new ConcurrentHashMap<String, CompletableFuture<V>>();
+
+	/**
+	 * @param name      加载器名称
+	 * @param reader    从缓存读取
+	 * @param writer    写入缓存
+	 * @param loader    从数据库加载
+	 * @param absentTtl “不存在”记录的有效期（秒）
+	 * @param staleTtl  上次读到的值的保留时间（秒）
+	 */
+	public CacheLoader(String name, Function<String, V> reader, BiConsumer<String, V> writer,
+			Function<String, V> loader, long absentTtl, long staleTtl) {
+		this.reader = reader;
+		this.writer = writer;
+		this.loader = loader;
+		this.absent = new NearCache<String, Boolean>(name + ".absent", MAX_SIZE, absentTtl, TimeUnit.SECONDS);
+		this.stale = new NearCache<String, V>(name + ".stale", MAX_SIZE, staleTtl, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 获取值，缓存未命中时加载
+	 *
+	 * @param key 键
+	 * @return 值，不存在时为空
+	 */
+	public V get(String key) {
+		V value = reader.apply(key);
+		if (value != null) {
+			stale.put(key, value);
+			return value;
+		}
+		if (absent.get(key) != null) {
+			return null;
+		}
+		CompletableFuture<V> future = new CompletableFuture<V>();
+		CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+		if (inFlight != null) {
+			V staleValue = stale.get(key);
+			return staleValue != null ? staleValue : join(inFlight);
+		}
+		try {
+			value = loader.apply(key);
+			if (value == null) {
+				absent.put(key, Boolean.TRUE);
+				stale.invalidate(key);
+			} else {
+				writer.accept(key, value);
+				stale.put(key, value);
+			}
+			future.complete(value);
+			return value;
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(key, future);
+		}
+	}
+
+	/**
+	 * 清除本地记录的键
+	 *
+	 * @param key 键
+	 */
+	public void invalidate(String key) {
+		absent.invalidate(key);
+		stale.invalidate(key);
+	}
+
+	/**
+	 * 清除本地全部记录
+	 */
+	public void invalidateAll() {
+		absent.clear();
+		stale.clear();
+	}
+
+	private V join(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,379 @@
+package com.github.ecsoya.bear.framework.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.utils.spring.SpringUtils;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 缓存指标，按业务前缀统计命中、未命中和操作耗时分布，并定时抽样 SCAN 估算各前缀的键数和内存占用
+ * <p>
+ * 统计只记录在本节点，可通过缓存监控接口查看，或以 Prometheus 文本格式供外部采集。
+ *
+ * @author angryred
+ */
+@Component
+public class CacheMetrics {
+	private static final Logger log = LoggerFactory.getLogger(CacheMetrics.class);
+
+	/** 不属于已知前缀的键 */
+	public static final String OTHER = "other";
+
+	/** 已知的业务前缀，按顺序匹配 */
+	private static final String[] PREFIXES = { CacheConstants.LOGIN_TOKEN_KEY, CacheConstants.LOGIN_TOKEN_SUMMARY_KEY,
+			CacheConstants.LOGIN_TOKEN_INDEX_KEY, CacheConstants.SESSION_EPOCH_KEY, CacheConstants.CAPTCHA_CODE_KEY,
+			CacheConstants.SYS_CONFIG_KEY, CacheConstants.SYS_DICT_KEY, CacheConstants.REPEAT_SUBMIT_KEY,
+			CacheConstants.RATE_LIMIT_KEY, CacheConstants.PWD_ERR_CNT_KEY, CacheConstants.PWD_BLOCKED_CNT_KEY };
+
+	/** 耗时分布的桶上限（纳秒），100微秒到1秒 */
+	private static final long[] BUCKETS = { 100_000L, 250_000L, 500_000L, 1_000_000L, 2_500_000L, 5_000_000L,
+			10_000_000L, 25_000_000L, 50_000_000L, 100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L };
+
+	/** 抽样时每次 SCAN 的键数 */
+	private static final int SAMPLE_PAGE = 200;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/** 是否记录指标 */
+	@Value("${cache.metrics.enabled:true}")
+	private boolean enabled;
+
+	/** 每次抽样的最多键数 */
+	@Value("${cache.metrics.sampleSize:2000}")
+	private int sampleSize;
+
+	/** 抽样间隔（秒），0 表示不抽样 */
+	@Value("${cache.metrics.sampleInterval:300}")
+	private int sampleInterval;
+
+	/** 前缀与统计，启动时创建，之后只读 */
+	private final Map<String, PrefixStats> stats;
+
+	/** 最近一次抽样的时间（毫秒） */
+	private volatile long sampleTime;
+
+	/** 最近一次抽样的键数 */
+	private volatile long sampledKeys;
+
+	/** 最近一次抽样时的总键数 */
+	private volatile long totalKeys;
+
+	public CacheMetrics() {
+		Map<String, PrefixStats> stats = new LinkedHashMap<String, PrefixStats>();
+		for (String prefix : PREFIXES) {
+			stats.put(prefix, new PrefixStats(prefix));
+		}
+		stats.put(OTHER, new PrefixStats(OTHER));
+		this.stats = Collections.unmodifiableMap(stats);
+	}
+
+	@PostConstruct
+	public void init() {
+		if (enabled && sampleInterval > 0) {
+			scheduledExecutorService.scheduleWithFixedDelay(this::sample, sampleInterval, sampleInterval,
+					TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * 记录一次操作耗时
+	 *
+	 * @param key        缓存键
+	 * @param operation  操作类型
+	 * @param startNanos 开始时间（System.nanoTime）
+	 */
+	public void record(String key, Operation operation, long startNanos) {
+		if (enabled) {
+			getStats(key).latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * 记录一次读取是否命中
+	 *
+	 * @param key 缓存键
+	 * @param hit 是否命中
+	 */
+	public void recordHit(String key, boolean hit) {
+		if (enabled) {
+			PrefixStats prefixStats = getStats(key);
+			(hit ? prefixStats.hits : prefixStats.misses).increment();
+		}
+	}
+
+	/**
+	 * 键所属前缀的统计
+	 */
+	private PrefixStats getStats(String key) {
+		if (key != null) {
+			for (String prefix : PREFIXES) {
+				if (key.startsWith(prefix)) {
+					return stats.get(prefix);
+				}
+			}
+		}
+		return stats.get(OTHER);
+	}
+
+	/**
+	 * 抽样 SCAN 最多 cache.metrics.sampleSize 个键，按前缀统计键数和内存占用，再按总键数比例估算
+	 */
+	public synchronized void sample() {
+		try {
+			ICache cache = SpringUtils.getBean(ICache.class);
+			long dbSize = cache.dbSize();
+			Map<PrefixStats, long[]> samples = new LinkedHashMap<PrefixStats, long[]>();
+			String cursor = ScanPage.FINISHED;
+			long count = 0;
+			ScanPage page;
+			do {
+				page = cache.scan("*", cursor, (int) Math.min(SAMPLE_PAGE, sampleSize - count));
+				List<String> keys = page.getKeys();
+				List<Long> sizes = cache.memoryUsage(keys);
+				for (int i = 0; i < keys.size(); i++) {
+					// 键数、已知大小的键数、字节数、最大字节数
+					long[] sample = samples.computeIfAbsent(getStats(keys.get(i)), k -> new long[4]);
+					sample[0]++;
+					Long size = sizes.get(i);
+					if (size != null) {
+						sample[1]++;
+						sample[2] += size;
+						sample[3] = Math.max(sample[3], size);
+					}
+				}
+				count += keys.size();
+				cursor = page.getCursor();
+			} while (!page.isFinished() && count < sampleSize);
+			// 遍历完整个键空间时为精确值
+			double ratio = page.isFinished() || count == 0 ? 1D : (double) dbSize / count;
+			for (PrefixStats prefixStats : stats.values()) {
+				long[] sample = samples.getOrDefault(prefixStats, new long[4]);
+				prefixStats.keys = Math.round(sample[0] * ratio);
+				prefixStats.bytes = Math.round(sample[2] * ratio);
+				prefixStats.avgBytes = sample[1] == 0 ? 0 : sample[2] / sample[1];
+				prefixStats.maxBytes = sample[3];
+			}
+			sampledKeys = count;
+			totalKeys = page.isFinished() ? count : dbSize;
+			sampleTime = System.currentTimeMillis();
+		} catch (Exception e) {
+			log.warn("缓存抽样统计失败: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 各前缀的统计信息
+	 */
+	public Map<String, Object> getStats() {
+		List<Map<String, Object>> list = new ArrayList<Map<String, Object>>(stats.size());
+		for (PrefixStats prefixStats : stats.values()) {
+			list.add(prefixStats.toMap());
+		}
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		result.put("enabled", enabled);
+		result.put("sampleTime", sampleTime);
+		result.put("sampledKeys", sampledKeys);
+		result.put("totalKeys", totalKeys);
+		result.put("prefixes", list);
+		return result;
+	}
+
+	/**
+	 * 以 Prometheus 文本格式（0.0.4）输出全部指标
+	 */
+	public String scrape() {
+		StringBuilder builder = new StringBuilder(4096);
+		builder.append("# HELP bear_cache_reads_total Cache reads by key prefix and result.\n");
+		builder.append("# TYPE bear_cache_reads_total counter\n");
+		for (PrefixStats prefixStats : stats.values()) {
+			metric(builder, "bear_cache_reads_total", prefixStats.prefix, "result=\"hit\"", prefixStats.hits.sum());
+			metric(builder, "bear_cache_reads_total", prefixStats.prefix, "result=\"miss\"", prefixStats.misses.sum());
+		}
+		builder.append("# HELP bear_cache_operation_seconds Cache operation latency by key prefix.\n");
+		builder.append("# TYPE bear_cache_operation_seconds histogram\n");
+		for (PrefixStats prefixStats : stats.values()) {
+			for (Operation operation : Operation.values()) {
+				Histogram histogram = prefixStats.latencies[operation.ordinal()];
+				String labels = "operation=\"" + operation.label + "\"";
+				long cumulative = 0;
+				for (int i = 0; i < BUCKETS.length; i++) {
+					cumulative += histogram.counts[i].sum();
+					metric(builder, "bear_cache_operation_seconds_bucket", prefixStats.prefix,
+							labels + ",le=\"" + seconds(BUCKETS[i]) + "\"", cumulative);
+				}
+				// 由各桶累加，保证与桶计数一致
+				long count = cumulative + histogram.counts[BUCKETS.length].sum();
+				metric(builder, "bear_cache_operation_seconds_bucket", prefixStats.prefix, labels + ",le=\"+Inf\"",
+						count);
+				builder.append("bear_cache_operation_seconds_sum{prefix=\"").append(prefixStats.prefix).append("\",")
+						.append(labels).append("} ").append(seconds(histogram.sum.sum())).append('\n');
+				metric(builder, "bear_cache_operation_seconds_count", prefixStats.prefix, labels, count);
+			}
+		}
+		builder.append("# HELP bear_cache_keys Estimated key count by prefix from the last sampled SCAN.\n");
+		builder.append("# TYPE bear_cache_keys gauge\n");
+		for (PrefixStats prefixStats : stats.values()) {
+			metric(builder, "bear_cache_keys", prefixStats.prefix, null, prefixStats.keys);
+		}
+		builder.append("# HELP bear_cache_memory_bytes Estimated memory usage by prefix from the last sampled SCAN.\n");
+		builder.append("# TYPE bear_cache_memory_bytes gauge\n");
+		for (PrefixStats prefixStats : stats.values()) {
+			metric(builder, "bear_cache_memory_bytes", prefixStats.prefix, null, prefixStats.bytes);
+		}
+		builder.append("# HELP bear_cache_value_max_bytes Largest sampled value by prefix.\n");
+		builder.append("# TYPE bear_cache_value_max_bytes gauge\n");
+		for (PrefixStats prefixStats : stats.values()) {
+			metric(builder, "bear_cache_value_max_bytes", prefixStats.prefix, null, prefixStats.maxBytes);
+		}
+		return builder.toString();
+	}
+
+	private static void metric(StringBuilder builder, String name, String prefix, String labels, long value) {
+		builder.append(name).append("{prefix=\"").append(prefix).append('"');
+		if (labels != null) {
+			builder.append(',').append(labels);
+		}
+		builder.append("} ").append(value).append('\n');
+	}
+
+	private static String seconds(long nanos) {
+		return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+	}
+
+	/**
+	 * 操作类型
+	 */
+	public enum Operation {
+		READ("read"), WRITE("write"), DELETE("delete"), SCRIPT("script");
+
+		private final String label;
+
+		Operation(String label) {
+			this.label = label;
+		}
+	}
+
+	/**
+	 * 单个前缀的统计
+	 */
+	private static final class PrefixStats {
+		private final String prefix;
+
+		private final LongAdder hits = new LongAdder();
+
+		private final LongAdder misses = new LongAdder();
+
+		private final Histogram[] latencies = new Histogram[Operation.values().length];
+
+		/** 以下为最近一次抽样的估算值 */
+		private volatile long keys;
+
+		private volatile long bytes;
+
+		private volatile long avgBytes;
+
+		private volatile long maxBytes;
+
+		private PrefixStats(String prefix) {
+			this.prefix = prefix;
+			for (int i = 0; i < latencies.length; i++) {
+				latencies[i] = new Histogram();
+			}
+		}
+
+		private Map<String, Object> toMap() {
+			long hitCount = hits.sum();
+			long missCount = misses.sum();
+			long total = hitCount + missCount;
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			map.put("prefix", prefix);
+			map.put("hits", hitCount);
+			map.put("misses", missCount);
+			map.put("hitRate", total == 0 ? 0D : (double) hitCount / total);
+			Map<String, Object> operations = new LinkedHashMap<String, Object>();
+			for (Operation operation : Operation.values()) {
+				operations.put(operation.label, latencies[operation.ordinal()].toMap());
+			}
+			map.put("operations", operations);
+			map.put("keys", keys);
+			map.put("bytes", bytes);
+			map.put("avgBytes", avgBytes);
+			map.put("maxBytes", maxBytes);
+			return map;
+		}
+	}
+
+	/**
+	 * 固定分桶的耗时分布
+	 */
+	private static final class Histogram {
+		/** 各桶计数（非累计），最后一个为超过 1 秒 */
+		private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+
+		private final LongAdder count = new LongAdder();
+
+		/** 总耗时（纳秒） */
+		private final LongAdder sum = new LongAdder();
+
+		private Histogram() {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = new LongAdder();
+			}
+		}
+
+		private void record(long nanos) {
+			int index = 0;
+			while (index < BUCKETS.length && nanos > BUCKETS[index]) {
+				index++;
+			}
+			counts[index].increment();
+			count.increment();
+			sum.add(nanos);
+		}
+
+		/**
+		 * 次数、平均耗时和估算的 P50/P99（毫秒，取所在桶的上限，超过 1 秒时为 1 秒）
+		 */
+		private Map<String, Object> toMap() {
+			long total = count.sum();
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			map.put("count", total);
+			map.put("avgMillis", total == 0 ? 0D : sum.sum() / 1e6 / total);
+			map.put("p50Millis", percentile(total, 0.5));
+			map.put("p99Millis", percentile(total, 0.99));
+			return map;
+		}
+
+		private double percentile(long total, double quantile) {
+			if (total == 0) {
+				return 0D;
+			}
+			long target = (long) Math.ceil(total * quantile);
+			long cumulative = 0;
+			for (int i = 0; i < BUCKETS.length; i++) {
+				cumulative += counts[i].sum();
+				if (cumulative >= target) {
+					return BUCKETS[i] / 1e6;
+				}
+			}
+			return BUCKETS[BUCKETS.length - 1] / 1e6;
+		}
+	}
+}
@@ -0,0 +1,352 @@
+package com.github.ecsoya.bear.framework.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.constant.UserConstants;
+import com.github.ecsoya.bear.common.core.text.Convert;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+import com.github.ecsoya.bear.framework.web.domain.TreeAssembler;
+import com.github.ecsoya.bear.framework.web.domain.TreeSelect;
+import com.github.ecsoya.bear.project.system.domain.SysDept;
+import com.github.ecsoya.bear.project.system.mapper.SysDeptMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 部门层级本地索引，保存全部未删除部门的父子关系、先序位置与子树范围，构建部门树和判断上下级时不再访问数据库
+ * <p>
+ * 部门变更（事务提交后）只重新加载该部门及其上级、下级部门，版本号加一并通知其他节点同样处理；定时与缓存中的版本号比对，避免错过通知。
+ *
+ * @author angryred
+ */
+@Component
+public class DeptIndex {
+	private static final Logger log = LoggerFactory.getLogger(DeptIndex.class);
+
+	/** 删除标志：存在 */
+	private static final String DEL_FLAG_EXIST = "0";
+
+	/** 与查询部门列表一致，按父部门、显示顺序排列 */
+	private static final Comparator<SysDept> DEPT_ORDER = Comparator
+			.comparing(SysDept::getParentId, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(SysDept::getOrderNum, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	/** 部门下拉树组装，部门列表已按显示顺序排列 */
+	private static final TreeAssembler<SysDept> DEPT_TREE = new TreeAssembler<SysDept>(SysDept::getDeptId,
+			SysDept::getParentId).label(SysDept::getDeptName);
+
+	@Autowired
+	private SysDeptMapper deptMapper;
+
+	@Autowired
+	private ICache redisCache;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/** 与缓存中的版本号比对的间隔（秒） */
+	@Value("${cache.dept.refreshInterval:60}")
+	private int refreshInterval;
+
+	/** 当前索引，未加载时为空 */
+	private volatile Hierarchy hierarchy;
+
+	/** 失效次数，加载期间发生失效时不保存加载结果 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/** 本节点已知的部门版本号 */
+	private final AtomicLong version = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		version.set(loadVersion());
+		cacheBroadcaster.subscribe(CacheConstants.SYS_DEPT_CHANNEL, this::onDeptChanged);
+		scheduledExecutorService.scheduleWithFixedDelay(this::checkVersion, refreshInterval, refreshInterval,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 获取部门层级索引，未加载时从数据库加载全部部门
+	 *
+	 * @return 索引
+	 */
+	public Hierarchy getHierarchy() {
+		Hierarchy current = hierarchy;
+		if (current != null) {
+			return current;
+		}
+		long loading = generation.get();
+		current = new Hierarchy(deptMapper.selectDeptList(new SysDept()));
+		synchronized (this) {
+			if (generation.get() == loading) {
+				hierarchy = current;
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 部门新增、修改、删除后更新索引，存在事务时在提交后执行，并通知其他节点
+	 *
+	 * @param deptId 部门ID
+	 */
+	public void changed(Long deptId) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					publish(deptId);
+				}
+			});
+		} else {
+			publish(deptId);
+		}
+	}
+
+	private void publish(Long deptId) {
+		reload(deptId);
+		try {
+			long current = redisCache.increment(CacheConstants.SYS_DEPT_VERSION_KEY, 1);
+			version.accumulateAndGet(current, Math::max);
+			cacheBroadcaster.publish(CacheConstants.SYS_DEPT_CHANNEL, current + ":" + deptId);
+		} catch (Exception e) {
+			// 已提交，其他节点由定时比对或索引重建兜底
+			log.warn("部门变更通知失败'{}': {}", deptId, e.getMessage());
+		}
+	}
+
+	/**
+	 * 其他节点的部门变更通知，格式为 版本号:部门ID
+	 */
+	private void onDeptChanged(String message) {
+		int index = message.indexOf(':');
+		if (index < 0) {
+			return;
+		}
+		reload(Convert.toLong(message.substring(index + 1)));
+		version.accumulateAndGet(Convert.toLong(message.substring(0, index), 0L), Math::max);
+	}
+
+	/**
+	 * 重新加载部门及其全部上级、下级部门：移动时下级部门的父级列表改变，启用时上级部门的状态改变
+	 */
+	private synchronized void reload(Long deptId) {
+		generation.incrementAndGet();
+		Hierarchy current = hierarchy;
+		if (current == null || deptId == null) {
+			hierarchy = null;
+			return;
+		}
+		Map<Long, SysDept> depts = new LinkedHashMap<Long, SysDept>(current.depts.size() * 4 / 3 + 16);
+		current.depts.forEach(dept -> depts.put(dept.getDeptId(), dept));
+		for (SysDept dept : deptMapper.selectDeptLineageById(deptId)) {
+			if (DEL_FLAG_EXIST.equals(dept.getDelFlag())) {
+				depts.put(dept.getDeptId(), dept);
+			} else {
+				depts.remove(dept.getDeptId());
+			}
+		}
+		List<SysDept> list = new ArrayList<SysDept>(depts.values());
+		list.sort(DEPT_ORDER);
+		hierarchy = new Hierarchy(list);
+	}
+
+	/**
+	 * 定时与缓存中的版本号比对，不一致时清除索引，下次使用时重新加载
+	 */
+	private void checkVersion() {
+		try {
+			long current = loadVersion();
+			if (current != version.get()) {
+				synchronized (this) {
+					generation.incrementAndGet();
+					hierarchy = null;
+				}
+				version.set(current);
+			}
+		} catch (Exception e) {
+			log.warn("部门版本比对失败: {}", e.getMessage());
+		}
+	}
+
+	private long loadVersion() {
+		return Convert.toLong(redisCache.getCacheObject(CacheConstants.SYS_DEPT_VERSION_KEY), 0L);
+	}
+
+	/**
+	 * 部门层级索引，不可修改
+	 */
+	public static final class Hierarchy {
+		/** 按父部门、显示顺序排列的部门 */
+		private final List<SysDept> depts;
+
+		/** 部门ID与先序位置 */
+		private final Map<Long, Integer> positions;
+
+		/** 按先序位置排列的部门 */
+		private final SysDept[] preorder;
+
+		/** 子树结束位置（不含），子树为 [位置, 结束位置) */
+		private final int[] ends;
+
+		/** 先序位置之前正常状态的部门数 */
+		private final int[] normals;
+
+		/** 全部部门的树，首次使用时构建 */
+		private volatile List<TreeSelect> tree;
+
+		private Hierarchy(List<SysDept> depts) {
+			this.depts = Collections.unmodifiableList(depts);
+			Map<Long, SysDept> byId = new HashMap<Long, SysDept>(depts.size() * 4 / 3 + 1);
+			Map<Long, List<SysDept>> children = new HashMap<Long, List<SysDept>>();
+			for (SysDept dept : depts) {
+				byId.put(dept.getDeptId(), dept);
+				children.computeIfAbsent(dept.getParentId(), k -> new ArrayList<SysDept>()).add(dept);
+			}
+
+			// 从父部门不存在的部门开始先序遍历，子部门逆序入栈以保持显示顺序
+			Map<Long, Integer> positions = new HashMap<Long, Integer>(depts.size() * 4 / 3 + 1);
+			List<SysDept> preorder = new ArrayList<SysDept>(depts.size());
+			Deque<SysDept> stack = new ArrayDeque<SysDept>();
+			for (SysDept dept : depts) {
+				if (byId.containsKey(dept.getParentId())) {
+					continue;
+				}
+				stack.push(dept);
+				while (!stack.isEmpty()) {
+					SysDept node = stack.pop();
+					if (positions.putIfAbsent(node.getDeptId(), preorder.size()) != null) {
+						continue;
+					}
+					preorder.add(node);
+					List<SysDept> nodeChildren = children.getOrDefault(node.getDeptId(), Collections.emptyList());
+					for (int i = nodeChildren.size() - 1; i >= 0; i--) {
+						stack.push(nodeChildren.get(i));
+					}
+				}
+			}
+			this.positions = positions;
+			this.preorder = preorder.toArray(new SysDept[0]);
+
+			// 逆先序累加子树大小
+			int size = this.preorder.length;
+			int[] sizes = new int[size];
+			this.ends = new int[size];
+			for (int i = size - 1; i >= 0; i--) {
+				sizes[i] += 1;
+				ends[i] = i + sizes[i];
+				Integer parent = positions.get(this.preorder[i].getParentId());
+				if (parent != null) {
+					sizes[parent] += sizes[i];
+				}
+			}
+			this.normals = new int[size + 1];
+			for (int i = 0; i < size; i++) {
+				normals[i + 1] = normals[i] + (UserConstants.DEPT_NORMAL.equals(this.preorder[i].getStatus()) ? 1 : 0);
+			}
+		}
+
+		/**
+		 * 全部未删除的部门，按父部门、显示顺序排列
+		 */
+		public List<SysDept> getDepts() {
+			return depts;
+		}
+
+		/**
+		 * 部门是否存在且未删除
+		 *
+		 * @param deptId 部门ID
+		 */
+		public boolean contains(Long deptId) {
+			return positions.containsKey(deptId);
+		}
+
+		/**
+		 * 部门是否为上级部门自身或其下级部门
+		 *
+		 * @param ancestorId 上级部门ID
+		 * @param deptId     部门ID
+		 */
+		public boolean isSelfOrDescendant(Long ancestorId, Long deptId) {
+			Integer ancestor = positions.get(ancestorId);
+			Integer position = positions.get(deptId);
+			return ancestor != null && position != null && position >= ancestor && position < ends[ancestor];
+		}
+
+		/**
+		 * 下级部门数
+		 *
+		 * @param deptId 部门ID
+		 * @return 不含自身，部门不存在时为0
+		 */
+		public int countDescendants(Long deptId) {
+			Integer position = positions.get(deptId);
+			return position == null ? 0 : ends[position] - position - 1;
+		}
+
+		/**
+		 * 正常状态的下级部门数
+		 *
+		 * @param deptId 部门ID
+		 * @return 不含自身，部门不存在时为0
+		 */
+		public int countNormalDescendants(Long deptId) {
+			Integer position = positions.get(deptId);
+			return position == null ? 0 : normals[ends[position]] - normals[position + 1];
+		}
+
+		/**
+		 * 全部部门的树
+		 */
+		public List<TreeSelect> getTree() {
+			List<TreeSelect> current = tree;
+			if (current == null) {
+				current = buildTree(dept -> true);
+				tree = current;
+			}
+			return current;
+		}
+
+		/**
+		 * 构建可见部门的树，父部门不可见的部门作为根节点
+		 *
+		 * @param visible 部门是否可见
+		 * @return 树结构列表
+		 */
+		public List<TreeSelect> buildTree(Predicate<SysDept> visible) {
+			List<SysDept> visibleDepts = new ArrayList<SysDept>(depts.size());
+			for (SysDept dept : depts) {
+				// 层级成环的部门不可达，不构建
+				if (positions.containsKey(dept.getDeptId()) && visible.test(dept)) {
+					visibleDepts.add(dept);
+				}
+			}
+			return DEPT_TREE.buildSelect(visibleDepts);
+		}
+	}
+}
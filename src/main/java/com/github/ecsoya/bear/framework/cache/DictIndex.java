@@ -0,0 +1,289 @@
+package com.github.ecsoya.bear.framework.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.core.text.Convert;
+import com.github.ecsoya.bear.common.utils.DictUtils;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+import com.github.ecsoya.bear.project.system.domain.SysDictData;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 字典本地索引，按字典类型建立 键值→标签 和 标签→键值 的映射，翻译字典时不再访问缓存
+ * <p>
+ * 字典变更时版本号加一并通知其他节点清除对应类型的索引；定时与缓存中的版本号比对，避免错过通知。
+ *
+ * @author angryred
+ */
+@Component
+public class DictIndex {
+	private static final Logger log = LoggerFactory.getLogger(DictIndex.class);
+
+	/** 全部字典类型变更 */
+	private static final String ALL_TYPES = "*";
+
+	@Autowired
+	private ICache redisCache;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/** 与缓存中的版本号比对的间隔（秒） */
+	@Value("${cache.dict.refreshInterval:60}")
+	private int refreshInterval;
+
+	/** 字典类型与索引 */
+	private final Map<String, TypeIndex> indexes = new ConcurrentHashMap<String, TypeIndex>();
+
+	/** 失效次数，加载期间发生失效时不保存加载结果 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/** 本节点已知的字典版本号 */
+	private final AtomicLong version = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		version.set(loadVersion());
+		cacheBroadcaster.subscribe(CacheConstants.SYS_DICT_CHANNEL, this::onDictChanged);
+		scheduledExecutorService.scheduleWithFixedDelay(this::checkVersion, refreshInterval, refreshInterval,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 获取字典类型的索引
+	 *
+	 * @param dictType 字典类型
+	 * @return 索引，字典未缓存时为空
+	 */
+	public TypeIndex getIndex(String dictType) {
+		TypeIndex index = indexes.get(dictType);
+		if (index != null) {
+			return index;
+		}
+		long loading = generation.get();
+		List<SysDictData> dictDatas = DictUtils.getDictCache(dictType);
+		if (dictDatas == null) {
+			return null;
+		}
+		index = new TypeIndex(dictDatas);
+		synchronized (this) {
+			if (generation.get() == loading) {
+				indexes.put(dictType, index);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * 当前字典版本号，任一字典变更后增加
+	 *
+	 * @return 版本号
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * 字典变更后增加版本号，清除本节点索引并通知其他节点
+	 *
+	 * @param dictType 字典类型，为空表示全部
+	 */
+	public void changed(String dictType) {
+		String type = dictType == null ? ALL_TYPES : dictType;
+		invalidate(type);
+		long current = redisCache.increment(CacheConstants.SYS_DICT_VERSION_KEY, 1);
+		if (current <= version.get()) {
+			// 版本号键已丢失，自增结果可能与已发出的版本号重复
+			current = reseed();
+		}
+		version.accumulateAndGet(current, Math::max);
+		cacheBroadcaster.publish(CacheConstants.SYS_DICT_CHANNEL, current + ":" + type);
+	}
+
+	/**
+	 * 其他节点的字典变更通知，格式为 版本号:字典类型
+	 */
+	private void onDictChanged(String message) {
+		int index = message.indexOf(':');
+		if (index < 0) {
+			return;
+		}
+		invalidate(message.substring(index + 1));
+		version.accumulateAndGet(Convert.toLong(message.substring(0, index), 0L), Math::max);
+	}
+
+	private synchronized void invalidate(String dictType) {
+		generation.incrementAndGet();
+		if (ALL_TYPES.equals(dictType)) {
+			indexes.clear();
+		} else {
+			indexes.remove(dictType);
+		}
+	}
+
+	/**
+	 * 定时与缓存中的版本号比对，不一致时清除全部索引；版本号只增不减
+	 */
+	private void checkVersion() {
+		try {
+			long current = loadVersion();
+			if (current < version.get()) {
+				current = reseed();
+			}
+			if (current != version.get()) {
+				invalidate(ALL_TYPES);
+				version.accumulateAndGet(current, Math::max);
+			}
+		} catch (Exception e) {
+			log.warn("字典版本比对失败: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 读取缓存中的版本号，不存在时重新起步
+	 */
+	private long loadVersion() {
+		Long current = Convert.toLong(redisCache.getCacheObject(CacheConstants.SYS_DICT_VERSION_KEY));
+		return current != null ? current : reseed();
+	}
+
+	/**
+	 * 版本号键被清除（清空缓存、FLUSHDB）后从当前毫秒数起步，不会回到已作为 ETag 发出的版本号；
+	 * 多个节点同时起步时结果更大，同样不会回退
+	 */
+	private long reseed() {
+		return redisCache.increment(CacheConstants.SYS_DICT_VERSION_KEY,
+				Math.max(System.currentTimeMillis(), version.get() + 1));
+	}
+
+	/**
+	 * 单个字典类型的索引，不可修改
+	 */
+	public static final class TypeIndex {
+		/** 按排序的字典数据 */
+		private final List<SysDictData> dictDatas;
+
+		/** 键值与标签 */
+		private final Map<String, String> labels;
+
+		/** 标签与键值 */
+		private final Map<String, String> values;
+
+		private TypeIndex(List<SysDictData> dictDatas) {
+			this.dictDatas = Collections.unmodifiableList(dictDatas);
+			Map<String, String> labels = new HashMap<String, String>(dictDatas.size() * 4 / 3 + 1);
+			Map<String, String> values = new HashMap<String, String>(dictDatas.size() * 4 / 3 + 1);
+			for (SysDictData dict : dictDatas) {
+				// 与逐条查找一致，重复时取排序靠前的
+				labels.putIfAbsent(dict.getDictValue(), dict.getDictLabel());
+				values.putIfAbsent(dict.getDictLabel(), dict.getDictValue());
+			}
+			this.labels = labels;
+			this.values = values;
+		}
+
+		public List<SysDictData> getDictDatas() {
+			return dictDatas;
+		}
+
+		/**
+		 * 根据字典键值获取标签
+		 *
+		 * @param dictValue 字典键值
+		 * @return 字典标签，不存在时为空
+		 */
+		public String getLabel(String dictValue) {
+			return labels.get(dictValue);
+		}
+
+		/**
+		 * 根据字典标签获取键值
+		 *
+		 * @param dictLabel 字典标签
+		 * @return 字典键值，不存在时为空
+		 */
+		public String getValue(String dictLabel) {
+			return values.get(dictLabel);
+		}
+
+		/**
+		 * 翻译以分隔符连接的多个键值，结果按字典排序
+		 *
+		 * @param dictValues 字典键值
+		 * @param separator  分隔符
+		 * @return 字典标签
+		 */
+		public String getLabels(String dictValues, String separator) {
+			Set<String> parts = split(dictValues, separator);
+			StringBuilder builder = new StringBuilder();
+			for (SysDictData dict : dictDatas) {
+				if (parts.contains(dict.getDictValue())) {
+					append(builder, dict.getDictLabel(), separator);
+				}
+			}
+			return builder.toString();
+		}
+
+		/**
+		 * 翻译以分隔符连接的多个标签，结果按字典排序
+		 *
+		 * @param dictLabels 字典标签
+		 * @param separator  分隔符
+		 * @return 字典键值
+		 */
+		public String getValues(String dictLabels, String separator) {
+			Set<String> parts = split(dictLabels, separator);
+			StringBuilder builder = new StringBuilder();
+			for (SysDictData dict : dictDatas) {
+				if (parts.contains(dict.getDictLabel())) {
+					append(builder, dict.getDictValue(), separator);
+				}
+			}
+			return builder.toString();
+		}
+
+		/**
+		 * 按分隔符原样拆分，分隔符不作为正则表达式，忽略末尾的空串
+		 */
+		private static Set<String> split(String text, String separator) {
+			Set<String> parts = new HashSet<String>();
+			int start = 0;
+			int end;
+			while ((end = text.indexOf(separator, start)) >= 0) {
+				parts.add(text.substring(start, end));
+				start = end + separator.length();
+			}
+			if (start < text.length()) {
+				parts.add(text.substring(start));
+			}
+			return parts;
+		}
+
+		private static void append(StringBuilder builder, String text, String separator) {
+			if (builder.length() > 0) {
+				builder.append(separator);
+			}
+			builder.append(text);
+		}
+	}
+}
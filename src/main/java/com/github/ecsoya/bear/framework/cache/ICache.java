@@ -0,0 +1,388 @@
+package com.github.ecsoya.bear.framework.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 缓存操作接口，由 cache.type 选择实现：redis（默认，支持集群部署）或 memory（进程内存储，单节点部署无需Redis）
+ *
+ * @author angryred
+ */
+@SuppressWarnings("rawtypes")
+public interface ICache {
+	/**
+	 * 缓存基本的对象，Integer、String、实体类等
+	 *
+	 * @param key   缓存的键值
+	 * @param value 缓存的值
+	 */
+	public <T> void setCacheObject(final String key, final T value);
+
+	/**
+	 * 缓存基本的对象，Integer、String、实体类等
+	 *
+	 * @param key      缓存的键值
+	 * @param value    缓存的值
+	 * @param timeout  时间
+	 * @param timeUnit 时间颗粒度
+	 */
+	public <T> void setCacheObject(final String key, final T value, final Integer timeout, final TimeUnit timeUnit);
+
+	/**
+	 * 批量缓存基本的对象
+	 *
+	 * @param values 缓存的键值与值
+	 */
+	public <T> void setCacheObjects(final Map<String, T> values);
+
+	/**
+	 * 批量缓存基本的对象，并设置相同的有效时间
+	 *
+	 * @param values   缓存的键值与值
+	 * @param timeout  时间
+	 * @param timeUnit 时间颗粒度
+	 */
+	public <T> void setCacheObjects(final Map<String, T> values, final Integer timeout, final TimeUnit timeUnit);
+
+	/**
+	 * 设置有效时间
+	 *
+	 * @param key     缓存键
+	 * @param timeout 超时时间（秒）
+	 * @return true=设置成功；false=设置失败
+	 */
+	public boolean expire(final String key, final long timeout);
+
+	/**
+	 * 设置有效时间
+	 *
+	 * @param key     缓存键
+	 * @param timeout 超时时间
+	 * @param unit    时间单位
+	 * @return true=设置成功；false=设置失败
+	 */
+	public boolean expire(final String key, final long timeout, final TimeUnit unit);
+
+	/**
+	 * 批量设置有效时间
+	 *
+	 * @param timeouts 缓存键与超时时间
+	 * @param unit     时间单位
+	 */
+	public void expire(final Map<String, Long> timeouts, final TimeUnit unit);
+
+	/**
+	 * 获取有效时间
+	 *
+	 * @param key 缓存键
+	 * @return 有效时间（秒），-1表示永不过期，-2表示不存在
+	 */
+	public long getExpire(final String key);
+
+	/**
+	 * 判断 key是否存在
+	 *
+	 * @param key 键
+	 * @return true 存在 false不存在
+	 */
+	public Boolean hasKey(String key);
+
+	/**
+	 * 获得缓存的基本对象。
+	 *
+	 * @param key 缓存键值
+	 * @return 缓存键值对应的数据
+	 */
+	public <T> T getCacheObject(final String key);
+
+	/**
+	 * 批量获得缓存的基本对象
+	 *
+	 * @param keys 缓存键值集合
+	 * @return 与键顺序一致的数据，不存在时为空
+	 */
+	public <T> List<T> getCacheObjects(final Collection<String> keys);
+
+	/**
+	 * 数值增加，不存在时从0开始
+	 *
+	 * @param key   缓存键
+	 * @param delta 增量
+	 * @return 增加后的值
+	 */
+	public long increment(final String key, final long delta);
+
+	/**
+	 * 删除单个对象
+	 *
+	 * @param key 缓存键
+	 * @return 是否删除
+	 */
+	public boolean deleteObject(final String key);
+
+	/**
+	 * 删除集合对象
+	 *
+	 * @param collection 多个对象
+	 * @return 是否删除
+	 */
+	public boolean deleteObject(final Collection collection);
+
+	/**
+	 * 缓存List数据
+	 *
+	 * @param key      缓存的键值
+	 * @param dataList 待缓存的List数据
+	 * @return 缓存的个数
+	 */
+	public <T> long setCacheList(final String key, final List<T> dataList);
+
+	/**
+	 * 获得缓存的list对象
+	 *
+	 * @param key 缓存的键值
+	 * @return 缓存键值对应的数据
+	 */
+	public <T> List<T> getCacheList(final String key);
+
+	/**
+	 * 缓存Set
+	 *
+	 * @param key     缓存键值
+	 * @param dataSet 缓存的数据
+	 * @return 新增的个数
+	 */
+	public <T> long setCacheSet(final String key, final Set<T> dataSet);
+
+	/**
+	 * 获得缓存的set
+	 *
+	 * @param key 缓存键值
+	 * @return 缓存的数据
+	 */
+	public <T> Set<T> getCacheSet(final String key);
+
+	/**
+	 * 缓存Map
+	 *
+	 * @param key     缓存键值
+	 * @param dataMap 缓存的数据
+	 */
+	public <T> void setCacheMap(final String key, final Map<String, T> dataMap);
+
+	/**
+	 * 获得缓存的Map
+	 *
+	 * @param key 缓存键值
+	 * @return 缓存的数据
+	 */
+	public <T> Map<String, T> getCacheMap(final String key);
+
+	/**
+	 * 往Hash中存入数据
+	 *
+	 * @param key   缓存键
+	 * @param hKey  Hash键
+	 * @param value 值
+	 */
+	public <T> void setCacheMapValue(final String key, final String hKey, final T value);
+
+	/**
+	 * 获取Hash中的数据
+	 *
+	 * @param key  缓存键
+	 * @param hKey Hash键
+	 * @return Hash中的对象
+	 */
+	public <T> T getCacheMapValue(final String key, final String hKey);
+
+	/**
+	 * Hash中的数值增加
+	 *
+	 * @param key   缓存键
+	 * @param hKey  Hash键
+	 * @param delta 增量
+	 * @return 增加后的值
+	 */
+	public long incrementCacheMapValue(final String key, final String hKey, final long delta);
+
+	/**
+	 * 获取多个Hash中的数据
+	 *
+	 * @param key   缓存键
+	 * @param hKeys Hash键集合
+	 * @return Hash对象集合
+	 */
+	public <T> List<T> getMultiCacheMapValue(final String key, final Collection<Object> hKeys);
+
+	/**
+	 * 删除Hash中的某条数据
+	 *
+	 * @param key  缓存键
+	 * @param hKey Hash键
+	 * @return 是否成功
+	 */
+	public boolean deleteCacheMapValue(final String key, final String hKey);
+
+	/**
+	 * 批量获取多个Hash的全部数据
+	 *
+	 * @param keys 缓存键集合
+	 * @return 与键顺序一致的Hash数据，不存在时为空Map
+	 */
+	public <T> List<Map<String, T>> getCacheMaps(final Collection<String> keys);
+
+	/**
+	 * 往有序集合中添加数据
+	 *
+	 * @param key   缓存键
+	 * @param value 值
+	 * @param score 分数
+	 * @return 是否新增
+	 */
+	public <T> boolean zAdd(final String key, final T value, final double score);
+
+	/**
+	 * 往有序集合中批量添加数据，已存在的更新分数
+	 *
+	 * @param key    缓存键
+	 * @param scores 值及分数
+	 * @return 新增个数
+	 */
+	public <T> long zAdd(final String key, final Map<T, Double> scores);
+
+	/**
+	 * 批量更新有序集合中已存在数据的分数，不存在的不添加
+	 *
+	 * @param key    缓存键
+	 * @param scores 值及分数
+	 */
+	public <T> void zUpdate(final String key, final Map<T, Double> scores);
+
+	/**
+	 * 按分数从小到大获取有序集合中的数据
+	 *
+	 * @param key    缓存键
+	 * @param min    最小分数
+	 * @param max    最大分数
+	 * @param offset 偏移
+	 * @param count  个数
+	 * @return 数据
+	 */
+	public <T> Set<T> zRangeByScore(final String key, final double min, final double max, final long offset,
+			final long count);
+
+	/**
+	 * 按分数从大到小获取有序集合中的数据
+	 *
+	 * @param key    缓存键
+	 * @param min    最小分数
+	 * @param max    最大分数
+	 * @param offset 偏移
+	 * @param count  个数
+	 * @return 数据
+	 */
+	public <T> Set<T> zReverseRangeByScore(final String key, final double min, final double max, final long offset,
+			final long count);
+
+	/**
+	 * 统计分数区间内的数据个数
+	 *
+	 * @param key 缓存键
+	 * @param min 最小分数
+	 * @param max 最大分数
+	 * @return 个数
+	 */
+	public long zCount(final String key, final double min, final double max);
+
+	/**
+	 * 删除有序集合中的数据
+	 *
+	 * @param key    缓存键
+	 * @param values 值集合
+	 * @return 删除个数
+	 */
+	public long zRemove(final String key, final Collection<?> values);
+
+	/**
+	 * 执行脚本，参数按字符串传入；进程内实现执行预先注册的等价逻辑
+	 *
+	 * @param script 脚本
+	 * @param keys   缓存键
+	 * @param args   参数
+	 * @return 结果
+	 */
+	public <T> T execute(final RedisScript<T> script, final List<String> keys, final String... args);
+
+	/**
+	 * 批量执行，Redis实现中当前线程上的缓存操作合并为一次往返，操作本身返回空；嵌套调用并入外层
+	 *
+	 * @param action 缓存操作
+	 * @return 各操作的结果
+	 */
+	public List<Object> executePipelined(final Runnable action);
+
+	/**
+	 * 获得缓存的基本对象列表，数据量大时应使用 scan 分批处理
+	 *
+	 * @param pattern 匹配模式，支持 * ? []
+	 * @return 对象列表
+	 */
+	public Collection<String> keys(final String pattern);
+
+	/**
+	 * 分批遍历匹配的键，不阻塞其他客户端
+	 *
+	 * @param pattern  匹配模式，支持 * ? []
+	 * @param consumer 每批键的处理
+	 */
+	public void scan(final String pattern, final Consumer<List<String>> consumer);
+
+	/**
+	 * 从游标处继续遍历匹配的键，直到取得 count 个或遍历结束（可能略多于 count 个）
+	 *
+	 * @param pattern 匹配模式，支持 * ? []
+	 * @param cursor  游标，为空或 0 时从头开始
+	 * @param count   个数
+	 * @return 本页的键与下一页游标
+	 */
+	public ScanPage scan(final String pattern, final String cursor, final int count);
+
+	/**
+	 * 删除匹配的全部键，边遍历边分批删除
+	 *
+	 * @param pattern 匹配模式，支持 * ? []
+	 * @return 删除个数
+	 */
+	public long deleteByPattern(final String pattern);
+
+	/**
+	 * 缓存服务信息
+	 *
+	 * @param section 信息分类，为空时返回默认信息
+	 * @return 信息
+	 */
+	public Properties info(final String section);
+
+	/**
+	 * 缓存键的个数
+	 *
+	 * @return 个数
+	 */
+	public long dbSize();
+
+	/**
+	 * 批量获取键占用的内存（字节），一次往返完成
+	 *
+	 * @param keys 缓存键集合
+	 * @return 与键顺序一致的字节数，键不存在时为空
+	 */
+	public List<Long> memoryUsage(final List<String> keys);
+}
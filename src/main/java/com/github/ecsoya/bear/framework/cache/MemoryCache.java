@@ -0,0 +1,941 @@
+package com.github.ecsoya.bear.framework.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.redis.codec.CodecRedisSerializer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 进程内缓存，cache.type=memory 时启用，用于无需Redis的单节点部署
+ * <p>
+ * 与Redis一致，数据以缓存值序列化后的字节保存，每次读取得到新的副本；支持过期时间、List、Set、Hash、有序集合和模式匹配键。
+ * 同一键的写操作串行执行，脚本按预先注册的等价逻辑执行并相互串行。配置 cache.memory.persistFile 后停机时写入文件、启动时加载。
+ *
+ * @author angryred
+ */
+@SuppressWarnings(value = { "unchecked", "rawtypes" })
+@Component
+@ConditionalOnProperty(name = "cache.type", havingValue = "memory")
+public class MemoryCache implements ICache {
+	private static final Logger log = LoggerFactory.getLogger(MemoryCache.class);
+
+	/** 持久化文件标识 */
+	private static final int FILE_MAGIC = 0x42434D31;
+
+	private static final byte TYPE_VALUE = 1;
+
+	private static final byte TYPE_LIST = 2;
+
+	private static final byte TYPE_SET = 3;
+
+	private static final byte TYPE_HASH = 4;
+
+	private static final byte TYPE_ZSET = 5;
+
+	/** 分批遍历时每批的键数 */
+	private static final int SCAN_BATCH = 1000;
+
+	/** 过期数据清理间隔（秒） */
+	@Value("${cache.memory.sweepInterval:60}")
+	private int sweepInterval;
+
+	/** 持久化文件，为空则不持久化 */
+	@Value("${cache.memory.persistFile:}")
+	private String persistFile;
+
+	@Autowired
+	private CodecRedisSerializer serializer;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	private final ConcurrentHashMap<String, Entry> store = new ConcurrentHashMap<String, Entry>();
+
+	/** 脚本摘要与进程内等价逻辑 */
+	private final Map<String, LocalScript> scripts = new ConcurrentHashMap<String, LocalScript>();
+
+	private final Object scriptLock = new Object();
+
+	private final long startTime = System.currentTimeMillis();
+
+	@PostConstruct
+	public void init() {
+		load();
+		scheduledExecutorService.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		save();
+	}
+
+	/**
+	 * 注册脚本的进程内等价逻辑
+	 *
+	 * @param script      脚本
+	 * @param localScript 等价逻辑
+	 */
+	public void registerScript(RedisScript<?> script, LocalScript localScript) {
+		scripts.put(script.getSha1(), localScript);
+	}
+
+	@Override
+	public <T> void setCacheObject(final String key, final T value) {
+		store.put(key, new Entry(TYPE_VALUE, encode(value), 0));
+	}
+
+	@Override
+	public <T> void setCacheObject(final String key, final T value, final Integer timeout, final TimeUnit timeUnit) {
+		store.put(key, new Entry(TYPE_VALUE, encode(value), System.currentTimeMillis() + timeUnit.toMillis(timeout)));
+	}
+
+	@Override
+	public <T> void setCacheObjects(final Map<String, T> values) {
+		if (values != null) {
+			values.forEach((key, value) -> setCacheObject(key, value));
+		}
+	}
+
+	@Override
+	public <T> void setCacheObjects(final Map<String, T> values, final Integer timeout, final TimeUnit timeUnit) {
+		if (values != null) {
+			values.forEach((key, value) -> setCacheObject(key, value, timeout, timeUnit));
+		}
+	}
+
+	@Override
+	public boolean expire(final String key, final long timeout) {
+		return expire(key, timeout, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public boolean expire(final String key, final long timeout, final TimeUnit unit) {
+		long now = System.currentTimeMillis();
+		boolean[] result = new boolean[1];
+		store.computeIfPresent(key, (k, entry) -> {
+			if (entry.isExpired(now)) {
+				return null;
+			}
+			result[0] = true;
+			if (timeout <= 0) {
+				return null;
+			}
+			entry.expireAt = now + unit.toMillis(timeout);
+			return entry;
+		});
+		return result[0];
+	}
+
+	@Override
+	public void expire(final Map<String, Long> timeouts, final TimeUnit unit) {
+		if (timeouts != null) {
+			timeouts.forEach((key, timeout) -> expire(key, timeout, unit));
+		}
+	}
+
+	@Override
+	public long getExpire(final String key) {
+		Entry entry = getEntry(key);
+		if (entry == null) {
+			return -2;
+		}
+		if (entry.expireAt == 0) {
+			return -1;
+		}
+		return Math.max(0, (entry.expireAt - System.currentTimeMillis() + 500) / 1000);
+	}
+
+	@Override
+	public Boolean hasKey(String key) {
+		return getEntry(key) != null;
+	}
+
+	@Override
+	public <T> T getCacheObject(final String key) {
+		byte[] value = getData(key, TYPE_VALUE);
+		return value == null ? null : (T) decode(value);
+	}
+
+	@Override
+	public <T> List<T> getCacheObjects(final Collection<String> keys) {
+		List<T> values = new ArrayList<T>();
+		if (keys != null) {
+			for (String key : keys) {
+				values.add(getCacheObject(key));
+			}
+		}
+		return values;
+	}
+
+	@Override
+	public long increment(final String key, final long delta) {
+		long now = System.currentTimeMillis();
+		long[] result = new long[1];
+		store.compute(key, (k, entry) -> {
+			boolean exists = entry != null && !entry.isExpired(now);
+			if (exists) {
+				checkType(entry, TYPE_VALUE);
+			}
+			// 与Redis一致以十进制文本保存，过期时间保持不变
+			result[0] = (exists ? toLong((byte[]) entry.data) : 0) + delta;
+			return new Entry(TYPE_VALUE, String.valueOf(result[0]).getBytes(StandardCharsets.UTF_8),
+					exists ? entry.expireAt : 0);
+		});
+		return result[0];
+	}
+
+	@Override
+	public boolean deleteObject(final String key) {
+		Entry entry = store.remove(key);
+		return entry != null && !entry.isExpired(System.currentTimeMillis());
+	}
+
+	@Override
+	public boolean deleteObject(final Collection collection) {
+		if (collection == null) {
+			return false;
+		}
+		boolean deleted = false;
+		for (Object key : collection) {
+			deleted |= deleteObject(String.valueOf(key));
+		}
+		return deleted;
+	}
+
+	@Override
+	public <T> long setCacheList(final String key, final List<T> dataList) {
+		if (dataList == null || dataList.isEmpty()) {
+			return getCacheList(key).size();
+		}
+		long[] size = new long[1];
+		update(key, TYPE_LIST, () -> new ArrayList<byte[]>(), (List<byte[]> list) -> {
+			for (T data : dataList) {
+				list.add(encode(data));
+			}
+			size[0] = list.size();
+		});
+		return size[0];
+	}
+
+	@Override
+	public <T> List<T> getCacheList(final String key) {
+		List<T> result = new ArrayList<T>();
+		List<byte[]> list = getData(key, TYPE_LIST);
+		if (list != null) {
+			synchronized (list) {
+				list.forEach(value -> result.add((T) decode(value)));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public <T> long setCacheSet(final String key, final Set<T> dataSet) {
+		if (dataSet == null || dataSet.isEmpty()) {
+			return 0;
+		}
+		long[] count = new long[1];
+		update(key, TYPE_SET, () -> new LinkedHashSet<ByteBuffer>(), (Set<ByteBuffer> set) -> {
+			for (T data : dataSet) {
+				if (set.add(ByteBuffer.wrap(encode(data)))) {
+					count[0]++;
+				}
+			}
+		});
+		return count[0];
+	}
+
+	@Override
+	public <T> Set<T> getCacheSet(final String key) {
+		Set<T> result = new LinkedHashSet<T>();
+		Set<ByteBuffer> set = getData(key, TYPE_SET);
+		if (set != null) {
+			synchronized (set) {
+				set.forEach(value -> result.add((T) decode(value.array())));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
+		if (dataMap == null || dataMap.isEmpty()) {
+			return;
+		}
+		update(key, TYPE_HASH, () -> new LinkedHashMap<String, byte[]>(), (Map<String, byte[]> map) -> {
+			dataMap.forEach((hKey, value) -> map.put(hKey, encode(value)));
+		});
+	}
+
+	@Override
+	public <T> Map<String, T> getCacheMap(final String key) {
+		Map<String, T> result = new LinkedHashMap<String, T>();
+		Map<String, byte[]> map = getData(key, TYPE_HASH);
+		if (map != null) {
+			synchronized (map) {
+				map.forEach((hKey, value) -> result.put(hKey, (T) decode(value)));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public <T> void setCacheMapValue(final String key, final String hKey, final T value) {
+		update(key, TYPE_HASH, () -> new LinkedHashMap<String, byte[]>(),
+				(Map<String, byte[]> map) -> map.put(hKey, encode(value)));
+	}
+
+	@Override
+	public <T> T getCacheMapValue(final String key, final String hKey) {
+		Map<String, byte[]> map = getData(key, TYPE_HASH);
+		if (map == null) {
+			return null;
+		}
+		byte[] value;
+		synchronized (map) {
+			value = map.get(hKey);
+		}
+		return value == null ? null : (T) decode(value);
+	}
+
+	@Override
+	public long incrementCacheMapValue(final String key, final String hKey, final long delta) {
+		long[] result = new long[1];
+		update(key, TYPE_HASH, () -> new LinkedHashMap<String, byte[]>(), (Map<String, byte[]> map) -> {
+			byte[] value = map.get(hKey);
+			result[0] = (value == null ? 0 : toLong(value)) + delta;
+			map.put(hKey, String.valueOf(result[0]).getBytes(StandardCharsets.UTF_8));
+		});
+		return result[0];
+	}
+
+	@Override
+	public <T> List<T> getMultiCacheMapValue(final String key, final Collection<Object> hKeys) {
+		List<T> result = new ArrayList<T>(hKeys.size());
+		Map<String, byte[]> map = getData(key, TYPE_HASH);
+		for (Object hKey : hKeys) {
+			byte[] value = null;
+			if (map != null) {
+				synchronized (map) {
+					value = map.get(String.valueOf(hKey));
+				}
+			}
+			result.add(value == null ? null : (T) decode(value));
+		}
+		return result;
+	}
+
+	@Override
+	public boolean deleteCacheMapValue(final String key, final String hKey) {
+		boolean[] deleted = new boolean[1];
+		remove(key, TYPE_HASH, (Map<String, byte[]> map) -> deleted[0] = map.remove(hKey) != null);
+		return deleted[0];
+	}
+
+	@Override
+	public <T> List<Map<String, T>> getCacheMaps(final Collection<String> keys) {
+		List<Map<String, T>> list = new ArrayList<Map<String, T>>();
+		if (keys != null) {
+			for (String key : keys) {
+				list.add(getCacheMap(key));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public <T> boolean zAdd(final String key, final T value, final double score) {
+		boolean[] added = new boolean[1];
+		update(key, TYPE_ZSET, () -> new HashMap<ByteBuffer, Double>(),
+				(Map<ByteBuffer, Double> zset) -> added[0] = zset.put(ByteBuffer.wrap(encode(value)), score) == null);
+		return added[0];
+	}
+
+	@Override
+	public <T> long zAdd(final String key, final Map<T, Double> scores) {
+		if (scores == null || scores.isEmpty()) {
+			return 0;
+		}
+		long[] count = new long[1];
+		update(key, TYPE_ZSET, () -> new HashMap<ByteBuffer, Double>(), (Map<ByteBuffer, Double> zset) -> {
+			scores.forEach((value, score) -> {
+				if (zset.put(ByteBuffer.wrap(encode(value)), score) == null) {
+					count[0]++;
+				}
+			});
+		});
+		return count[0];
+	}
+
+	@Override
+	public <T> void zUpdate(final String key, final Map<T, Double> scores) {
+		if (scores == null || scores.isEmpty()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		store.computeIfPresent(key, (k, entry) -> {
+			if (entry.isExpired(now)) {
+				return null;
+			}
+			checkType(entry, TYPE_ZSET);
+			synchronized (entry.data) {
+				Map<ByteBuffer, Double> zset = (Map<ByteBuffer, Double>) entry.data;
+				scores.forEach((value, score) -> zset.replace(ByteBuffer.wrap(encode(value)), score));
+			}
+			return entry;
+		});
+	}
+
+	@Override
+	public <T> Set<T> zRangeByScore(final String key, final double min, final double max, final long offset,
+			final long count) {
+		return zRange(key, min, max, offset, count, false);
+	}
+
+	@Override
+	public <T> Set<T> zReverseRangeByScore(final String key, final double min, final double max, final long offset,
+			final long count) {
+		return zRange(key, min, max, offset, count, true);
+	}
+
+	@Override
+	public long zCount(final String key, final double min, final double max) {
+		Map<ByteBuffer, Double> zset = getData(key, TYPE_ZSET);
+		if (zset == null) {
+			return 0;
+		}
+		synchronized (zset) {
+			return zset.values().stream().filter(score -> score >= min && score <= max).count();
+		}
+	}
+
+	@Override
+	public long zRemove(final String key, final Collection<?> values) {
+		if (values == null || values.isEmpty()) {
+			return 0;
+		}
+		long[] count = new long[1];
+		remove(key, TYPE_ZSET, (Map<ByteBuffer, Double> zset) -> {
+			for (Object value : values) {
+				if (zset.remove(ByteBuffer.wrap(encode(value))) != null) {
+					count[0]++;
+				}
+			}
+		});
+		return count[0];
+	}
+
+	@Override
+	public <T> T execute(final RedisScript<T> script, final List<String> keys, final String... args) {
+		LocalScript localScript = scripts.get(script.getSha1());
+		if (localScript == null) {
+			throw new UnsupportedOperationException("脚本未注册进程内实现: " + script.getSha1());
+		}
+		synchronized (scriptLock) {
+			return (T) localScript.execute(keys, args);
+		}
+	}
+
+	@Override
+	public List<Object> executePipelined(final Runnable action) {
+		// 进程内操作没有往返开销，直接执行
+		action.run();
+		return new ArrayList<Object>();
+	}
+
+	@Override
+	public Collection<String> keys(final String pattern) {
+		Predicate<String> matcher = toMatcher(pattern);
+		long now = System.currentTimeMillis();
+		List<String> keys = new ArrayList<String>();
+		store.forEach((key, entry) -> {
+			if (!entry.isExpired(now) && matcher.test(key)) {
+				keys.add(key);
+			}
+		});
+		return keys;
+	}
+
+	@Override
+	public void scan(final String pattern, final Consumer<List<String>> consumer) {
+		List<String> keys = new ArrayList<String>(keys(pattern));
+		for (int i = 0; i < keys.size(); i += SCAN_BATCH) {
+			consumer.accept(keys.subList(i, Math.min(keys.size(), i + SCAN_BATCH)));
+		}
+	}
+
+	@Override
+	public ScanPage scan(final String pattern, final String cursor, final int count) {
+		// 游标为上一页最后一个键，按键排序后继续
+		String after = StringUtils.isEmpty(cursor) || ScanPage.FINISHED.equals(cursor) ? null
+				: new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		TreeSet<String> keys = new TreeSet<String>(keys(pattern));
+		List<String> page = new ArrayList<String>(count);
+		for (String key : after == null ? keys : keys.tailSet(after, false)) {
+			if (page.size() >= count) {
+				String last = page.get(page.size() - 1);
+				return new ScanPage(Base64.getUrlEncoder().encodeToString(last.getBytes(StandardCharsets.UTF_8)), page);
+			}
+			page.add(key);
+		}
+		return new ScanPage(ScanPage.FINISHED, page);
+	}
+
+	@Override
+	public long deleteByPattern(final String pattern) {
+		long count = 0;
+		for (String key : keys(pattern)) {
+			if (deleteObject(key)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public Properties info(final String section) {
+		Properties info = new Properties();
+		if (section != null) {
+			// 进程内实现不统计命令
+			return info;
+		}
+		long usedMemory = 0;
+		for (Entry entry : store.values()) {
+			usedMemory += entry.size();
+		}
+		info.setProperty("redis_version", "-");
+		info.setProperty("redis_mode", "memory");
+		info.setProperty("tcp_port", "-");
+		info.setProperty("connected_clients", "-");
+		info.setProperty("uptime_in_days",
+				String.valueOf(TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis() - startTime)));
+		info.setProperty("used_memory", String.valueOf(usedMemory));
+		info.setProperty("used_memory_human", String.format("%.2fK", usedMemory / 1024.0));
+		info.setProperty("maxmemory_human", "0B");
+		info.setProperty("aof_enabled", "0");
+		info.setProperty("rdb_last_bgsave_status", StringUtils.isEmpty(persistFile) ? "-" : "ok");
+		return info;
+	}
+
+	@Override
+	public long dbSize() {
+		return store.size();
+	}
+
+	@Override
+	public List<Long> memoryUsage(final List<String> keys) {
+		List<Long> sizes = new ArrayList<Long>(keys.size());
+		for (String key : keys) {
+			Entry entry = getEntry(key);
+			sizes.add(entry == null ? null : entry.size());
+		}
+		return sizes;
+	}
+
+	/**
+	 * 清理已过期的数据
+	 */
+	public void sweep() {
+		long now = System.currentTimeMillis();
+		store.forEach((key, entry) -> {
+			if (entry.isExpired(now)) {
+				store.remove(key, entry);
+			}
+		});
+	}
+
+	private <T> Set<T> zRange(String key, double min, double max, long offset, long count, boolean reverse) {
+		Set<T> result = new LinkedHashSet<T>();
+		Map<ByteBuffer, Double> zset = getData(key, TYPE_ZSET);
+		if (zset == null) {
+			return result;
+		}
+		List<Map.Entry<ByteBuffer, Double>> entries = new ArrayList<Map.Entry<ByteBuffer, Double>>();
+		synchronized (zset) {
+			for (Map.Entry<ByteBuffer, Double> entry : zset.entrySet()) {
+				if (entry.getValue() >= min && entry.getValue() <= max) {
+					entries.add(Map.entry(entry.getKey(), entry.getValue()));
+				}
+			}
+		}
+		// 与Redis一致，分数相同时按值的字节序排列
+		entries.sort((a, b) -> {
+			int compare = Double.compare(a.getValue(), b.getValue());
+			compare = compare != 0 ? compare : Arrays.compareUnsigned(a.getKey().array(), b.getKey().array());
+			return reverse ? -compare : compare;
+		});
+		long end = count < 0 ? entries.size() : Math.min(entries.size(), offset + count);
+		for (long i = Math.max(0, offset); i < end; i++) {
+			result.add((T) decode(entries.get((int) i).getKey().array()));
+		}
+		return result;
+	}
+
+	/**
+	 * 在键上串行修改数据结构，不存在时创建
+	 */
+	private <D> void update(String key, byte type, Supplier<D> factory,
+			Consumer<D> action) {
+		long now = System.currentTimeMillis();
+		store.compute(key, (k, entry) -> {
+			if (entry == null || entry.isExpired(now)) {
+				entry = new Entry(type, factory.get(), 0);
+			}
+			checkType(entry, type);
+			synchronized (entry.data) {
+				action.accept((D) entry.data);
+			}
+			return entry;
+		});
+	}
+
+	/**
+	 * 在键上串行删除数据结构中的元素，为空时与Redis一致删除整个键
+	 */
+	private <D> void remove(String key, byte type, Consumer<D> action) {
+		long now = System.currentTimeMillis();
+		store.computeIfPresent(key, (k, entry) -> {
+			if (entry.isExpired(now)) {
+				return null;
+			}
+			checkType(entry, type);
+			synchronized (entry.data) {
+				action.accept((D) entry.data);
+				return entry.isEmpty() ? null : entry;
+			}
+		});
+	}
+
+	private Entry getEntry(String key) {
+		Entry entry = store.get(key);
+		if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+			store.remove(key, entry);
+			return null;
+		}
+		return entry;
+	}
+
+	private <D> D getData(String key, byte type) {
+		Entry entry = getEntry(key);
+		if (entry == null) {
+			return null;
+		}
+		checkType(entry, type);
+		return (D) entry.data;
+	}
+
+	private void checkType(Entry entry, byte type) {
+		if (entry.type != type) {
+			throw new IllegalStateException("WRONGTYPE Operation against a key holding the wrong kind of value");
+		}
+	}
+
+	private byte[] encode(Object value) {
+		return serializer.serialize(value);
+	}
+
+	private Object decode(byte[] value) {
+		return serializer.deserialize(value);
+	}
+
+	private long toLong(byte[] value) {
+		try {
+			return Long.parseLong(new String(value, StandardCharsets.UTF_8));
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException("ERR value is not an integer or out of range");
+		}
+	}
+
+	private Predicate<String> toMatcher(String pattern) {
+		if (pattern == null || "*".equals(pattern)) {
+			return key -> true;
+		}
+		String body = pattern.endsWith("*") ? pattern.substring(0, pattern.length() - 1) : null;
+		if (body != null && StringUtils.containsNone(body, '*', '?', '[', '\\')) {
+			return key -> key.startsWith(body);
+		}
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c == '*') {
+				regex.append(".*");
+			} else if (c == '?') {
+				regex.append('.');
+			} else if (c == '[' || c == ']') {
+				regex.append(c);
+			} else if (c == '\\' && i + 1 < pattern.length()) {
+				regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		Pattern compiled = Pattern.compile(regex.toString(), Pattern.DOTALL);
+		return key -> compiled.matcher(key).matches();
+	}
+
+	/**
+	 * 停机时写入持久化文件，先写临时文件再替换
+	 */
+	private void save() {
+		if (StringUtils.isEmpty(persistFile)) {
+			return;
+		}
+		File file = new File(persistFile);
+		File temp = new File(persistFile + ".tmp");
+		long now = System.currentTimeMillis();
+		int count = 0;
+		try {
+			if (file.getParentFile() != null) {
+				file.getParentFile().mkdirs();
+			}
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(FILE_MAGIC);
+				for (Map.Entry<String, Entry> item : store.entrySet()) {
+					Entry entry = item.getValue();
+					if (entry.isExpired(now)) {
+						continue;
+					}
+					out.writeBoolean(true);
+					out.writeUTF(item.getKey());
+					out.writeByte(entry.type);
+					out.writeLong(entry.expireAt);
+					synchronized (entry.data) {
+						writeData(out, entry);
+					}
+					count++;
+				}
+				out.writeBoolean(false);
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			log.info("进程内缓存已写入'{}'，共{}个键", persistFile, count);
+		} catch (IOException e) {
+			log.error("进程内缓存写入'{}'失败", persistFile, e);
+		}
+	}
+
+	/**
+	 * 启动时加载持久化文件，跳过已过期的数据
+	 */
+	private void load() {
+		if (StringUtils.isEmpty(persistFile) || !new File(persistFile).isFile()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(persistFile)))) {
+			if (in.readInt() != FILE_MAGIC) {
+				log.warn("进程内缓存文件'{}'格式不正确，已忽略", persistFile);
+				return;
+			}
+			while (in.readBoolean()) {
+				String key = in.readUTF();
+				byte type = in.readByte();
+				long expireAt = in.readLong();
+				Object data = readData(in, type);
+				if (expireAt == 0 || expireAt > now) {
+					store.put(key, new Entry(type, data, expireAt));
+				}
+			}
+			log.info("进程内缓存已从'{}'加载，共{}个键", persistFile, store.size());
+		} catch (IOException e) {
+			log.error("进程内缓存加载'{}'失败", persistFile, e);
+		}
+	}
+
+	private void writeData(DataOutputStream out, Entry entry) throws IOException {
+		switch (entry.type) {
+		case TYPE_VALUE:
+			writeBytes(out, (byte[]) entry.data);
+			break;
+		case TYPE_LIST:
+			List<byte[]> list = (List<byte[]>) entry.data;
+			out.writeInt(list.size());
+			for (byte[] value : list) {
+				writeBytes(out, value);
+			}
+			break;
+		case TYPE_SET:
+			Set<ByteBuffer> set = (Set<ByteBuffer>) entry.data;
+			out.writeInt(set.size());
+			for (ByteBuffer value : set) {
+				writeBytes(out, value.array());
+			}
+			break;
+		case TYPE_HASH:
+			Map<String, byte[]> map = (Map<String, byte[]>) entry.data;
+			out.writeInt(map.size());
+			for (Map.Entry<String, byte[]> item : map.entrySet()) {
+				out.writeUTF(item.getKey());
+				writeBytes(out, item.getValue());
+			}
+			break;
+		default:
+			Map<ByteBuffer, Double> zset = (Map<ByteBuffer, Double>) entry.data;
+			out.writeInt(zset.size());
+			for (Map.Entry<ByteBuffer, Double> item : zset.entrySet()) {
+				writeBytes(out, item.getKey().array());
+				out.writeDouble(item.getValue());
+			}
+			break;
+		}
+	}
+
+	private Object readData(DataInputStream in, byte type) throws IOException {
+		switch (type) {
+		case TYPE_VALUE:
+			return readBytes(in);
+		case TYPE_LIST: {
+			int size = in.readInt();
+			List<byte[]> list = new ArrayList<byte[]>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(readBytes(in));
+			}
+			return list;
+		}
+		case TYPE_SET: {
+			int size = in.readInt();
+			Set<ByteBuffer> set = new LinkedHashSet<ByteBuffer>();
+			for (int i = 0; i < size; i++) {
+				set.add(ByteBuffer.wrap(readBytes(in)));
+			}
+			return set;
+		}
+		case TYPE_HASH: {
+			int size = in.readInt();
+			Map<String, byte[]> map = new LinkedHashMap<String, byte[]>();
+			for (int i = 0; i < size; i++) {
+				map.put(in.readUTF(), readBytes(in));
+			}
+			return map;
+		}
+		case TYPE_ZSET: {
+			int size = in.readInt();
+			Map<ByteBuffer, Double> zset = new HashMap<ByteBuffer, Double>();
+			for (int i = 0; i < size; i++) {
+				zset.put(ByteBuffer.wrap(readBytes(in)), in.readDouble());
+			}
+			return zset;
+		}
+		default:
+			throw new IOException("未知的数据类型: " + type);
+		}
+	}
+
+	private void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	private byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] value = new byte[in.readInt()];
+		in.readFully(value);
+		return value;
+	}
+
+	/**
+	 * 脚本的进程内等价逻辑
+	 */
+	@FunctionalInterface
+	public interface LocalScript {
+		Object execute(List<String> keys, String[] args);
+	}
+
+	/**
+	 * 缓存条目：值为字节数组，List/Set/Hash/有序集合的元素同样以字节保存
+	 */
+	private static final class Entry {
+		private final byte type;
+
+		private final Object data;
+
+		/** 过期时间（毫秒），0表示永不过期 */
+		private volatile long expireAt;
+
+		private Entry(byte type, Object data, long expireAt) {
+			this.type = type;
+			this.data = data;
+			this.expireAt = expireAt;
+		}
+
+		private boolean isExpired(long now) {
+			return expireAt > 0 && expireAt <= now;
+		}
+
+		private boolean isEmpty() {
+			if (data instanceof Collection) {
+				return ((Collection) data).isEmpty();
+			}
+			return data instanceof Map && ((Map) data).isEmpty();
+		}
+
+		private long size() {
+			if (data instanceof byte[]) {
+				return ((byte[]) data).length;
+			}
+			long size = 0;
+			synchronized (data) {
+				if (data instanceof List) {
+					for (byte[] value : (List<byte[]>) data) {
+						size += value.length;
+					}
+				} else if (data instanceof Set) {
+					for (ByteBuffer value : (Set<ByteBuffer>) data) {
+						size += value.capacity();
+					}
+				} else if (type == TYPE_HASH) {
+					for (Map.Entry<String, byte[]> item : ((Map<String, byte[]>) data).entrySet()) {
+						size += item.getKey().length() + item.getValue().length;
+					}
+				} else {
+					for (ByteBuffer value : ((Map<ByteBuffer, Double>) data).keySet()) {
+						size += value.capacity() + 8;
+					}
+				}
+			}
+			return size;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.github.ecsoya.bear.framework.cache;
+
+import java.util.List;
+
+/**
+ * 按游标遍历的一页缓存键
+ *
+ * @author angryred
+ */
+public class ScanPage {
+	/** 遍历结束时的游标 */
+	public static final String FINISHED = "0";
+
+	/** 下一页游标，为 0 表示遍历结束 */
+	private final String cursor;
+
+	/** 本页的键 */
+	private final List<String> keys;
+
+	public ScanPage(String cursor, List<String> keys) {
+		this.cursor = cursor;
+		this.keys = keys;
+	}
+
+	public String getCursor() {
+		return cursor;
+	}
+
+	public List<String> getKeys() {
+		return keys;
+	}
+
+	public boolean isFinished() {
+		return FINISHED.equals(cursor);
+	}
+}
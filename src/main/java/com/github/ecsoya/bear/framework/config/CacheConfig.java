@@ -0,0 +1,63 @@
+package com.github.ecsoya.bear.framework.config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.github.ecsoya.bear.common.core.text.Convert;
+import com.github.ecsoya.bear.framework.cache.MemoryCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 进程内缓存配置，为 RedisConfig 中的脚本注册等价逻辑
+ *
+ * @author angryred
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.type", havingValue = "memory")
+public class CacheConfig {
+	@Autowired
+	private MemoryCache memoryCache;
+
+	@Autowired
+	private RedisScript<Long> limitScript;
+
+	@Autowired
+	@SuppressWarnings("rawtypes")
+	private RedisScript<List> loginStateScript;
+
+	@PostConstruct
+	public void registerScripts() {
+		// 限流：超过次数直接返回，否则计数加一，首次计数时设置过期时间
+		memoryCache.registerScript(limitScript, (keys, args) -> {
+			String key = keys.get(0);
+			long count = Long.parseLong(args[0]);
+			Long current = Convert.toLong(memoryCache.getCacheObject(key));
+			if (current != null && current > count) {
+				return current;
+			}
+			current = memoryCache.increment(key, 1);
+			if (current == 1) {
+				memoryCache.expire(key, Long.parseLong(args[1]));
+			}
+			return current;
+		});
+		// 登录前置状态：取出并删除验证码，读取密码错误次数和锁定次数
+		memoryCache.registerScript(loginStateScript, (keys, args) -> {
+			Object captcha = null;
+			if ("1".equals(args[0])) {
+				captcha = memoryCache.getCacheObject(keys.get(0));
+				if (captcha != null) {
+					memoryCache.deleteObject(keys.get(0));
+				}
+			}
+			return Arrays.asList(captcha, memoryCache.getCacheObject(keys.get(1)),
+					memoryCache.getCacheObject(keys.get(2)));
+		});
+	}
+}
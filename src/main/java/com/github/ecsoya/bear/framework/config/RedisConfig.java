@@ -1,5 +1,9 @@
 package com.github.ecsoya.bear.framework.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,8 +11,16 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.github.ecsoya.bear.framework.redis.CircuitBreakerRedisTemplate;
+import com.github.ecsoya.bear.framework.redis.RedisCircuitBreaker;
+import com.github.ecsoya.bear.framework.redis.codec.CodecRedisSerializer;
+import com.github.ecsoya.bear.framework.redis.codec.DictDataListCodec;
+import com.github.ecsoya.bear.framework.redis.codec.LoginUserCodec;
+import com.github.ecsoya.bear.framework.redis.codec.StringCodec;
+
 /**
  * redis配置
  * 
@@ -17,14 +29,20 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Configuration
 @EnableCaching
 public class RedisConfig extends CachingConfigurerSupport {
+	/** 是否以二进制格式写入热点类型，读取始终兼容JSON；所有节点都能读取二进制格式后再开启 */
+	@Value("${redis.codec.binary:false}")
+	private boolean binaryCodec;
+
+	/** 超过该字节数时压缩，0表示不压缩 */
+	@Value("${redis.codec.compressThreshold:2048}")
+	private int compressThreshold;
+
 	@Bean
-	@SuppressWarnings(value = { "unchecked", "rawtypes" })
-	public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-		RedisTemplate<Object, Object> template = new RedisTemplate<>();
+	public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+			CodecRedisSerializer serializer, RedisCircuitBreaker circuitBreaker) {
+		RedisTemplate<Object, Object> template = new CircuitBreakerRedisTemplate<>(circuitBreaker);
 		template.setConnectionFactory(connectionFactory);
 
-		FastJson2JsonRedisSerializer serializer = new FastJson2JsonRedisSerializer(Object.class);
-
 		// 使用StringRedisSerializer来序列化和反序列化redis的key值
 		template.setKeySerializer(new StringRedisSerializer());
 		template.setValueSerializer(serializer);
@@ -37,6 +55,26 @@ public class RedisConfig extends CachingConfigurerSupport {
 		return template;
 	}
 
+	/**
+	 * 缓存值序列化：登录用户、字典等热点类型使用二进制格式，其余使用JSON
+	 */
+	@Bean
+	public CodecRedisSerializer codecRedisSerializer() {
+		return new CodecRedisSerializer(binaryCodec, compressThreshold).register(new StringCodec())
+				.register(new LoginUserCodec()).register(new DictDataListCodec());
+	}
+
+	/**
+	 * 发布订阅监听容器，用于集群间缓存失效通知，进程内缓存模式下不创建
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "cache.type", havingValue = "redis", matchIfMissing = true)
+	public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		return container;
+	}
+
 	@Bean
 	public DefaultRedisScript<Long> limitScript() {
 		DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
@@ -45,6 +83,25 @@ public class RedisConfig extends CachingConfigurerSupport {
 		return redisScript;
 	}
 
+	@Bean
+	@SuppressWarnings("rawtypes")
+	public DefaultRedisScript<List> loginStateScript() {
+		DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+		redisScript.setScriptText(loginStateScriptText());
+		redisScript.setResultType(List.class);
+		return redisScript;
+	}
+
+	/**
+	 * 登录前置状态脚本：取出并删除验证码，读取密码错误次数和锁定次数
+	 */
+	private String loginStateScriptText() {
+		return "local captcha = false\n" + "if ARGV[1] == '1' then\n" + "    captcha = redis.call('get', KEYS[1])\n"
+				+ "    if captcha then\n" + "        redis.call('del', KEYS[1])\n" + "    end\n" + "end\n"
+				+ "local retry = redis.call('get', KEYS[2])\n" + "local blocked = redis.call('get', KEYS[3])\n"
+				+ "return {captcha, retry, blocked}";
+	}
+
 	/**
 	 * 限流脚本
 	 */
@@ -13,9 +13,9 @@ import com.github.ecsoya.bear.common.constant.CacheConstants;
 import com.github.ecsoya.bear.common.filter.RepeatedlyRequestWrapper;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.http.HttpHelper;
+import com.github.ecsoya.bear.framework.cache.ICache;
 import com.github.ecsoya.bear.framework.interceptor.RepeatSubmitInterceptor;
 import com.github.ecsoya.bear.framework.interceptor.annotation.RepeatSubmit;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -35,7 +35,7 @@ public class SameUrlDataInterceptor extends RepeatSubmitInterceptor {
 	private String header;
 
 	@Autowired
-	private RedisCache redisCache;
+	private ICache redisCache;
 
 	@SuppressWarnings("unchecked")
 	@Override
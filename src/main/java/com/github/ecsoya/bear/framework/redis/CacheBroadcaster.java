@@ -0,0 +1,77 @@
+package com.github.ecsoya.bear.framework.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.utils.uuid.IdUtils;
+
+/**
+ * 基于 Redis 发布订阅的缓存失效广播，用于多节点间同步进程内缓存；进程内缓存模式（单节点）下不发送也不订阅
+ *
+ * @author angryred
+ */
+@Component
+public class CacheBroadcaster {
+	private static final Logger log = LoggerFactory.getLogger(CacheBroadcaster.class);
+
+	/** 消息来源与内容的分隔符 */
+	private static final char SEPARATOR = '|';
+
+	/** 当前节点标识，本节点发出的消息不再回送处理 */
+	private static final String NODE_ID = IdUtils.fastSimpleUUID();
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired(required = false)
+	private RedisMessageListenerContainer listenerContainer;
+
+	/**
+	 * 发布消息，本节点的订阅者不会收到
+	 *
+	 * @param channel 频道
+	 * @param message 消息内容
+	 */
+	public void publish(String channel, String message) {
+		if (listenerContainer == null) {
+			return;
+		}
+		try {
+			stringRedisTemplate.convertAndSend(channel, NODE_ID + SEPARATOR + message);
+		} catch (Exception e) {
+			log.warn("缓存广播发送失败'{}': {}", channel, e.getMessage());
+		}
+	}
+
+	/**
+	 * 订阅频道
+	 *
+	 * @param channel  频道
+	 * @param consumer 消息处理
+	 */
+	public void subscribe(String channel, Consumer<String> consumer) {
+		if (listenerContainer == null) {
+			return;
+		}
+		listenerContainer.addMessageListener((message, pattern) -> {
+			try {
+				String body = new String(message.getBody(), StandardCharsets.UTF_8);
+				int index = body.indexOf(SEPARATOR);
+				if (index < 0 || NODE_ID.equals(body.substring(0, index))) {
+					return;
+				}
+				consumer.accept(body.substring(index + 1));
+			} catch (Exception e) {
+				log.error("缓存广播处理异常'{}'", channel, e);
+			}
+		}, new ChannelTopic(channel));
+	}
+}
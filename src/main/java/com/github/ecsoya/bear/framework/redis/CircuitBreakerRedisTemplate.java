@@ -0,0 +1,66 @@
+package com.github.ecsoya.bear.framework.redis;
+
+import java.io.Closeable;
+import java.util.function.Supplier;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 受熔断器保护的 RedisTemplate，熔断中的调用立即失败，不再等待连接和超时
+ * <p>
+ * 只统计最外层的调用，管道和会话内部的命令不单独计数。
+ *
+ * @author angryred
+ */
+public class CircuitBreakerRedisTemplate<K, V> extends RedisTemplate<K, V> {
+	/** 当前线程的调用嵌套层数 */
+	private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+	private final RedisCircuitBreaker circuitBreaker;
+
+	public CircuitBreakerRedisTemplate(RedisCircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	@Override
+	public <T> T execute(RedisCallback<T> action, boolean exposeConnection, boolean pipeline) {
+		return guard(() -> super.execute(action, exposeConnection, pipeline));
+	}
+
+	/**
+	 * 游标类操作（SCAN 等）只保护打开游标及首次读取，后续迭代不经过模板
+	 */
+	@Override
+	public <T extends Closeable> T executeWithStickyConnection(RedisCallback<T> callback) {
+		return guard(() -> super.executeWithStickyConnection(callback));
+	}
+
+	private <T> T guard(Supplier<T> call) {
+		int[] depth = DEPTH.get();
+		if (depth[0] > 0) {
+			return call.get();
+		}
+		if (!circuitBreaker.tryAcquire()) {
+			throw new RedisConnectionFailureException("Redis 熔断中，暂停访问");
+		}
+		long start = System.nanoTime();
+		depth[0]++;
+		try {
+			T result = call.get();
+			circuitBreaker.onSuccess(System.nanoTime() - start);
+			return result;
+		} catch (RedisConnectionFailureException | QueryTimeoutException e) {
+			circuitBreaker.onFailure(e.getClass().getSimpleName());
+			throw e;
+		} catch (RuntimeException e) {
+			// 命令错误、序列化等与 Redis 可用性无关的异常
+			circuitBreaker.onSuccess(System.nanoTime() - start);
+			throw e;
+		} finally {
+			depth[0]--;
+		}
+	}
+}
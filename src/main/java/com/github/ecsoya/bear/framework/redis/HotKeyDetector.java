@@ -0,0 +1,271 @@
+package com.github.ecsoya.bear.framework.redis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 热点键识别，用 Count-Min Sketch 抽样统计读取频率，每个统计周期计数减半
+ * <p>
+ * 开启提升（cache.hotkey.promote）后，估算读取次数达到阈值的键在本节点缓存很短时间，读取不再访问 Redis。
+ * 本节点写入、删除时立即失效；写入的键在本节点也是热点时通知其他节点失效，其余情况由短暂的存活时间兜底。
+ *
+ * @author angryred
+ */
+@Component
+public class HotKeyDetector {
+	/** 清空全部提升的键 */
+	private static final String ALL_KEYS = "*";
+
+	/** Sketch 的行数，每行使用不同的哈希 */
+	private static final int DEPTH = 4;
+
+	private static final int[] SEEDS = { 0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F };
+
+	/** 防止读取与失效交错时提升旧值的分段版本号个数 */
+	private static final int STRIPES = 64;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/** 是否统计读取频率 */
+	@Value("${cache.hotkey.enabled:true}")
+	private boolean enabled;
+
+	/** 每几次读取统计一次 */
+	@Value("${cache.hotkey.sampleRate:1}")
+	private int sampleRate;
+
+	/** Sketch 每行的计数器个数，取不小于该值的 2 的幂 */
+	@Value("${cache.hotkey.width:4096}")
+	private int width;
+
+	/** 统计周期（秒），每个周期计数减半 */
+	@Value("${cache.hotkey.window:10}")
+	private int window;
+
+	/** 一个统计周期内估算读取次数达到该值视为热点 */
+	@Value("${cache.hotkey.threshold:1000}")
+	private long threshold;
+
+	/** 监控中展示的热点键个数 */
+	@Value("${cache.hotkey.topK:20}")
+	private int topK;
+
+	/** 是否将热点键提升到本节点缓存 */
+	@Value("${cache.hotkey.promote:false}")
+	private boolean promote;
+
+	/** 提升的键在本节点的存活时间（毫秒） */
+	@Value("${cache.hotkey.promoteTtl:1000}")
+	private long promoteTtl;
+
+	/** 提升的键的最大个数 */
+	@Value("${cache.hotkey.promoteMaxSize:1000}")
+	private int promoteMaxSize;
+
+	private AtomicIntegerArray counters;
+
+	private int mask;
+
+	/** 按 sampleRate 换算后的阈值 */
+	private long sampledThreshold;
+
+	/** 热点候选键与估算次数（已按 sampleRate 换算） */
+	private final Map<String, Long> candidates = new ConcurrentHashMap<String, Long>();
+
+	/** 分段版本号，失效时加一 */
+	private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+	private NearCache<String, Object> promoted;
+
+	@PostConstruct
+	public void init() {
+		sampleRate = Math.max(1, sampleRate);
+		int size = Integer.highestOneBit(Math.max(64, width - 1)) << 1;
+		counters = new AtomicIntegerArray(DEPTH * size);
+		mask = size - 1;
+		sampledThreshold = Math.max(1, threshold / sampleRate);
+		if (!enabled) {
+			return;
+		}
+		scheduledExecutorService.scheduleWithFixedDelay(this::decay, window, window, TimeUnit.SECONDS);
+		if (promote) {
+			promoted = new NearCache<String, Object>("hotkey", promoteMaxSize, promoteTtl, TimeUnit.MILLISECONDS);
+			cacheBroadcaster.subscribe(CacheConstants.HOT_KEY_CHANNEL, this::onInvalidate);
+		}
+	}
+
+	/**
+	 * 记录一次读取
+	 *
+	 * @param key 缓存键
+	 * @return 读取前的分段版本号，提升时校验
+	 */
+	public long access(String key) {
+		if (!enabled || key == null) {
+			return 0;
+		}
+		if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+			int hash = key.hashCode();
+			int estimate = Integer.MAX_VALUE;
+			for (int i = 0; i < DEPTH; i++) {
+				estimate = Math.min(estimate, counters.incrementAndGet(index(hash, i)));
+			}
+			// 候选键个数有上限，已满时新的键等下个周期整理后再加入
+			if (estimate >= sampledThreshold && (candidates.size() < topK * 4 || candidates.containsKey(key))) {
+				candidates.put(key, (long) estimate * sampleRate);
+			}
+		}
+		return promote ? versions.get(stripe(key)) : 0;
+	}
+
+	/**
+	 * 获取提升到本节点的值
+	 *
+	 * @param key 缓存键
+	 * @return 值，未提升时为空
+	 */
+	public Object getPromoted(String key) {
+		return promoted == null ? null : promoted.get(key);
+	}
+
+	/**
+	 * 热点键从 Redis 读取后提升到本节点；读取期间该键已失效时不提升
+	 *
+	 * @param key     缓存键
+	 * @param value   读取到的值
+	 * @param version 读取前的分段版本号
+	 */
+	public void promote(String key, Object value, long version) {
+		if (promoted == null || value == null || !candidates.containsKey(key)) {
+			return;
+		}
+		// 先放入再校验：失效发生在放入之后时会移除该值，发生在之前时版本号已变
+		promoted.put(key, value);
+		if (versions.get(stripe(key)) != version) {
+			promoted.invalidate(key);
+		}
+	}
+
+	/**
+	 * 键写入或删除后失效本节点提升的值
+	 *
+	 * @param key 缓存键
+	 * @return 该键是否为热点，是则应通知其他节点
+	 */
+	public boolean invalidate(String key) {
+		if (promoted == null || key == null) {
+			return false;
+		}
+		versions.incrementAndGet(stripe(key));
+		promoted.invalidate(key);
+		return candidates.containsKey(key);
+	}
+
+	/**
+	 * 失效本节点全部提升的值，并通知其他节点
+	 */
+	public void invalidateAll() {
+		if (promoted == null) {
+			return;
+		}
+		clear();
+		cacheBroadcaster.publish(CacheConstants.HOT_KEY_CHANNEL, ALL_KEYS);
+	}
+
+	/**
+	 * 通知其他节点失效该键
+	 *
+	 * @param key 缓存键
+	 */
+	public void broadcast(String key) {
+		cacheBroadcaster.publish(CacheConstants.HOT_KEY_CHANNEL, key);
+	}
+
+	private void onInvalidate(String key) {
+		if (ALL_KEYS.equals(key)) {
+			clear();
+		} else {
+			invalidate(key);
+		}
+	}
+
+	private void clear() {
+		for (int i = 0; i < STRIPES; i++) {
+			versions.incrementAndGet(i);
+		}
+		promoted.clear();
+	}
+
+	/**
+	 * 当前热点键，按估算读取次数降序
+	 */
+	public List<Map<String, Object>> getHotKeys() {
+		List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(candidates.entrySet());
+		entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+		List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+		for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(topK, entries.size()))) {
+			Map<String, Object> hotKey = new LinkedHashMap<String, Object>();
+			hotKey.put("key", entry.getKey());
+			hotKey.put("count", entry.getValue());
+			hotKey.put("promoted", promoted != null && promoted.get(entry.getKey()) != null);
+			list.add(hotKey);
+		}
+		return list;
+	}
+
+	/**
+	 * 计数减半，重新估算候选键，低于阈值的移出，超出上限时只保留次数最多的一半
+	 */
+	private void decay() {
+		for (int i = 0; i < counters.length(); i++) {
+			counters.getAndUpdate(i, count -> count >>> 1);
+		}
+		candidates.replaceAll((key, count) -> estimate(key) * sampleRate);
+		candidates.values().removeIf(count -> count < sampledThreshold * sampleRate);
+		if (candidates.size() > topK * 2) {
+			List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(candidates.entrySet());
+			entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+			for (Map.Entry<String, Long> entry : entries.subList(topK * 2, entries.size())) {
+				candidates.remove(entry.getKey());
+			}
+		}
+	}
+
+	private long estimate(String key) {
+		int hash = key.hashCode();
+		int estimate = Integer.MAX_VALUE;
+		for (int i = 0; i < DEPTH; i++) {
+			estimate = Math.min(estimate, counters.get(index(hash, i)));
+		}
+		return estimate;
+	}
+
+	private int index(int hash, int row) {
+		int h = (hash ^ (hash >>> 16)) * SEEDS[row];
+		return row * (mask + 1) + ((h ^ (h >>> 15)) & mask);
+	}
+
+	private static int stripe(String key) {
+		return (key.hashCode() & 0x7FFFFFFF) % STRIPES;
+	}
+}
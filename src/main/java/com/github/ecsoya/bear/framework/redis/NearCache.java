@@ -0,0 +1,229 @@
+package com.github.ecsoya.bear.framework.redis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内近端缓存，按容量和存活时间双重限制，挡在 Redis 前面
+ *
+ * @author angryred
+ */
+public class NearCache<K, V> {
+	/** 所有已创建的近端缓存，用于监控 */
+	private static final Map<String, NearCache<?, ?>> CACHES = new ConcurrentHashMap<>();
+
+	/** 超出容量时一次淘汰的比例 */
+	private static final double EVICT_RATIO = 0.1;
+
+	private final String name;
+
+	private final int maxSize;
+
+	private final long ttlMillis;
+
+	private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param name    缓存名称
+	 * @param maxSize 最大条目数
+	 * @param ttl     默认存活时间
+	 * @param unit    时间单位
+	 */
+	public NearCache(String name, int maxSize, long ttl, TimeUnit unit) {
+		this.name = name;
+		this.maxSize = Math.max(1, maxSize);
+		this.ttlMillis = unit.toMillis(ttl);
+		CACHES.put(name, this);
+	}
+
+	/**
+	 * 获取缓存值，过期视为未命中
+	 *
+	 * @param key 键
+	 * @return 值
+	 */
+	public V get(K key) {
+		if (key == null) {
+			return null;
+		}
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		if (entry.expireAt <= now) {
+			entries.remove(key, entry);
+			misses.increment();
+			return null;
+		}
+		entry.accessAt = now;
+		hits.increment();
+		return entry.value;
+	}
+
+	/**
+	 * 按默认存活时间放入缓存
+	 *
+	 * @param key   键
+	 * @param value 值
+	 */
+	public void put(K key, V value) {
+		put(key, value, System.currentTimeMillis() + ttlMillis);
+	}
+
+	/**
+	 * 放入缓存，实际过期时间取默认存活时间和指定时间中较早的一个
+	 *
+	 * @param key      键
+	 * @param value    值
+	 * @param expireAt 过期时间点（毫秒）
+	 */
+	public void put(K key, V value, long expireAt) {
+		if (key == null || value == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long deadline = Math.min(now + ttlMillis, expireAt);
+		if (deadline <= now) {
+			entries.remove(key);
+			return;
+		}
+		entries.put(key, new Entry<V>(value, deadline, now));
+		if (entries.size() > maxSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * 移除缓存
+	 *
+	 * @param key 键
+	 */
+	public void invalidate(K key) {
+		if (key != null) {
+			entries.remove(key);
+		}
+	}
+
+	/**
+	 * 批量移除缓存
+	 *
+	 * @param keys 键集合
+	 */
+	public void invalidateAll(Collection<K> keys) {
+		if (keys != null) {
+			keys.forEach(this::invalidate);
+		}
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * 统计信息：容量、命中、未命中、淘汰次数
+	 */
+	public Map<String, Object> getStats() {
+		long hitCount = hits.sum();
+		long missCount = misses.sum();
+		long total = hitCount + missCount;
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("name", name);
+		stats.put("size", entries.size());
+		stats.put("maxSize", maxSize);
+		stats.put("ttl", ttlMillis);
+		stats.put("hits", hitCount);
+		stats.put("misses", missCount);
+		stats.put("evictions", evictions.sum());
+		stats.put("hitRate", total == 0 ? 0D : (double) hitCount / total);
+		return stats;
+	}
+
+	/**
+	 * 所有近端缓存的统计信息
+	 */
+	public static List<Map<String, Object>> getAllStats() {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (NearCache<?, ?> cache : CACHES.values()) {
+			list.add(cache.getStats());
+		}
+		return list;
+	}
+
+	/**
+	 * 先清理过期条目，仍超出容量时按最近访问时间淘汰最久未使用的一批
+	 */
+	private void evict() {
+		if (!evicting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			long now = System.currentTimeMillis();
+			entries.entrySet().removeIf(e -> {
+				boolean expired = e.getValue().expireAt <= now;
+				if (expired) {
+					evictions.increment();
+				}
+				return expired;
+			});
+			int overflow = entries.size() - maxSize;
+			if (overflow <= 0) {
+				return;
+			}
+			int count = Math.max(overflow, (int) (maxSize * EVICT_RATIO));
+			List<Map.Entry<K, Entry<V>>> snapshot = new ArrayList<>(entries.entrySet());
+			Collections.sort(snapshot, Comparator.comparingLong(e -> e.getValue().accessAt));
+			for (int i = 0; i < count && i < snapshot.size(); i++) {
+				Map.Entry<K, Entry<V>> e = snapshot.get(i);
+				if (entries.remove(e.getKey(), e.getValue())) {
+					evictions.increment();
+				}
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+	private static final class Entry<V> {
+		private final V value;
+
+		private final long expireAt;
+
+		private volatile long accessAt;
+
+		private Entry(V value, long expireAt, long accessAt) {
+			this.value = value;
+			this.expireAt = expireAt;
+			this.accessAt = accessAt;
+		}
+	}
+}
@@ -1,38 +1,129 @@
 package com.github.ecsoya.bear.framework.redis;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.BoundSetOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.cache.CacheMetrics;
+import com.github.ecsoya.bear.framework.cache.CacheMetrics.Operation;
+import com.github.ecsoya.bear.framework.cache.ICache;
+import com.github.ecsoya.bear.framework.cache.ScanPage;
+
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.async.RedisKeyAsyncCommands;
+import io.lettuce.core.api.async.RedisServerAsyncCommands;
+import jakarta.annotation.PostConstruct;
+
 /**
- * spring redis 工具类
+ * spring redis 工具类，cache.type=redis（默认）时启用
  *
  * @author angryred
  **/
 @SuppressWarnings(value = { "unchecked", "rawtypes" })
 @Component
-public class RedisCache {
+@ConditionalOnProperty(name = "cache.type", havingValue = "redis", matchIfMissing = true)
+public class RedisCache implements ICache {
+	private static final Logger log = LoggerFactory.getLogger(RedisCache.class);
+
+	/** 超时时间（秒） */
+	private static final long SCAN_TIMEOUT = 10;
+
 	@Autowired
 	public RedisTemplate redisTemplate;
 
+	/** 每次SCAN的COUNT */
+	@Value("${cache.scan.count:1000}")
+	private int scanCount;
+
+	/** 批量删除时每条UNLINK的键数 */
+	@Value("${cache.scan.deleteBatch:500}")
+	private int deleteBatch;
+
+	@Autowired
+	private CacheMetrics cacheMetrics;
+
+	@Autowired
+	private HotKeyDetector hotKeyDetector;
+
+	@Autowired
+	private RedisCircuitBreaker circuitBreaker;
+
+	@Autowired
+	private RedisClientTracking clientTracking;
+
+	/** fail-open 前缀的值在本节点留存的最大个数 */
+	@Value("${cache.breaker.fallbackMaxSize:1000}")
+	private int fallbackMaxSize;
+
+	/** fail-open 前缀的值在本节点留存的时间（秒） */
+	@Value("${cache.breaker.fallbackTtl:600}")
+	private long fallbackTtl;
+
+	/** fail-open 前缀最近读写的值，Redis 不可用时读取 */
+	private NearCache<String, Object> fallback;
+
+	/**
+	 * 当前线程在管道中执行时为待通知其他节点失效的热点键，否则为空；管道中的命令立即返回空，不计入指标
+	 */
+	private final ThreadLocal<List<String>> pipelined = new ThreadLocal<List<String>>();
+
+	@PostConstruct
+	public void init() {
+		fallback = new NearCache<String, Object>("fallback", fallbackMaxSize, fallbackTtl, TimeUnit.SECONDS);
+	}
+
 	/**
 	 * 缓存基本的对象，Integer、String、实体类等
 	 *
 	 * @param key   缓存的键值
 	 * @param value 缓存的值
 	 */
+	@Override
 	public <T> void setCacheObject(final String key, final T value) {
-		redisTemplate.opsForValue().set(key, value);
+		long start = System.nanoTime();
+		try {
+			redisTemplate.opsForValue().set(key, value);
+			record(key, Operation.WRITE, start);
+		} catch (DataAccessException e) {
+			degrade(key, e, null);
+		}
+		written(key);
+		keep(key, value, Long.MAX_VALUE);
 	}
 
 	/**
@@ -43,8 +134,77 @@ public class RedisCache {
 	 * @param timeout  时间
 	 * @param timeUnit 时间颗粒度
 	 */
+	@Override
 	public <T> void setCacheObject(final String key, final T value, final Integer timeout, final TimeUnit timeUnit) {
-		redisTemplate.opsForValue().set(key, value, timeout, timeUnit);
+		long start = System.nanoTime();
+		try {
+			redisTemplate.opsForValue().set(key, value, timeout, timeUnit);
+			record(key, Operation.WRITE, start);
+		} catch (DataAccessException e) {
+			degrade(key, e, null);
+		}
+		written(key);
+		keep(key, value, System.currentTimeMillis() + timeUnit.toMillis(timeout));
+	}
+
+	/**
+	 * 批量缓存基本的对象，一条MSET命令完成
+	 *
+	 * @param values 缓存的键值与值
+	 */
+	@Override
+	public <T> void setCacheObjects(final Map<String, T> values) {
+		if (values == null || values.isEmpty()) {
+			return;
+		}
+		String firstKey = values.keySet().iterator().next();
+		long start = System.nanoTime();
+		try {
+			redisTemplate.opsForValue().multiSet(values);
+			record(firstKey, Operation.WRITE, start);
+		} catch (DataAccessException e) {
+			degrade(firstKey, e, null);
+		}
+		values.forEach((key, value) -> {
+			written(key);
+			keep(key, value, Long.MAX_VALUE);
+		});
+	}
+
+	/**
+	 * 批量缓存基本的对象，并设置相同的有效时间，一次管道往返完成
+	 *
+	 * @param values   缓存的键值与值
+	 * @param timeout  时间
+	 * @param timeUnit 时间颗粒度
+	 */
+	@Override
+	public <T> void setCacheObjects(final Map<String, T> values, final Integer timeout, final TimeUnit timeUnit) {
+		if (values == null || values.isEmpty()) {
+			return;
+		}
+		RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+		RedisSerializer valueSerializer = redisTemplate.getValueSerializer();
+		Expiration expiration = Expiration.from(timeout, timeUnit);
+		String firstKey = values.keySet().iterator().next();
+		long start = System.nanoTime();
+		try {
+			redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				for (Map.Entry<String, T> entry : values.entrySet()) {
+					connection.stringCommands().set(keySerializer.serialize(entry.getKey()),
+							valueSerializer.serialize(entry.getValue()), expiration, SetOption.upsert());
+				}
+				return null;
+			});
+			record(firstKey, Operation.WRITE, start);
+		} catch (DataAccessException e) {
+			degrade(firstKey, e, null);
+		}
+		long expireAt = System.currentTimeMillis() + timeUnit.toMillis(timeout);
+		values.forEach((key, value) -> {
+			written(key);
+			keep(key, value, expireAt);
+		});
 	}
 
 	/**
@@ -54,6 +214,7 @@ public class RedisCache {
 	 * @param timeout 超时时间
 	 * @return true=设置成功；false=设置失败
 	 */
+	@Override
 	public boolean expire(final String key, final long timeout) {
 		return expire(key, timeout, TimeUnit.SECONDS);
 	}
@@ -66,8 +227,35 @@ public class RedisCache {
 	 * @param unit    时间单位
 	 * @return true=设置成功；false=设置失败
 	 */
+	@Override
 	public boolean expire(final String key, final long timeout, final TimeUnit unit) {
-		return redisTemplate.expire(key, timeout, unit);
+		try {
+			// 管道中执行时返回空
+			return Boolean.TRUE.equals(redisTemplate.expire(key, timeout, unit));
+		} catch (DataAccessException e) {
+			return degrade(key, e, false);
+		}
+	}
+
+	/**
+	 * 批量设置有效时间，一次管道往返完成
+	 *
+	 * @param timeouts Redis键与超时时间
+	 * @param unit     时间单位
+	 */
+	@Override
+	public void expire(final Map<String, Long> timeouts, final TimeUnit unit) {
+		if (timeouts == null || timeouts.isEmpty()) {
+			return;
+		}
+		RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+		redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (Map.Entry<String, Long> entry : timeouts.entrySet()) {
+				connection.keyCommands().pExpire(keySerializer.serialize(entry.getKey()),
+						unit.toMillis(entry.getValue()));
+			}
+			return null;
+		});
 	}
 
 	/**
@@ -76,8 +264,13 @@ public class RedisCache {
 	 * @param key Redis键
 	 * @return 有效时间
 	 */
+	@Override
 	public long getExpire(final String key) {
-		return redisTemplate.getExpire(key);
+		try {
+			return redisTemplate.getExpire(key);
+		} catch (DataAccessException e) {
+			return degrade(key, e, -2L);
+		}
 	}
 
 	/**
@@ -86,8 +279,13 @@ public class RedisCache {
 	 * @param key 键
 	 * @return true 存在 false不存在
 	 */
+	@Override
 	public Boolean hasKey(String key) {
-		return redisTemplate.hasKey(key);
+		try {
+			return redisTemplate.hasKey(key);
+		} catch (DataAccessException e) {
+			return degrade(key, e, fallback.get(key) != null);
+		}
 	}
 
 	/**
@@ -96,9 +294,124 @@ public class RedisCache {
 	 * @param key 缓存键值
 	 * @return 缓存键值对应的数据
 	 */
+	@Override
 	public <T> T getCacheObject(final String key) {
+		if (pipelined.get() != null) {
+			return (T) redisTemplate.opsForValue().get(key);
+		}
+		boolean tracked = clientTracking.isTracked(key);
+		long trackingVersion = 0;
+		if (tracked) {
+			T local = (T) clientTracking.get(key);
+			if (local != null) {
+				recordHit(key, true);
+				return local;
+			}
+			trackingVersion = clientTracking.version();
+		}
+		long version = hotKeyDetector.access(key);
+		T value = (T) hotKeyDetector.getPromoted(key);
+		if (value != null) {
+			recordHit(key, true);
+			return value;
+		}
+		long start = System.nanoTime();
 		ValueOperations<String, T> operation = redisTemplate.opsForValue();
-		return operation.get(key);
+		try {
+			value = operation.get(key);
+		} catch (DataAccessException e) {
+			return degrade(key, e, (T) fallback.get(key));
+		}
+		record(key, Operation.READ, start);
+		recordHit(key, value != null);
+		hotKeyDetector.promote(key, value, version);
+		keep(key, value, Long.MAX_VALUE);
+		if (tracked) {
+			clientTracking.put(key, value, trackingVersion);
+		}
+		return value;
+	}
+
+	/**
+	 * 批量获得缓存的基本对象，一条MGET命令完成
+	 *
+	 * @param keys 缓存键值集合
+	 * @return 与键顺序一致的数据，不存在时为空
+	 */
+	@Override
+	public <T> List<T> getCacheObjects(final Collection<String> keys) {
+		if (keys == null || keys.isEmpty()) {
+			return new ArrayList<T>();
+		}
+		long trackingVersion = clientTracking.version();
+		if (clientTracking.isActive()) {
+			List<T> local = getTracked(keys);
+			if (local != null) {
+				return local;
+			}
+		}
+		String firstKey = keys.iterator().next();
+		long start = System.nanoTime();
+		List<T> values;
+		try {
+			values = redisTemplate.opsForValue().multiGet(keys);
+		} catch (DataAccessException e) {
+			List<T> kept = new ArrayList<T>(keys.size());
+			keys.forEach(key -> kept.add((T) fallback.get(key)));
+			return degrade(firstKey, e, kept);
+		}
+		record(firstKey, Operation.READ, start);
+		if (values != null) {
+			int index = 0;
+			for (String key : keys) {
+				T value = values.get(index++);
+				recordHit(key, value != null);
+				keep(key, value, Long.MAX_VALUE);
+				if (clientTracking.isTracked(key)) {
+					clientTracking.put(key, value, trackingVersion);
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 全部键都能从客户端缓存读取时返回，否则返回空
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> List<T> getTracked(final Collection<String> keys) {
+		List<T> values = new ArrayList<T>(keys.size());
+		for (String key : keys) {
+			T value = clientTracking.isTracked(key) ? (T) clientTracking.get(key) : null;
+			if (value == null) {
+				return null;
+			}
+			values.add(value);
+		}
+		keys.forEach(key -> recordHit(key, true));
+		return values;
+	}
+
+	/**
+	 * 数值增加，不存在时从0开始
+	 *
+	 * @param key   缓存键
+	 * @param delta 增量
+	 * @return 增加后的值
+	 */
+	@Override
+	public long increment(final String key, final long delta) {
+		long start = System.nanoTime();
+		Long value;
+		try {
+			value = redisTemplate.opsForValue().increment(key, delta);
+		} catch (DataAccessException e) {
+			value = degrade(key, e, 0L);
+		}
+		record(key, Operation.WRITE, start);
+		written(key);
+		fallback.invalidate(key);
+		return value == null ? 0 : value;
 	}
 
 	/**
@@ -106,18 +419,42 @@ public class RedisCache {
 	 *
 	 * @param key
 	 */
+	@Override
 	public boolean deleteObject(final String key) {
-		return redisTemplate.delete(key);
+		fallback.invalidate(key);
+		long start = System.nanoTime();
+		boolean deleted;
+		try {
+			// 管道中执行时返回空
+			deleted = Boolean.TRUE.equals(redisTemplate.delete(key));
+		} catch (DataAccessException e) {
+			deleted = degrade(key, e, false);
+		}
+		record(key, Operation.DELETE, start);
+		written(key);
+		return deleted;
 	}
 
 	/**
-	 * 删除集合对象
+	 * 删除集合对象，按批UNLINK，由Redis在后台释放内存
 	 *
 	 * @param collection 多个对象
 	 * @return
 	 */
+	@Override
 	public boolean deleteObject(final Collection collection) {
-		return redisTemplate.delete(collection) > 0;
+		if (collection == null || collection.isEmpty()) {
+			return false;
+		}
+		collection.forEach(key -> fallback.invalidate((String) key));
+		long count;
+		try {
+			count = unlink(collection);
+		} catch (DataAccessException e) {
+			count = degrade((String) collection.iterator().next(), e, 0L);
+		}
+		collection.forEach(key -> written((String) key));
+		return count > 0;
 	}
 
 	/**
@@ -127,6 +464,7 @@ public class RedisCache {
 	 * @param dataList 待缓存的List数据
 	 * @return 缓存的对象
 	 */
+	@Override
 	public <T> long setCacheList(final String key, final List<T> dataList) {
 		Long count = redisTemplate.opsForList().rightPushAll(key, dataList);
 		return count == null ? 0 : count;
@@ -138,6 +476,7 @@ public class RedisCache {
 	 * @param key 缓存的键值
 	 * @return 缓存键值对应的数据
 	 */
+	@Override
 	public <T> List<T> getCacheList(final String key) {
 		return redisTemplate.opsForList().range(key, 0, -1);
 	}
@@ -147,15 +486,15 @@ public class RedisCache {
 	 *
 	 * @param key     缓存键值
 	 * @param dataSet 缓存的数据
-	 * @return 缓存数据的对象
+	 * @return 新增的个数
 	 */
-	public <T> BoundSetOperations<String, T> setCacheSet(final String key, final Set<T> dataSet) {
-		BoundSetOperations<String, T> setOperation = redisTemplate.boundSetOps(key);
-		Iterator<T> it = dataSet.iterator();
-		while (it.hasNext()) {
-			setOperation.add(it.next());
+	@Override
+	public <T> long setCacheSet(final String key, final Set<T> dataSet) {
+		if (dataSet == null || dataSet.isEmpty()) {
+			return 0;
 		}
-		return setOperation;
+		Long count = redisTemplate.opsForSet().add(key, dataSet.toArray());
+		return count == null ? 0 : count;
 	}
 
 	/**
@@ -164,6 +503,7 @@ public class RedisCache {
 	 * @param key
 	 * @return
 	 */
+	@Override
 	public <T> Set<T> getCacheSet(final String key) {
 		return redisTemplate.opsForSet().members(key);
 	}
@@ -174,6 +514,7 @@ public class RedisCache {
 	 * @param key
 	 * @param dataMap
 	 */
+	@Override
 	public <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
 		if (dataMap != null) {
 			redisTemplate.opsForHash().putAll(key, dataMap);
@@ -186,6 +527,7 @@ public class RedisCache {
 	 * @param key
 	 * @return
 	 */
+	@Override
 	public <T> Map<String, T> getCacheMap(final String key) {
 		return redisTemplate.opsForHash().entries(key);
 	}
@@ -197,8 +539,11 @@ public class RedisCache {
 	 * @param hKey  Hash键
 	 * @param value 值
 	 */
+	@Override
 	public <T> void setCacheMapValue(final String key, final String hKey, final T value) {
+		long start = System.nanoTime();
 		redisTemplate.opsForHash().put(key, hKey, value);
+		record(key, Operation.WRITE, start);
 	}
 
 	/**
@@ -208,9 +553,28 @@ public class RedisCache {
 	 * @param hKey Hash键
 	 * @return Hash中的对象
 	 */
+	@Override
 	public <T> T getCacheMapValue(final String key, final String hKey) {
+		long start = System.nanoTime();
 		HashOperations<String, String, T> opsForHash = redisTemplate.opsForHash();
-		return opsForHash.get(key, hKey);
+		T value = opsForHash.get(key, hKey);
+		record(key, Operation.READ, start);
+		recordHit(key, value != null);
+		return value;
+	}
+
+	/**
+	 * Hash中的数值增加
+	 *
+	 * @param key   Redis键
+	 * @param hKey  Hash键
+	 * @param delta 增量
+	 * @return 增加后的值
+	 */
+	@Override
+	public long incrementCacheMapValue(final String key, final String hKey, final long delta) {
+		Long value = redisTemplate.opsForHash().increment(key, hKey, delta);
+		return value == null ? 0 : value;
 	}
 
 	/**
@@ -220,6 +584,7 @@ public class RedisCache {
 	 * @param hKeys Hash键集合
 	 * @return Hash对象集合
 	 */
+	@Override
 	public <T> List<T> getMultiCacheMapValue(final String key, final Collection<Object> hKeys) {
 		return redisTemplate.opsForHash().multiGet(key, hKeys);
 	}
@@ -231,17 +596,415 @@ public class RedisCache {
 	 * @param hKey Hash键
 	 * @return 是否成功
 	 */
+	@Override
 	public boolean deleteCacheMapValue(final String key, final String hKey) {
 		return redisTemplate.opsForHash().delete(key, hKey) > 0;
 	}
 
 	/**
-	 * 获得缓存的基本对象列表
+	 * 批量获取多个Hash的全部数据（管道执行）
+	 *
+	 * @param keys Redis键集合
+	 * @return 与键顺序一致的Hash数据，不存在时为空Map
+	 */
+	@Override
+	public <T> List<Map<String, T>> getCacheMaps(final Collection<String> keys) {
+		if (keys == null || keys.isEmpty()) {
+			return new ArrayList<Map<String, T>>();
+		}
+		RedisSerializer<String> keySerializer = redisTemplate.getKeySerializer();
+		List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (String key : keys) {
+				connection.hashCommands().hGetAll(keySerializer.serialize(key));
+			}
+			return null;
+		}, null);
+		// 管道结果按原始字节返回，Hash键与值分别使用各自的序列化方式
+		RedisSerializer<String> hashKeySerializer = redisTemplate.getHashKeySerializer();
+		RedisSerializer<T> hashValueSerializer = redisTemplate.getHashValueSerializer();
+		List<Map<String, T>> list = new ArrayList<Map<String, T>>(results.size());
+		for (Object result : results) {
+			Map<String, T> map = new LinkedHashMap<String, T>();
+			if (result instanceof Map) {
+				((Map<byte[], byte[]>) result).forEach((hKey, value) -> map.put(hashKeySerializer.deserialize(hKey),
+						hashValueSerializer.deserialize(value)));
+			}
+			list.add(map);
+		}
+		return list;
+	}
+
+	/**
+	 * 往有序集合中添加数据
+	 *
+	 * @param key   Redis键
+	 * @param value 值
+	 * @param score 分数
+	 * @return 是否新增
+	 */
+	@Override
+	public <T> boolean zAdd(final String key, final T value, final double score) {
+		return Boolean.TRUE.equals(redisTemplate.opsForZSet().add(key, value, score));
+	}
+
+	/**
+	 * 往有序集合中批量添加数据，已存在的更新分数
+	 *
+	 * @param key    Redis键
+	 * @param scores 值及分数
+	 * @return 新增个数
+	 */
+	@Override
+	public <T> long zAdd(final String key, final Map<T, Double> scores) {
+		if (scores == null || scores.isEmpty()) {
+			return 0;
+		}
+		Set<TypedTuple<T>> tuples = new HashSet<TypedTuple<T>>();
+		scores.forEach((value, score) -> tuples.add(TypedTuple.of(value, score)));
+		Long count = redisTemplate.opsForZSet().add(key, tuples);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * 批量更新有序集合中已存在数据的分数（ZADD XX），不存在的不添加
+	 *
+	 * @param key    Redis键
+	 * @param scores 值及分数
+	 */
+	@Override
+	public <T> void zUpdate(final String key, final Map<T, Double> scores) {
+		if (scores == null || scores.isEmpty()) {
+			return;
+		}
+		RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+		RedisSerializer valueSerializer = redisTemplate.getValueSerializer();
+		Set<Tuple> tuples = new HashSet<Tuple>();
+		scores.forEach((value, score) -> tuples.add(new DefaultTuple(valueSerializer.serialize(value), score)));
+		redisTemplate.execute((RedisCallback<Object>) connection -> connection.zSetCommands()
+				.zAdd(keySerializer.serialize(key), tuples, ZAddArgs.ifExists()));
+	}
+
+	/**
+	 * 按分数从小到大获取有序集合中的数据
+	 *
+	 * @param key    Redis键
+	 * @param min    最小分数
+	 * @param max    最大分数
+	 * @param offset 偏移
+	 * @param count  个数
+	 * @return 数据
+	 */
+	@Override
+	public <T> Set<T> zRangeByScore(final String key, final double min, final double max, final long offset,
+			final long count) {
+		return redisTemplate.opsForZSet().rangeByScore(key, min, max, offset, count);
+	}
+
+	/**
+	 * 按分数从大到小获取有序集合中的数据
+	 *
+	 * @param key    Redis键
+	 * @param min    最小分数
+	 * @param max    最大分数
+	 * @param offset 偏移
+	 * @param count  个数
+	 * @return 数据
+	 */
+	@Override
+	public <T> Set<T> zReverseRangeByScore(final String key, final double min, final double max, final long offset,
+			final long count) {
+		return redisTemplate.opsForZSet().reverseRangeByScore(key, min, max, offset, count);
+	}
+
+	/**
+	 * 统计分数区间内的数据个数
+	 *
+	 * @param key Redis键
+	 * @param min 最小分数
+	 * @param max 最大分数
+	 * @return 个数
+	 */
+	@Override
+	public long zCount(final String key, final double min, final double max) {
+		Long count = redisTemplate.opsForZSet().count(key, min, max);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * 删除有序集合中的数据
+	 *
+	 * @param key    Redis键
+	 * @param values 值集合
+	 * @return 删除个数
+	 */
+	@Override
+	public long zRemove(final String key, final Collection<?> values) {
+		if (values == null || values.isEmpty()) {
+			return 0;
+		}
+		Long count = redisTemplate.opsForZSet().remove(key, values.toArray());
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * 执行脚本，参数按字符串传入，结果按缓存值反序列化
+	 *
+	 * @param script 脚本
+	 * @param keys   Redis键
+	 * @param args   参数
+	 * @return 结果
+	 */
+	@Override
+	public <T> T execute(final RedisScript<T> script, final List<String> keys, final String... args) {
+		String firstKey = keys.isEmpty() ? null : keys.get(0);
+		long start = System.nanoTime();
+		T result;
+		try {
+			result = (T) redisTemplate.execute(script, RedisSerializer.string(), redisTemplate.getValueSerializer(),
+					keys, (Object[]) args);
+		} catch (DataAccessException e) {
+			// fail-open 时返回空，由调用方放行
+			return degrade(firstKey, e, null);
+		}
+		record(firstKey, Operation.SCRIPT, start);
+		// 脚本可能修改传入的键
+		keys.forEach(this::written);
+		return result;
+	}
+
+	/**
+	 * 以管道方式执行，期间当前线程上的缓存操作合并为一次往返，操作本身返回空
+	 *
+	 * @param action 缓存操作
+	 * @return 各操作的结果
+	 */
+	@Override
+	public List<Object> executePipelined(final Runnable action) {
+		if (pipelined.get() != null) {
+			// 已在管道中，并入外层管道
+			action.run();
+			return new ArrayList<Object>();
+		}
+		List<String> hotKeys = new ArrayList<String>();
+		List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+			@Override
+			public Object execute(RedisOperations operations) {
+				pipelined.set(hotKeys);
+				try {
+					action.run();
+				} finally {
+					pipelined.remove();
+				}
+				return null;
+			}
+		});
+		// 管道中发布的消息会混入结果，结束后再通知
+		hotKeys.forEach(hotKeyDetector::broadcast);
+		return results;
+	}
+
+	/**
+	 * 获得缓存的基本对象列表，使用SCAN分批获取，不阻塞其他客户端
 	 *
 	 * @param pattern 字符串前缀
 	 * @return 对象列表
 	 */
+	@Override
 	public Collection<String> keys(final String pattern) {
-		return redisTemplate.keys(pattern);
+		Set<String> keys = new LinkedHashSet<String>();
+		scan(pattern, keys::addAll);
+		return keys;
+	}
+
+	/**
+	 * 分批遍历匹配的键，每批约 cache.scan.count 个，同一个键可能重复出现；每批单独经过熔断器，Redis 变慢时中途停止
+	 *
+	 * @param pattern  匹配模式
+	 * @param consumer 每批键的处理
+	 */
+	@Override
+	public void scan(final String pattern, final Consumer<List<String>> consumer) {
+		String cursor = null;
+		ScanPage page;
+		do {
+			page = scan(pattern, cursor, scanCount);
+			if (!page.getKeys().isEmpty()) {
+				consumer.accept(page.getKeys());
+			}
+			cursor = page.getCursor();
+		} while (!page.isFinished());
+	}
+
+	/**
+	 * 从游标处继续遍历匹配的键，游标由Redis返回，可跨请求使用；个数作为 SCAN 的 COUNT，
+	 * Redis 单次返回的个数只是近似值，不截断以免丢失游标之前的键
+	 *
+	 * @param pattern 匹配模式
+	 * @param cursor  游标，为空或 0 时从头开始
+	 * @param count   个数
+	 * @return 本页的键与下一页游标
+	 */
+	@Override
+	public ScanPage scan(final String pattern, final String cursor, final int count) {
+		RedisSerializer<String> keySerializer = redisTemplate.getKeySerializer();
+		return (ScanPage) redisTemplate.execute((RedisCallback<ScanPage>) connection -> {
+			// Spring Data Redis 的游标无法从指定位置继续，使用 Lettuce 原生命令
+			RedisKeyAsyncCommands<byte[], byte[]> commands = (RedisKeyAsyncCommands<byte[], byte[]>) connection
+					.getNativeConnection();
+			ScanArgs args = ScanArgs.Builder.matches(pattern).limit(Math.max(count, 1));
+			ScanCursor scanCursor = StringUtils.isEmpty(cursor) || ScanPage.FINISHED.equals(cursor) ? ScanCursor.INITIAL
+					: ScanCursor.of(cursor);
+			Set<String> keys = new LinkedHashSet<String>();
+			do {
+				KeyScanCursor<byte[]> result = LettuceFutures.awaitOrCancel(commands.scan(scanCursor, args), SCAN_TIMEOUT,
+						TimeUnit.SECONDS);
+				result.getKeys().forEach(key -> keys.add(keySerializer.deserialize(key)));
+				scanCursor = result;
+			} while (keys.size() < count && !scanCursor.isFinished());
+			return new ScanPage(scanCursor.isFinished() ? ScanPage.FINISHED : scanCursor.getCursor(),
+					new ArrayList<String>(keys));
+		});
+	}
+
+	/**
+	 * 删除匹配的全部键，边SCAN边按批UNLINK
+	 *
+	 * @param pattern 匹配模式
+	 * @return 删除个数
+	 */
+	@Override
+	public long deleteByPattern(final String pattern) {
+		long[] count = new long[1];
+		scan(pattern, keys -> count[0] += unlink(keys));
+		hotKeyDetector.invalidateAll();
+		fallback.clear();
+		clientTracking.clear();
+		return count[0];
+	}
+
+	/**
+	 * 批量获取键占用的内存（字节），命令异步发出后统一等待，一次往返完成
+	 *
+	 * @param keys 缓存键集合
+	 * @return 与键顺序一致的字节数，键不存在时为空
+	 */
+	@Override
+	public List<Long> memoryUsage(final List<String> keys) {
+		if (keys == null || keys.isEmpty()) {
+			return new ArrayList<Long>();
+		}
+		RedisSerializer<String> keySerializer = redisTemplate.getKeySerializer();
+		return (List<Long>) redisTemplate.execute((RedisCallback<List<Long>>) connection -> {
+			RedisServerAsyncCommands<byte[], byte[]> commands = (RedisServerAsyncCommands<byte[], byte[]>) connection
+					.getNativeConnection();
+			List<RedisFuture<Long>> futures = new ArrayList<RedisFuture<Long>>(keys.size());
+			for (String key : keys) {
+				futures.add(commands.memoryUsage(keySerializer.serialize(key)));
+			}
+			List<Long> sizes = new ArrayList<Long>(keys.size());
+			for (RedisFuture<Long> future : futures) {
+				sizes.add(LettuceFutures.awaitOrCancel(future, SCAN_TIMEOUT, TimeUnit.SECONDS));
+			}
+			return sizes;
+		});
+	}
+
+	/**
+	 * 记录操作耗时，管道中执行时不记录
+	 */
+	private void record(String key, Operation operation, long start) {
+		if (pipelined.get() == null) {
+			cacheMetrics.record(key, operation, start);
+		}
+	}
+
+	/**
+	 * 记录读取是否命中，管道中执行时不记录
+	 */
+	private void recordHit(String key, boolean hit) {
+		if (pipelined.get() == null) {
+			cacheMetrics.recordHit(key, hit);
+		}
+	}
+
+	/**
+	 * Redis 不可用（熔断或连接失败、超时）时按键前缀降级：fail-open 返回降级值，其余抛出原异常
+	 */
+	private <T> T degrade(String key, DataAccessException e, T degraded) {
+		if (!circuitBreaker.isFailOpen(key)) {
+			throw e;
+		}
+		log.debug("缓存降级'{}': {}", key, e.getMessage());
+		return degraded;
+	}
+
+	/**
+	 * 留存 fail-open 前缀的值，Redis 不可用时读取
+	 */
+	private void keep(String key, Object value, long expireAt) {
+		if (pipelined.get() != null || !circuitBreaker.isFailOpen(key)) {
+			return;
+		}
+		if (value == null) {
+			fallback.invalidate(key);
+		} else {
+			fallback.put(key, value, expireAt);
+		}
+	}
+
+	/**
+	 * 键写入或删除后失效本节点提升的值，热点键通知其他节点
+	 */
+	private void written(String key) {
+		clientTracking.invalidate(key);
+		if (hotKeyDetector.invalidate(key)) {
+			List<String> hotKeys = pipelined.get();
+			if (hotKeys == null) {
+				hotKeyDetector.broadcast(key);
+			} else {
+				hotKeys.add(key);
+			}
+		}
+	}
+
+	/**
+	 * 按 cache.scan.deleteBatch 分批UNLINK
+	 */
+	private long unlink(final Collection collection) {
+		if (collection == null || collection.isEmpty()) {
+			return 0;
+		}
+		List keys = collection instanceof List ? (List) collection : new ArrayList(collection);
+		long count = 0;
+		for (int i = 0; i < keys.size(); i += deleteBatch) {
+			// 管道中执行时返回空
+			Long deleted = redisTemplate.unlink(keys.subList(i, Math.min(keys.size(), i + deleteBatch)));
+			count += deleted == null ? 0 : deleted;
+		}
+		return count;
+	}
+
+	/**
+	 * 缓存服务信息
+	 *
+	 * @param section 信息分类，为空时返回默认信息
+	 * @return 信息
+	 */
+	@Override
+	public Properties info(final String section) {
+		return (Properties) redisTemplate.execute((RedisCallback<Object>) connection -> section == null
+				? connection.serverCommands().info()
+				: connection.serverCommands().info(section));
+	}
+
+	/**
+	 * 缓存键的个数
+	 *
+	 * @return 个数
+	 */
+	@Override
+	public long dbSize() {
+		Long size = (Long) redisTemplate.execute((RedisCallback<Object>) connection -> connection.serverCommands().dbSize());
+		return size == null ? 0 : size;
 	}
 }
@@ -0,0 +1,250 @@
+package com.github.ecsoya.bear.framework.redis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.utils.DateUtils;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Redis 熔断器，按最近若干次调用的失败（含慢调用）比例打开，打开期间直接拒绝，等待一段时间后放行少量试探调用
+ * <p>
+ * 熔断或调用失败时按键前缀决定降级方式：fail-open 的前缀读取本节点留存的值、写入直接跳过，其余前缀抛出异常。
+ *
+ * @author angryred
+ */
+@Component
+public class RedisCircuitBreaker {
+	private static final Logger log = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+	/** 保留的状态变更记录条数 */
+	private static final int MAX_TRANSITIONS = 50;
+
+	/**
+	 * 熔断器状态
+	 */
+	public enum State {
+		/** 正常调用 */
+		CLOSED,
+		/** 熔断中，直接拒绝 */
+		OPEN,
+		/** 放行少量试探调用 */
+		HALF_OPEN
+	}
+
+	/** 是否启用 */
+	@Value("${cache.breaker.enabled:true}")
+	private boolean enabled;
+
+	/** 统计最近的调用次数 */
+	@Value("${cache.breaker.windowSize:100}")
+	private int windowSize;
+
+	/** 达到该调用次数后才计算失败比例 */
+	@Value("${cache.breaker.minimumCalls:20}")
+	private int minimumCalls;
+
+	/** 失败比例（百分比）达到该值时打开 */
+	@Value("${cache.breaker.failureRate:50}")
+	private int failureRate;
+
+	/** 超过该耗时（毫秒）的调用计为失败 */
+	@Value("${cache.breaker.slowCallMillis:1000}")
+	private long slowCallMillis;
+
+	/** 打开后等待多久（秒）进入半开 */
+	@Value("${cache.breaker.waitDuration:10}")
+	private long waitDuration;
+
+	/** 半开时放行的试探调用次数，全部成功后关闭 */
+	@Value("${cache.breaker.halfOpenCalls:5}")
+	private int halfOpenCalls;
+
+	/** 降级时放行的键前缀，逗号分隔 */
+	@Value("${cache.breaker.failOpen:sys_config:,sys_dict:,rate_limit:,repeat_submit:}")
+	private String[] failOpenPrefixes;
+
+	private volatile State state = State.CLOSED;
+
+	/** 打开的截止时间（毫秒） */
+	private volatile long openUntil;
+
+	/** 最近调用的结果，1 为失败 */
+	private AtomicIntegerArray outcomes;
+
+	private final AtomicLong calls = new AtomicLong();
+
+	private final AtomicInteger failures = new AtomicInteger();
+
+	/** 半开时剩余可放行和待成功的试探次数 */
+	private final AtomicInteger trialPermits = new AtomicInteger();
+
+	private final AtomicInteger trialSuccesses = new AtomicInteger();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final Deque<Map<String, Object>> transitions = new ArrayDeque<Map<String, Object>>();
+
+	@PostConstruct
+	public void init() {
+		windowSize = Math.max(1, windowSize);
+		outcomes = new AtomicIntegerArray(windowSize);
+	}
+
+	/**
+	 * 调用前申请，熔断中返回 false
+	 */
+	public boolean tryAcquire() {
+		if (!enabled) {
+			return true;
+		}
+		State current = state;
+		if (current == State.OPEN) {
+			if (System.currentTimeMillis() < openUntil) {
+				rejected.increment();
+				return false;
+			}
+			transition(State.OPEN, State.HALF_OPEN, "等待结束，开始试探");
+			current = state;
+		}
+		if (current == State.HALF_OPEN && trialPermits.getAndDecrement() <= 0) {
+			rejected.increment();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 调用成功
+	 *
+	 * @param nanos 耗时（纳秒）
+	 */
+	public void onSuccess(long nanos) {
+		if (!enabled) {
+			return;
+		}
+		long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+		if (millis >= slowCallMillis) {
+			onFailure("慢调用 " + millis + "ms");
+			return;
+		}
+		if (state == State.HALF_OPEN) {
+			if (trialSuccesses.incrementAndGet() >= halfOpenCalls) {
+				transition(State.HALF_OPEN, State.CLOSED, "试探调用全部成功");
+			}
+			return;
+		}
+		record(0);
+	}
+
+	/**
+	 * 调用失败
+	 *
+	 * @param reason 原因
+	 */
+	public void onFailure(String reason) {
+		if (!enabled) {
+			return;
+		}
+		if (state == State.HALF_OPEN) {
+			transition(State.HALF_OPEN, State.OPEN, "试探调用失败: " + reason);
+			return;
+		}
+		record(1);
+		long total = Math.min(calls.get(), windowSize);
+		if (state == State.CLOSED && total >= minimumCalls && failures.get() * 100L >= failureRate * total) {
+			transition(State.CLOSED, State.OPEN, "失败比例 " + failures.get() * 100 / total + "%: " + reason);
+		}
+	}
+
+	private void record(int outcome) {
+		int slot = (int) (calls.getAndIncrement() % windowSize);
+		failures.addAndGet(outcome - outcomes.getAndSet(slot, outcome));
+	}
+
+	private synchronized void transition(State from, State to, String reason) {
+		if (state != from) {
+			return;
+		}
+		if (to == State.OPEN) {
+			openUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(waitDuration);
+		} else if (to == State.HALF_OPEN) {
+			trialSuccesses.set(0);
+			trialPermits.set(halfOpenCalls);
+		} else {
+			// 关闭后重新统计
+			for (int i = 0; i < windowSize; i++) {
+				outcomes.set(i, 0);
+			}
+			failures.set(0);
+			calls.set(0);
+		}
+		state = to;
+		Map<String, Object> event = new LinkedHashMap<String, Object>();
+		event.put("time", DateUtils.getTime());
+		event.put("from", from);
+		event.put("to", to);
+		event.put("reason", reason);
+		transitions.addFirst(event);
+		if (transitions.size() > MAX_TRANSITIONS) {
+			transitions.removeLast();
+		}
+		if (to == State.CLOSED) {
+			log.info("Redis 熔断器 {} -> {}: {}", from, to, reason);
+		} else {
+			log.warn("Redis 熔断器 {} -> {}: {}", from, to, reason);
+		}
+	}
+
+	/**
+	 * 键是否按 fail-open 降级
+	 *
+	 * @param key 缓存键
+	 */
+	public boolean isFailOpen(String key) {
+		if (key != null) {
+			for (String prefix : failOpenPrefixes) {
+				if (!prefix.isEmpty() && key.startsWith(prefix)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * 状态、失败比例、拒绝次数和最近的状态变更
+	 */
+	public synchronized Map<String, Object> getStats() {
+		long total = Math.min(calls.get(), windowSize);
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("enabled", enabled);
+		stats.put("state", state);
+		stats.put("calls", total);
+		stats.put("failures", failures.get());
+		stats.put("failureRate", total == 0 ? 0D : failures.get() * 100D / total);
+		stats.put("rejected", rejected.sum());
+		stats.put("openUntil", state == State.OPEN ? openUntil : 0);
+		stats.put("failOpen", failOpenPrefixes);
+		stats.put("transitions", new ArrayList<Map<String, Object>>(transitions));
+		return stats;
+	}
+}
@@ -0,0 +1,293 @@
+package com.github.ecsoya.bear.framework.redis;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 服务端辅助的客户端缓存，使用 RESP3 CLIENT TRACKING 广播模式跟踪配置、字典等读多写少的键前缀
+ * <p>
+ * 跟踪的键读取后保存在本节点，任一节点写入、删除或键过期时 Redis 向专用连接推送失效消息。
+ * 专用连接断开期间不使用本节点的值，重连并重新开启跟踪后清空再启用。需要 Redis 6 及以上的单机或哨兵部署。
+ *
+ * @author angryred
+ */
+@Component
+@ConditionalOnProperty(name = "cache.type", havingValue = "redis", matchIfMissing = true)
+public class RedisClientTracking {
+	private static final Logger log = LoggerFactory.getLogger(RedisClientTracking.class);
+
+	/** 失效消息类型 */
+	private static final String INVALIDATE = "invalidate";
+
+	@Autowired
+	private RedisConnectionFactory connectionFactory;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/** 是否开启 */
+	@Value("${redis.tracking.enabled:false}")
+	private boolean enabled;
+
+	/** 跟踪的键前缀，逗号分隔 */
+	@Value("${redis.tracking.prefixes:sys_config:,sys_dict:}")
+	private String[] prefixes;
+
+	/** 本节点保存的最大个数 */
+	@Value("${redis.tracking.maxSize:10000}")
+	private int maxSize;
+
+	/** 本节点保存的时间（秒），仅作兜底，正常由失效消息清除 */
+	@Value("${redis.tracking.ttl:3600}")
+	private long ttl;
+
+	/** 连接或开启跟踪失败后的重试间隔（秒） */
+	@Value("${redis.tracking.retryInterval:30}")
+	private long retryInterval;
+
+	private NearCache<String, Object> values;
+
+	private volatile StatefulRedisConnection<byte[], byte[]> connection;
+
+	/** 跟踪已开启，本节点的值可以使用 */
+	private volatile boolean active;
+
+	/** 失效时加一，防止读取与失效交错时保存旧值 */
+	private final AtomicLong version = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		if (!enabled) {
+			return;
+		}
+		values = new NearCache<String, Object>("tracking", maxSize, ttl, TimeUnit.SECONDS);
+		scheduledExecutorService.execute(this::connect);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		enabled = false;
+		deactivate();
+		StatefulRedisConnection<byte[], byte[]> current = connection;
+		if (current != null) {
+			current.close();
+		}
+	}
+
+	/**
+	 * 建立接收失效消息的专用连接
+	 */
+	private void connect() {
+		if (!enabled) {
+			return;
+		}
+		if (!(connectionFactory instanceof LettuceConnectionFactory)) {
+			log.warn("客户端缓存需要 Lettuce 连接，已关闭");
+			return;
+		}
+		AbstractRedisClient client = ((LettuceConnectionFactory) connectionFactory).getNativeClient();
+		if (!(client instanceof RedisClient)) {
+			log.warn("客户端缓存仅支持单机和哨兵部署，已关闭");
+			return;
+		}
+		if (client.getOptions().getConfiguredProtocolVersion() == ProtocolVersion.RESP2) {
+			log.warn("客户端缓存需要 RESP3 协议，当前配置为 RESP2，已关闭");
+			return;
+		}
+		try {
+			StatefulRedisConnection<byte[], byte[]> created = ((RedisClient) client).connect(ByteArrayCodec.INSTANCE);
+			created.addListener(this::onPush);
+			created.addListener(new RedisConnectionStateListener() {
+				@Override
+				public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+					// 重连后跟踪已失效，监听在 IO 线程回调，不能在此同步执行命令
+					scheduledExecutorService.execute(RedisClientTracking.this::track);
+				}
+
+				@Override
+				public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+					deactivate();
+				}
+			});
+			connection = created;
+			track();
+		} catch (Exception e) {
+			log.warn("客户端缓存连接失败，{}秒后重试: {}", retryInterval, e.getMessage());
+			scheduledExecutorService.schedule(this::connect, retryInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * 开启广播模式跟踪，成功后清空并启用本节点的值
+	 */
+	private void track() {
+		StatefulRedisConnection<byte[], byte[]> current = connection;
+		if (!enabled || current == null || !current.isOpen()) {
+			return;
+		}
+		try {
+			current.sync().clientTracking(TrackingArgs.Builder.enabled().bcast().prefixes(prefixes));
+			// 开启前读取的值可能已错过失效消息
+			version.incrementAndGet();
+			values.clear();
+			active = true;
+			log.info("客户端缓存已开启，跟踪前缀 {}", String.join(",", prefixes));
+		} catch (RedisCommandExecutionException e) {
+			log.warn("Redis 不支持客户端缓存，已关闭: {}", e.getMessage());
+			destroy();
+		} catch (Exception e) {
+			deactivate();
+			log.warn("客户端缓存开启跟踪失败，{}秒后重试: {}", retryInterval, e.getMessage());
+			scheduledExecutorService.schedule(this::track, retryInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	private void deactivate() {
+		active = false;
+		if (values != null) {
+			version.incrementAndGet();
+			values.clear();
+		}
+	}
+
+	/**
+	 * 失效消息：内容为键列表，为空表示清空（FLUSHALL、FLUSHDB）
+	 */
+	private void onPush(PushMessage message) {
+		if (!INVALIDATE.equals(message.getType())) {
+			return;
+		}
+		List<Object> content = message.getContent();
+		Object keys = content.size() > 1 ? content.get(1) : null;
+		version.incrementAndGet();
+		if (keys instanceof List) {
+			for (Object key : (List<?>) keys) {
+				values.invalidate(decode(key));
+			}
+		} else {
+			values.clear();
+		}
+	}
+
+	private static String decode(Object key) {
+		if (key instanceof ByteBuffer) {
+			return StandardCharsets.UTF_8.decode(((ByteBuffer) key).duplicate()).toString();
+		}
+		if (key instanceof byte[]) {
+			return new String((byte[]) key, StandardCharsets.UTF_8);
+		}
+		return String.valueOf(key);
+	}
+
+	/**
+	 * 跟踪是否已开启
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * 键是否可以从本节点读取
+	 *
+	 * @param key 缓存键
+	 */
+	public boolean isTracked(String key) {
+		return active && matches(key);
+	}
+
+	private boolean matches(String key) {
+		if (key == null) {
+			return false;
+		}
+		for (String prefix : prefixes) {
+			if (!prefix.isEmpty() && key.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 获取本节点保存的值
+	 *
+	 * @param key 缓存键
+	 * @return 值，未保存或跟踪未开启时为空
+	 */
+	public Object get(String key) {
+		return active ? values.get(key) : null;
+	}
+
+	/**
+	 * 当前版本号，从 Redis 读取前获取
+	 */
+	public long version() {
+		return version.get();
+	}
+
+	/**
+	 * 从 Redis 读取后保存到本节点；读取期间有失效时不保存
+	 *
+	 * @param key     缓存键
+	 * @param value   读取到的值
+	 * @param version 读取前的版本号
+	 */
+	public void put(String key, Object value, long version) {
+		if (!active || value == null) {
+			return;
+		}
+		// 先放入再校验：失效发生在放入之后时会移除该值，发生在之前时版本号已变
+		values.put(key, value);
+		if (this.version.get() != version) {
+			values.invalidate(key);
+		}
+	}
+
+	/**
+	 * 本节点写入或删除后立即失效，不等待 Redis 推送
+	 *
+	 * @param key 缓存键
+	 */
+	public void invalidate(String key) {
+		if (values != null && matches(key)) {
+			version.incrementAndGet();
+			values.invalidate(key);
+		}
+	}
+
+	/**
+	 * 清空本节点保存的值
+	 */
+	public void clear() {
+		if (values != null) {
+			version.incrementAndGet();
+			values.clear();
+		}
+	}
+}
@@ -7,24 +7,22 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
 import com.github.ecsoya.bear.common.utils.DateUtils;
+import com.github.ecsoya.bear.framework.cache.ICache;
 
 @Component
-@SuppressWarnings("rawtypes")
 public class RedisIdentify {
 	private static final String KEY_ID = "redis_identify_id";
 	private static final int DEFAULT_LENGTH = 6;
-	private static RedisTemplate redisTemplate;
+	private static ICache redisCache;
 
 	@Autowired
-	public void redisTemplate(RedisTemplate redisTemplate) {
-		RedisIdentify.redisTemplate = redisTemplate;
+	public void redisCache(ICache redisCache) {
+		RedisIdentify.redisCache = redisCache;
 	}
 
-	@SuppressWarnings("unchecked")
 	public static String generate(String prefix, int length) {
 		StringBuffer buffer = new StringBuffer();
 		if (prefix != null) {
@@ -36,13 +34,13 @@ public class RedisIdentify {
 
 		String key = String.format("%s:%s", KEY_ID, Optional.ofNullable(prefix).orElse(""));
 
-		Long increment = redisTemplate.opsForValue().increment(key, 1);
+		long increment = redisCache.increment(key, 1);
 
-		Long expire = redisTemplate.getExpire(key, TimeUnit.SECONDS);
+		long expire = redisCache.getExpire(key);
 		if (expire == -1) {
 			LocalDateTime endOfDay = LocalDate.now().atTime(23, 59, 59);
 			long secondsToMidnight = LocalDateTime.now().until(endOfDay, ChronoUnit.SECONDS);
-			redisTemplate.expire(key, secondsToMidnight, TimeUnit.SECONDS);
+			redisCache.expire(key, secondsToMidnight, TimeUnit.SECONDS);
 		}
 		String format = "%0" + length + "d";
 
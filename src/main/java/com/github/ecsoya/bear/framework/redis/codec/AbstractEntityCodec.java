@@ -0,0 +1,37 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.github.ecsoya.bear.framework.web.domain.BaseEntity;
+
+/**
+ * 实体编解码基类，处理 {@link BaseEntity} 公共字段
+ *
+ * @author angryred
+ */
+public abstract class AbstractEntityCodec<T> implements RedisCodec<T> {
+	protected void writeBaseEntity(BaseEntity entity, BinaryWriter writer) throws IOException {
+		writer.writeString(entity.getSearchValue());
+		writer.writeString(entity.getCreateBy());
+		writer.writeDate(entity.getCreateTime());
+		writer.writeString(entity.getUpdateBy());
+		writer.writeDate(entity.getUpdateTime());
+		writer.writeString(entity.getRemark());
+		writer.writeJson(entity.getParams());
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void readBaseEntity(BaseEntity entity, BinaryReader reader) throws IOException {
+		entity.setSearchValue(reader.readString());
+		entity.setCreateBy(reader.readString());
+		entity.setCreateTime(reader.readDate());
+		entity.setUpdateBy(reader.readString());
+		entity.setUpdateTime(reader.readDate());
+		entity.setRemark(reader.readString());
+		Map<String, Object> params = reader.readJson(Map.class);
+		if (params != null) {
+			entity.setParams(params);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.filter.Filter;
+import com.github.ecsoya.bear.common.constant.Constants;
+
+/**
+ * 二进制输入，与 {@link BinaryWriter} 对应
+ *
+ * @author angryred
+ */
+public class BinaryReader {
+	private static final Filter AUTO_TYPE_FILTER = JSONReader.autoTypeFilter(Constants.JSON_WHITELIST_STR);
+
+	private final byte[] data;
+
+	private int position;
+
+	public BinaryReader(byte[] data, int offset) {
+		this.data = data;
+		this.position = offset;
+	}
+
+	public byte readByte() throws IOException {
+		if (position >= data.length) {
+			throw new IOException("Unexpected end of data");
+		}
+		return data[position++];
+	}
+
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	public int readVarInt() throws IOException {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = readByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	public Long readLong() throws IOException {
+		if (readByte() == 0) {
+			return null;
+		}
+		long v = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = readByte();
+			v |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return (v >>> 1) ^ -(v & 1);
+	}
+
+	public Integer readInteger() throws IOException {
+		Long value = readLong();
+		return value == null ? null : value.intValue();
+	}
+
+	public Date readDate() throws IOException {
+		Long value = readLong();
+		return value == null ? null : new Date(value);
+	}
+
+	public String readString() throws IOException {
+		int length = readVarInt() - 1;
+		if (length < 0) {
+			return null;
+		}
+		if (position + length > data.length) {
+			throw new IOException("Unexpected end of data");
+		}
+		String value = new String(data, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return value;
+	}
+
+	public Set<String> readStringSet() throws IOException {
+		return readStrings(new HashSet<String>());
+	}
+
+	public List<String> readStringList() throws IOException {
+		return readStrings(new ArrayList<String>());
+	}
+
+	private <C extends Collection<String>> C readStrings(C values) throws IOException {
+		int size = readVarInt() - 1;
+		if (size < 0) {
+			return null;
+		}
+		for (int i = 0; i < size; i++) {
+			values.add(readString());
+		}
+		return values;
+	}
+
+	public Long[] readLongs() throws IOException {
+		int size = readVarInt() - 1;
+		if (size < 0) {
+			return null;
+		}
+		Long[] values = new Long[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = readLong();
+		}
+		return values;
+	}
+
+	public <T> T readJson(Class<T> clazz) throws IOException {
+		String json = readString();
+		if (json == null) {
+			return null;
+		}
+		return JSON.parseObject(json, clazz, AUTO_TYPE_FILTER);
+	}
+}
@@ -0,0 +1,123 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+
+/**
+ * 二进制输出，所有引用类型均可为空
+ *
+ * @author angryred
+ */
+public class BinaryWriter {
+	private final ByteArrayOutputStream buffer;
+
+	private final DataOutputStream out;
+
+	public BinaryWriter(int initialSize) {
+		this.buffer = new ByteArrayOutputStream(initialSize);
+		this.out = new DataOutputStream(buffer);
+	}
+
+	public void writeByte(int value) throws IOException {
+		out.writeByte(value);
+	}
+
+	public void writeBoolean(boolean value) throws IOException {
+		out.writeBoolean(value);
+	}
+
+	/**
+	 * 变长整数，小数值只占一个字节
+	 */
+	public void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * 变长长整数（zigzag），可为空
+	 */
+	public void writeLong(Long value) throws IOException {
+		if (value == null) {
+			out.writeByte(0);
+			return;
+		}
+		out.writeByte(1);
+		long v = (value << 1) ^ (value >> 63);
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.writeByte((int) v);
+	}
+
+	public void writeInteger(Integer value) throws IOException {
+		writeLong(value == null ? null : value.longValue());
+	}
+
+	public void writeDate(Date value) throws IOException {
+		writeLong(value == null ? null : value.getTime());
+	}
+
+	/**
+	 * 字符串，长度加一后写入，0 表示空
+	 */
+	public void writeString(String value) throws IOException {
+		if (value == null) {
+			writeVarInt(0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length + 1);
+		out.write(bytes);
+	}
+
+	public void writeStrings(Collection<String> values) throws IOException {
+		if (values == null) {
+			writeVarInt(0);
+			return;
+		}
+		writeVarInt(values.size() + 1);
+		for (String value : values) {
+			writeString(value);
+		}
+	}
+
+	public void writeLongs(Long[] values) throws IOException {
+		if (values == null) {
+			writeVarInt(0);
+			return;
+		}
+		writeVarInt(values.length + 1);
+		for (Long value : values) {
+			writeLong(value);
+		}
+	}
+
+	/**
+	 * 无固定结构的对象，以带类型信息的JSON嵌入
+	 */
+	public void writeJson(Object value) throws IOException {
+		if (value == null || (value instanceof Map && ((Map<?, ?>) value).isEmpty())) {
+			writeString(null);
+			return;
+		}
+		writeString(JSON.toJSONString(value, JSONWriter.Feature.WriteClassName));
+	}
+
+	public byte[] toByteArray() throws IOException {
+		out.flush();
+		return buffer.toByteArray();
+	}
+}
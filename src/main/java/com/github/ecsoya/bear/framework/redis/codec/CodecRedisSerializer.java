@@ -0,0 +1,331 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.github.ecsoya.bear.framework.config.FastJson2JsonRedisSerializer;
+
+/**
+ * 可插拔的Redis值序列化：热点类型使用带版本的二进制格式，其余类型使用JSON；
+ * 读取时根据数据头自动识别，兼容升级前写入的JSON数据
+ *
+ * <pre>
+ * 二进制格式：MAGIC(1) | 格式版本(1) | 类型(1) | 类型版本(1) | 标志(1) | [原始长度(varint)] | 数据
+ * </pre>
+ *
+ * @author angryred
+ */
+public class CodecRedisSerializer implements RedisSerializer<Object> {
+	/** 数据头标识，UTF-8 编码的JSON不可能以该字节开头 */
+	private static final byte MAGIC = (byte) 0xB7;
+
+	private static final byte FORMAT_VERSION = 1;
+
+	/** 以JSON作为数据体的类型标识（仅在压缩时使用数据头） */
+	private static final byte TYPE_JSON = 0;
+
+	private static final byte FLAG_DEFLATE = 1;
+
+	private static final int HEADER_LENGTH = 5;
+
+	/** 每隔多少次二进制编码与JSON对比一次 */
+	private static final int SAMPLE_INTERVAL = 64;
+
+	private final FastJson2JsonRedisSerializer<Object> jsonSerializer = new FastJson2JsonRedisSerializer<Object>(
+			Object.class);
+
+	private final List<RedisCodec<?>> codecs = new ArrayList<RedisCodec<?>>();
+
+	private final RedisCodec<?>[] codecsByType = new RedisCodec<?>[128];
+
+	private final boolean binaryEnabled;
+
+	private final int compressThreshold;
+
+	private final Stats stats = new Stats();
+
+	/**
+	 * @param binaryEnabled     是否以二进制格式写入（读取始终兼容两种格式）
+	 * @param compressThreshold 超过该字节数时压缩，小于等于0表示不压缩
+	 */
+	public CodecRedisSerializer(boolean binaryEnabled, int compressThreshold) {
+		this.binaryEnabled = binaryEnabled;
+		this.compressThreshold = compressThreshold;
+	}
+
+	/**
+	 * 注册编解码器
+	 *
+	 * @param codec 编解码器
+	 * @return 当前序列化器
+	 */
+	public CodecRedisSerializer register(RedisCodec<?> codec) {
+		if (codec.type() <= TYPE_JSON || codecsByType[codec.type()] != null) {
+			throw new IllegalArgumentException("Duplicate or invalid codec type: " + codec.type());
+		}
+		codecs.add(codec);
+		codecsByType[codec.type()] = codec;
+		return this;
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public byte[] serialize(Object value) throws SerializationException {
+		if (value == null) {
+			return new byte[0];
+		}
+		long start = System.nanoTime();
+		RedisCodec codec = binaryEnabled ? findCodec(value) : null;
+		byte[] payload;
+		try {
+			if (codec != null) {
+				BinaryWriter writer = new BinaryWriter(256);
+				codec.write(value, writer);
+				payload = writer.toByteArray();
+			} else {
+				payload = jsonSerializer.serialize(value);
+			}
+		} catch (Exception e) {
+			throw new SerializationException("Could not encode value: " + e.getMessage(), e);
+		}
+		byte[] compressed = compressThreshold > 0 && payload.length > compressThreshold ? deflate(payload) : null;
+		byte[] result;
+		if (codec == null && compressed == null) {
+			result = payload;
+		} else {
+			byte type = codec == null ? TYPE_JSON : codec.type();
+			byte version = codec == null ? 0 : codec.version();
+			result = compressed != null ? withHeader(type, version, FLAG_DEFLATE, payload.length, compressed)
+					: withHeader(type, version, (byte) 0, -1, payload);
+		}
+		long elapsed = System.nanoTime() - start;
+		stats.record(codec != null, compressed != null, payload.length, result.length, elapsed);
+		if (codec != null && stats.binaryWrites.sum() % SAMPLE_INTERVAL == 1) {
+			long jsonStart = System.nanoTime();
+			byte[] json = jsonSerializer.serialize(value);
+			stats.sample(json.length, System.nanoTime() - jsonStart, result.length, elapsed);
+		}
+		return result;
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) throws SerializationException {
+		if (bytes == null || bytes.length <= 0) {
+			return null;
+		}
+		long start = System.nanoTime();
+		try {
+			if (bytes[0] != MAGIC) {
+				return jsonSerializer.deserialize(bytes);
+			}
+			if (bytes.length < HEADER_LENGTH || bytes[1] > FORMAT_VERSION) {
+				throw new SerializationException("Unsupported redis value format");
+			}
+			byte type = bytes[2];
+			byte version = bytes[3];
+			byte flags = bytes[4];
+			byte[] data = bytes;
+			int offset = HEADER_LENGTH;
+			if ((flags & FLAG_DEFLATE) != 0) {
+				BinaryReader lengthReader = new BinaryReader(bytes, HEADER_LENGTH);
+				int length = lengthReader.readVarInt();
+				offset = HEADER_LENGTH + varIntSize(length);
+				data = inflate(bytes, offset, length);
+				offset = 0;
+			}
+			if (type == TYPE_JSON) {
+				byte[] json = data;
+				if (offset > 0) {
+					json = new byte[data.length - offset];
+					System.arraycopy(data, offset, json, 0, json.length);
+				}
+				return jsonSerializer.deserialize(json);
+			}
+			RedisCodec<?> codec = type > 0 ? codecsByType[type] : null;
+			if (codec == null) {
+				throw new SerializationException("Unknown redis value type: " + type);
+			}
+			if (version > codec.version()) {
+				throw new SerializationException("Unsupported version " + version + " of redis value type " + type);
+			}
+			return codec.read(new BinaryReader(data, offset), version);
+		} catch (SerializationException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SerializationException("Could not decode value: " + e.getMessage(), e);
+		} finally {
+			stats.decodeNanos.add(System.nanoTime() - start);
+			stats.reads.increment();
+		}
+	}
+
+	/**
+	 * 编解码统计信息，包含与JSON的抽样对比
+	 */
+	public Map<String, Object> getStats() {
+		return stats.toMap();
+	}
+
+	private RedisCodec<?> findCodec(Object value) {
+		for (RedisCodec<?> codec : codecs) {
+			if (codec.supports(value)) {
+				return codec;
+			}
+		}
+		return null;
+	}
+
+	private byte[] withHeader(byte type, byte version, byte flags, int originalLength, byte[] payload) {
+		int lengthSize = originalLength >= 0 ? varIntSize(originalLength) : 0;
+		byte[] result = new byte[HEADER_LENGTH + lengthSize + payload.length];
+		result[0] = MAGIC;
+		result[1] = FORMAT_VERSION;
+		result[2] = type;
+		result[3] = version;
+		result[4] = flags;
+		int position = HEADER_LENGTH;
+		if (originalLength >= 0) {
+			int value = originalLength;
+			while ((value & ~0x7F) != 0) {
+				result[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			result[position++] = (byte) value;
+		}
+		System.arraycopy(payload, 0, result, position, payload.length);
+		return result;
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * 压缩，压缩后不比原始数据小时返回空
+	 */
+	private byte[] deflate(byte[] payload) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(payload);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+			byte[] buffer = new byte[4096];
+			while (!deflater.finished()) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+				if (out.size() >= payload.length) {
+					return null;
+				}
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private byte[] inflate(byte[] bytes, int offset, int length) throws DataFormatException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(bytes, offset, bytes.length - offset);
+			byte[] result = new byte[length];
+			int read = 0;
+			while (read < length && !inflater.finished()) {
+				int n = inflater.inflate(result, read, length - read);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				read += n;
+			}
+			if (read != length) {
+				throw new DataFormatException("Corrupted compressed redis value");
+			}
+			return result;
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static class Stats {
+		private final LongAdder writes = new LongAdder();
+
+		private final LongAdder binaryWrites = new LongAdder();
+
+		private final LongAdder compressedWrites = new LongAdder();
+
+		private final LongAdder rawBytes = new LongAdder();
+
+		private final LongAdder writtenBytes = new LongAdder();
+
+		private final LongAdder encodeNanos = new LongAdder();
+
+		private final LongAdder reads = new LongAdder();
+
+		private final LongAdder decodeNanos = new LongAdder();
+
+		private final LongAdder samples = new LongAdder();
+
+		private final LongAdder sampleJsonBytes = new LongAdder();
+
+		private final LongAdder sampleJsonNanos = new LongAdder();
+
+		private final LongAdder sampleBinaryBytes = new LongAdder();
+
+		private final LongAdder sampleBinaryNanos = new LongAdder();
+
+		void record(boolean binary, boolean compressed, int raw, int written, long nanos) {
+			writes.increment();
+			if (binary) {
+				binaryWrites.increment();
+			}
+			if (compressed) {
+				compressedWrites.increment();
+			}
+			rawBytes.add(raw);
+			writtenBytes.add(written);
+			encodeNanos.add(nanos);
+		}
+
+		void sample(int jsonBytes, long jsonNanos, int binaryBytes, long binaryNanos) {
+			samples.increment();
+			sampleJsonBytes.add(jsonBytes);
+			sampleJsonNanos.add(jsonNanos);
+			sampleBinaryBytes.add(binaryBytes);
+			sampleBinaryNanos.add(binaryNanos);
+		}
+
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			map.put("writes", writes.sum());
+			map.put("binaryWrites", binaryWrites.sum());
+			map.put("compressedWrites", compressedWrites.sum());
+			map.put("rawBytes", rawBytes.sum());
+			map.put("writtenBytes", writtenBytes.sum());
+			map.put("encodeNanos", encodeNanos.sum());
+			map.put("reads", reads.sum());
+			map.put("decodeNanos", decodeNanos.sum());
+			long sampleCount = samples.sum();
+			map.put("samples", sampleCount);
+			if (sampleCount > 0) {
+				map.put("avgJsonBytes", sampleJsonBytes.sum() / sampleCount);
+				map.put("avgBinaryBytes", sampleBinaryBytes.sum() / sampleCount);
+				map.put("avgJsonEncodeNanos", sampleJsonNanos.sum() / sampleCount);
+				map.put("avgBinaryEncodeNanos", sampleBinaryNanos.sum() / sampleCount);
+			}
+			return map;
+		}
+	}
+}
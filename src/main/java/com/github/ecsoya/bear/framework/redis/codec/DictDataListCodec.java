@@ -0,0 +1,77 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.ecsoya.bear.project.system.domain.SysDictData;
+
+/**
+ * 字典数据列表编解码
+ *
+ * @author angryred
+ */
+public class DictDataListCodec extends AbstractEntityCodec<List<SysDictData>> {
+	public static final byte TYPE = 3;
+
+	@Override
+	public byte type() {
+		return TYPE;
+	}
+
+	@Override
+	public byte version() {
+		return 1;
+	}
+
+	@Override
+	public boolean supports(Object value) {
+		if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+			return false;
+		}
+		for (Object item : (List<?>) value) {
+			if (!(item instanceof SysDictData)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void write(List<SysDictData> value, BinaryWriter writer) throws IOException {
+		writer.writeVarInt(value.size());
+		for (SysDictData data : value) {
+			writer.writeLong(data.getDictCode());
+			writer.writeLong(data.getDictSort());
+			writer.writeString(data.getDictLabel());
+			writer.writeString(data.getDictValue());
+			writer.writeString(data.getDictType());
+			writer.writeString(data.getCssClass());
+			writer.writeString(data.getListClass());
+			writer.writeString(data.getIsDefault());
+			writer.writeString(data.getStatus());
+			writeBaseEntity(data, writer);
+		}
+	}
+
+	@Override
+	public List<SysDictData> read(BinaryReader reader, byte version) throws IOException {
+		int size = reader.readVarInt();
+		List<SysDictData> list = new ArrayList<SysDictData>(size);
+		for (int i = 0; i < size; i++) {
+			SysDictData data = new SysDictData();
+			data.setDictCode(reader.readLong());
+			data.setDictSort(reader.readLong());
+			data.setDictLabel(reader.readString());
+			data.setDictValue(reader.readString());
+			data.setDictType(reader.readString());
+			data.setCssClass(reader.readString());
+			data.setListClass(reader.readString());
+			data.setIsDefault(reader.readString());
+			data.setStatus(reader.readString());
+			readBaseEntity(data, reader);
+			list.add(data);
+		}
+		return list;
+	}
+}
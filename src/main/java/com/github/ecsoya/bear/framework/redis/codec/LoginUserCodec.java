@@ -0,0 +1,229 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.ecsoya.bear.framework.security.LoginUser;
+import com.github.ecsoya.bear.project.system.domain.SysDept;
+import com.github.ecsoya.bear.project.system.domain.SysRole;
+import com.github.ecsoya.bear.project.system.domain.SysUser;
+
+/**
+ * 登录用户编解码，包含用户、部门、角色完整对象图
+ *
+ * @author angryred
+ */
+public class LoginUserCodec extends AbstractEntityCodec<LoginUser> {
+	public static final byte TYPE = 2;
+
+	@Override
+	public byte type() {
+		return TYPE;
+	}
+
+	@Override
+	public byte version() {
+		return 1;
+	}
+
+	@Override
+	public boolean supports(Object value) {
+		return value != null && value.getClass() == LoginUser.class;
+	}
+
+	@Override
+	public void write(LoginUser value, BinaryWriter writer) throws IOException {
+		writer.writeLong(value.getUserId());
+		writer.writeLong(value.getDeptId());
+		writer.writeString(value.getToken());
+		writer.writeLong(value.getLoginTime());
+		writer.writeLong(value.getExpireTime());
+		writer.writeString(value.getIpaddr());
+		writer.writeString(value.getLoginLocation());
+		writer.writeString(value.getBrowser());
+		writer.writeString(value.getOs());
+		writer.writeStrings(value.getPermissions());
+		writeUser(value.getUser(), writer);
+		writer.writeJson(value.getData());
+	}
+
+	@Override
+	public LoginUser read(BinaryReader reader, byte version) throws IOException {
+		LoginUser value = new LoginUser();
+		value.setUserId(reader.readLong());
+		value.setDeptId(reader.readLong());
+		value.setToken(reader.readString());
+		value.setLoginTime(reader.readLong());
+		value.setExpireTime(reader.readLong());
+		value.setIpaddr(reader.readString());
+		value.setLoginLocation(reader.readString());
+		value.setBrowser(reader.readString());
+		value.setOs(reader.readString());
+		value.setPermissions(reader.readStringSet());
+		value.setUser(readUser(reader));
+		value.setData(reader.readJson(Object.class));
+		return value;
+	}
+
+	private void writeUser(SysUser user, BinaryWriter writer) throws IOException {
+		writer.writeBoolean(user != null);
+		if (user == null) {
+			return;
+		}
+		writer.writeLong(user.getUserId());
+		writer.writeLong(user.getDeptId());
+		writer.writeString(user.getUserName());
+		writer.writeString(user.getNickName());
+		writer.writeString(user.getEmail());
+		writer.writeString(user.getPhonenumber());
+		writer.writeString(user.getSex());
+		writer.writeString(user.getAvatar());
+		writer.writeString(user.getPassword());
+		writer.writeString(user.getStatus());
+		writer.writeString(user.getDelFlag());
+		writer.writeString(user.getLoginIp());
+		writer.writeDate(user.getLoginDate());
+		writeDept(user.getDept(), writer);
+		List<SysRole> roles = user.getRoles();
+		writer.writeVarInt(roles == null ? 0 : roles.size() + 1);
+		if (roles != null) {
+			for (SysRole role : roles) {
+				writeRole(role, writer);
+			}
+		}
+		writer.writeLongs(user.getRoleIds());
+		writer.writeLongs(user.getPostIds());
+		writer.writeLong(user.getRoleId());
+		writer.writeString(user.getUserType());
+		writeBaseEntity(user, writer);
+	}
+
+	private SysUser readUser(BinaryReader reader) throws IOException {
+		if (!reader.readBoolean()) {
+			return null;
+		}
+		SysUser user = new SysUser();
+		user.setUserId(reader.readLong());
+		user.setDeptId(reader.readLong());
+		user.setUserName(reader.readString());
+		user.setNickName(reader.readString());
+		user.setEmail(reader.readString());
+		user.setPhonenumber(reader.readString());
+		user.setSex(reader.readString());
+		user.setAvatar(reader.readString());
+		user.setPassword(reader.readString());
+		user.setStatus(reader.readString());
+		user.setDelFlag(reader.readString());
+		user.setLoginIp(reader.readString());
+		user.setLoginDate(reader.readDate());
+		user.setDept(readDept(reader));
+		int roleCount = reader.readVarInt() - 1;
+		if (roleCount >= 0) {
+			List<SysRole> roles = new ArrayList<SysRole>(roleCount);
+			for (int i = 0; i < roleCount; i++) {
+				roles.add(readRole(reader));
+			}
+			user.setRoles(roles);
+		}
+		user.setRoleIds(reader.readLongs());
+		user.setPostIds(reader.readLongs());
+		user.setRoleId(reader.readLong());
+		user.setUserType(reader.readString());
+		readBaseEntity(user, reader);
+		return user;
+	}
+
+	private void writeDept(SysDept dept, BinaryWriter writer) throws IOException {
+		writer.writeBoolean(dept != null);
+		if (dept == null) {
+			return;
+		}
+		writer.writeLong(dept.getDeptId());
+		writer.writeLong(dept.getParentId());
+		writer.writeString(dept.getAncestors());
+		writer.writeString(dept.getDeptName());
+		writer.writeInteger(dept.getOrderNum());
+		writer.writeString(dept.getLeader());
+		writer.writeString(dept.getPhone());
+		writer.writeString(dept.getEmail());
+		writer.writeString(dept.getStatus());
+		writer.writeString(dept.getDelFlag());
+		writer.writeString(dept.getParentName());
+		List<SysDept> children = dept.getChildren();
+		writer.writeVarInt(children == null ? 0 : children.size());
+		if (children != null) {
+			for (SysDept child : children) {
+				writeDept(child, writer);
+			}
+		}
+		writeBaseEntity(dept, writer);
+	}
+
+	private SysDept readDept(BinaryReader reader) throws IOException {
+		if (!reader.readBoolean()) {
+			return null;
+		}
+		SysDept dept = new SysDept();
+		dept.setDeptId(reader.readLong());
+		dept.setParentId(reader.readLong());
+		dept.setAncestors(reader.readString());
+		dept.setDeptName(reader.readString());
+		dept.setOrderNum(reader.readInteger());
+		dept.setLeader(reader.readString());
+		dept.setPhone(reader.readString());
+		dept.setEmail(reader.readString());
+		dept.setStatus(reader.readString());
+		dept.setDelFlag(reader.readString());
+		dept.setParentName(reader.readString());
+		int childCount = reader.readVarInt();
+		for (int i = 0; i < childCount; i++) {
+			dept.getChildren().add(readDept(reader));
+		}
+		readBaseEntity(dept, reader);
+		return dept;
+	}
+
+	private void writeRole(SysRole role, BinaryWriter writer) throws IOException {
+		writer.writeBoolean(role != null);
+		if (role == null) {
+			return;
+		}
+		writer.writeLong(role.getRoleId());
+		writer.writeString(role.getRoleName());
+		writer.writeString(role.getRoleKey());
+		writer.writeInteger(role.getRoleSort());
+		writer.writeString(role.getDataScope());
+		writer.writeBoolean(role.isMenuCheckStrictly());
+		writer.writeBoolean(role.isDeptCheckStrictly());
+		writer.writeString(role.getStatus());
+		writer.writeString(role.getDelFlag());
+		writer.writeBoolean(role.isFlag());
+		writer.writeLongs(role.getMenuIds());
+		writer.writeLongs(role.getDeptIds());
+		writer.writeStrings(role.getPermissions());
+		writeBaseEntity(role, writer);
+	}
+
+	private SysRole readRole(BinaryReader reader) throws IOException {
+		if (!reader.readBoolean()) {
+			return null;
+		}
+		SysRole role = new SysRole();
+		role.setRoleId(reader.readLong());
+		role.setRoleName(reader.readString());
+		role.setRoleKey(reader.readString());
+		role.setRoleSort(reader.readInteger());
+		role.setDataScope(reader.readString());
+		role.setMenuCheckStrictly(reader.readBoolean());
+		role.setDeptCheckStrictly(reader.readBoolean());
+		role.setStatus(reader.readString());
+		role.setDelFlag(reader.readString());
+		role.setFlag(reader.readBoolean());
+		role.setMenuIds(reader.readLongs());
+		role.setDeptIds(reader.readLongs());
+		role.setPermissions(reader.readStringSet());
+		readBaseEntity(role, reader);
+		return role;
+	}
+}
@@ -0,0 +1,45 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.IOException;
+
+/**
+ * Redis值的二进制编解码器，每种热点类型对应一个实现
+ *
+ * @author angryred
+ */
+public interface RedisCodec<T> {
+	/**
+	 * 类型标识，写入数据头，全局唯一且不可变更
+	 */
+	public byte type();
+
+	/**
+	 * 当前格式版本，格式变化时递增，读取时需兼容旧版本
+	 */
+	public byte version();
+
+	/**
+	 * 是否支持该对象
+	 *
+	 * @param value 待编码对象
+	 * @return 结果
+	 */
+	public boolean supports(Object value);
+
+	/**
+	 * 编码
+	 *
+	 * @param value  对象
+	 * @param writer 输出
+	 */
+	public void write(T value, BinaryWriter writer) throws IOException;
+
+	/**
+	 * 解码
+	 *
+	 * @param reader  输入
+	 * @param version 数据写入时的格式版本
+	 * @return 对象
+	 */
+	public T read(BinaryReader reader, byte version) throws IOException;
+}
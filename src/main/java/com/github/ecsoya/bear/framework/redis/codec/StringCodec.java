@@ -0,0 +1,37 @@
+package com.github.ecsoya.bear.framework.redis.codec;
+
+import java.io.IOException;
+
+/**
+ * 字符串编解码（参数配置值、验证码等）
+ *
+ * @author angryred
+ */
+public class StringCodec implements RedisCodec<String> {
+	public static final byte TYPE = 1;
+
+	@Override
+	public byte type() {
+		return TYPE;
+	}
+
+	@Override
+	public byte version() {
+		return 1;
+	}
+
+	@Override
+	public boolean supports(Object value) {
+		return value instanceof String;
+	}
+
+	@Override
+	public void write(String value, BinaryWriter writer) throws IOException {
+		writer.writeString(value);
+	}
+
+	@Override
+	public String read(BinaryReader reader, byte version) throws IOException {
+		return reader.readString();
+	}
+}
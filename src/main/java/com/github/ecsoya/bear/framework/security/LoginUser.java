@@ -1,6 +1,7 @@
 package com.github.ecsoya.bear.framework.security;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
@@ -8,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.alibaba.fastjson2.annotation.JSONField;
+import com.github.ecsoya.bear.project.system.domain.SysRole;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
 
 /**
@@ -76,6 +78,16 @@ public class LoginUser implements UserDetails {
 	// 其他信息
 	private Object data;
 
+	/**
+	 * 权限位图，由权限列表编译，不参与序列化
+	 */
+	private transient volatile long[] permissionBits;
+
+	/**
+	 * 角色位图，由角色列表编译，不参与序列化
+	 */
+	private transient volatile long[] roleBits;
+
 	public LoginUser() {
 	}
 
@@ -222,6 +234,39 @@ public class LoginUser implements UserDetails {
 
 	public void setPermissions(Set<String> permissions) {
 		this.permissions = permissions;
+		this.permissionBits = null;
+	}
+
+	/**
+	 * 权限位图，首次使用时编译
+	 */
+	@JSONField(serialize = false)
+	public long[] getPermissionBits() {
+		long[] bits = permissionBits;
+		if (bits == null) {
+			bits = PermissionDictionary.PERMISSIONS.encode(permissions);
+			permissionBits = bits;
+		}
+		return bits;
+	}
+
+	/**
+	 * 角色位图，首次使用时编译
+	 */
+	@JSONField(serialize = false)
+	public long[] getRoleBits() {
+		long[] bits = roleBits;
+		if (bits == null) {
+			Set<String> roleKeys = new HashSet<String>();
+			if (user != null && user.getRoles() != null) {
+				for (SysRole role : user.getRoles()) {
+					roleKeys.add(role.getRoleKey());
+				}
+			}
+			bits = PermissionDictionary.ROLES.encode(roleKeys);
+			roleBits = bits;
+		}
+		return bits;
 	}
 
 	public SysUser getUser() {
@@ -230,6 +275,7 @@ public class LoginUser implements UserDetails {
 
 	public void setUser(SysUser user) {
 		this.user = user;
+		this.roleBits = null;
 	}
 
 	@Override
@@ -0,0 +1,252 @@
+package com.github.ecsoya.bear.framework.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.ecsoya.bear.common.utils.StringUtils;
+
+/**
+ * 权限字典，将权限（角色）标识映射为全局整数编号，用户的授权以位图保存
+ * 
+ * <pre>
+ * 含有通配段的授权（如 system:user:*）登记到前缀树中，
+ * 校验时待校验标识编译为“能满足它的所有授权编号”的位图，
+ * 与用户授权位图按字求与即可得出结果
+ * </pre>
+ * 
+ * @author angryred
+ */
+public class PermissionDictionary {
+	/** 权限标识字典 */
+	public static final PermissionDictionary PERMISSIONS = new PermissionDictionary(true);
+
+	/** 角色标识字典 */
+	public static final PermissionDictionary ROLES = new PermissionDictionary(false);
+
+	/** 所有权限标识 */
+	public static final String ALL_PERMISSION = "*:*:*";
+
+	private static final String WILDCARD = "*";
+
+	private static final String SEGMENT_DELIMETER = ":";
+
+	private static final long[] EMPTY = new long[0];
+
+	private final boolean wildcard;
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	private final Node root = new Node();
+
+	/** 已登记的标识个数，即下一个编号 */
+	private volatile int nextId;
+
+	/** 通配授权的版本，新增通配授权时递增，已编译的校验位图随之失效 */
+	private volatile int version;
+
+	/** 全部权限标识的编号，未登记时为-1 */
+	private volatile int allId = -1;
+
+	private PermissionDictionary(boolean wildcard) {
+		this.wildcard = wildcard;
+	}
+
+	/**
+	 * 获取授权标识编号，不存在时分配新编号；只用于授权，待校验的标识不登记
+	 * 
+	 * @param key 权限（角色）标识
+	 * @return 编号
+	 */
+	public int intern(String key) {
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+		synchronized (this) {
+			id = ids.get(key);
+			if (id != null) {
+				return id;
+			}
+			id = nextId;
+			boolean wildcardKey = wildcard && key.contains(WILDCARD);
+			if (wildcard && ALL_PERMISSION.equals(key)) {
+				allId = id;
+			} else if (wildcardKey) {
+				root.insert(key.split(SEGMENT_DELIMETER), 0, id);
+			}
+			ids.put(key, id);
+			// 登记完成后再更新个数和版本，编译时先读取两者，读到新值时登记的内容已可见
+			nextId = id + 1;
+			if (wildcardKey) {
+				version++;
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * 将授权集合编码为位图
+	 * 
+	 * @param keys 权限（角色）标识集合
+	 * @return 位图
+	 */
+	public long[] encode(Collection<String> keys) {
+		if (keys == null || keys.isEmpty()) {
+			return EMPTY;
+		}
+		long[] bits = EMPTY;
+		for (String key : keys) {
+			if (StringUtils.isNotEmpty(key)) {
+				bits = set(bits, intern(StringUtils.trim(key)));
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * 编译待校验的单个标识，按整个标识匹配
+	 * 
+	 * @param key 待校验标识
+	 * @return 能满足该标识的授权位图
+	 */
+	public Compiled compile(String key) {
+		return compile(new String[] { key });
+	}
+
+	/**
+	 * 编译待校验的标识，多个标识以分隔符连接时取并集
+	 * 
+	 * @param expression 待校验标识
+	 * @param delimeter  分隔符
+	 * @return 能满足任一标识的授权位图
+	 */
+	public Compiled compile(String expression, String delimeter) {
+		return compile(expression.split(delimeter));
+	}
+
+	private Compiled compile(String[] keys) {
+		int currentVersion = version;
+		int currentSize = nextId;
+		boolean complete = true;
+		long[] bits = EMPTY;
+		for (String key : keys) {
+			key = StringUtils.trim(key);
+			if (StringUtils.isEmpty(key)) {
+				continue;
+			}
+			// 只查找已登记的授权，尚未有人被授予的标识不占用编号
+			Integer exact = ids.get(key);
+			if (exact != null) {
+				bits = set(bits, exact);
+			} else {
+				complete = false;
+			}
+			if (wildcard) {
+				List<Integer> matched = new ArrayList<Integer>();
+				synchronized (this) {
+					root.match(key.split(SEGMENT_DELIMETER), 0, matched);
+				}
+				for (Integer id : matched) {
+					bits = set(bits, id);
+				}
+			}
+		}
+		if (allId >= 0) {
+			bits = set(bits, allId);
+		}
+		return new Compiled(bits, currentVersion, complete ? -1 : currentSize);
+	}
+
+	/**
+	 * 已编译的校验位图是否仍然有效：没有新增通配授权，且编译时未登记的标识此后仍未登记
+	 */
+	public boolean isCurrent(Compiled compiled) {
+		return compiled.version == version && (compiled.size < 0 || compiled.size == nextId);
+	}
+
+	/**
+	 * 两个位图是否有交集
+	 */
+	public static boolean intersects(long[] granted, long[] required) {
+		int length = Math.min(granted.length, required.length);
+		for (int i = 0; i < length; i++) {
+			if ((granted[i] & required[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long[] set(long[] bits, int id) {
+		int word = id >>> 6;
+		if (word >= bits.length) {
+			long[] grown = new long[word + 1];
+			System.arraycopy(bits, 0, grown, 0, bits.length);
+			bits = grown;
+		}
+		bits[word] |= 1L << id;
+		return bits;
+	}
+
+	/**
+	 * 编译后的校验位图
+	 */
+	public static final class Compiled {
+		private final long[] bits;
+
+		private final int version;
+
+		/** 编译时的标识个数，所有标识均已登记时为-1 */
+		private final int size;
+
+		private Compiled(long[] bits, int version, int size) {
+			this.bits = bits;
+			this.version = version;
+			this.size = size;
+		}
+
+		public long[] getBits() {
+			return bits;
+		}
+	}
+
+	/**
+	 * 通配授权前缀树，按“:”分段，“*”匹配任意一段，末尾的“*”匹配剩余所有段
+	 */
+	private static final class Node {
+		private final Map<String, Node> children = new ConcurrentHashMap<String, Node>();
+
+		private int id = -1;
+
+		private void insert(String[] segments, int index, int value) {
+			if (index == segments.length) {
+				id = value;
+				return;
+			}
+			children.computeIfAbsent(segments[index], k -> new Node()).insert(segments, index + 1, value);
+		}
+
+		private void match(String[] segments, int index, List<Integer> matched) {
+			if (index == segments.length) {
+				if (id >= 0) {
+					matched.add(id);
+				}
+				return;
+			}
+			Node exact = children.get(segments[index]);
+			if (exact != null) {
+				exact.match(segments, index + 1, matched);
+			}
+			Node any = children.get(WILDCARD);
+			if (any != null && !WILDCARD.equals(segments[index])) {
+				any.match(segments, index + 1, matched);
+				if (any.id >= 0 && index + 1 < segments.length) {
+					matched.add(any.id);
+				}
+			}
+		}
+	}
+}
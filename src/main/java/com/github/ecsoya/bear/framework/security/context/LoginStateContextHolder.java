@@ -0,0 +1,54 @@
+package com.github.ecsoya.bear.framework.security.context;
+
+/**
+ * 登录前置状态（验证码、密码错误次数、锁定次数），由登录脚本一次读取后在本次登录中复用
+ * 
+ * @author angryred
+ */
+public class LoginStateContextHolder {
+	private static final ThreadLocal<LoginState> contextHolder = new ThreadLocal<>();
+
+	public static LoginState getContext() {
+		return contextHolder.get();
+	}
+
+	public static void setContext(LoginState context) {
+		contextHolder.set(context);
+	}
+
+	public static void clearContext() {
+		contextHolder.remove();
+	}
+
+	/**
+	 * 登录前置状态
+	 */
+	public static class LoginState {
+		/** 验证码，已从缓存中删除 */
+		private final String captcha;
+
+		/** 密码错误次数 */
+		private final Integer retryCount;
+
+		/** 锁定次数 */
+		private final Integer blockedCount;
+
+		public LoginState(String captcha, Integer retryCount, Integer blockedCount) {
+			this.captcha = captcha;
+			this.retryCount = retryCount;
+			this.blockedCount = blockedCount;
+		}
+
+		public String getCaptcha() {
+			return captcha;
+		}
+
+		public Integer getRetryCount() {
+			return retryCount;
+		}
+
+		public Integer getBlockedCount() {
+			return blockedCount;
+		}
+	}
+}
@@ -11,9 +11,9 @@ import com.alibaba.fastjson2.JSON;
 import com.github.ecsoya.bear.common.constant.Constants;
 import com.github.ecsoya.bear.common.utils.ServletUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.cache.ICache;
 import com.github.ecsoya.bear.framework.manager.AsyncManager;
 import com.github.ecsoya.bear.framework.manager.factory.AsyncFactory;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
 import com.github.ecsoya.bear.framework.security.LoginUser;
 import com.github.ecsoya.bear.framework.security.service.TokenService;
 import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
@@ -32,7 +32,7 @@ public class LogoutSuccessHandlerImpl implements LogoutSuccessHandler {
 	@Autowired
 	private TokenService tokenService;
 	@Autowired
-	private RedisCache redisCache;
+	private ICache redisCache;
 
 	/**
 	 * 退出处理
@@ -0,0 +1,114 @@
+package com.github.ecsoya.bear.framework.security.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 编译后的数据权限条件，按角色、权限字符和别名缓存，所有用户共享；用户和部门ID以参数绑定，不参与缓存键
+ * 
+ * @author angryred
+ */
+@Component
+public class DataScopeCache {
+	/** 缓存的条件个数上限，超过时清空 */
+	private static final int MAX_SIZE = 1024;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	private final Map<String, Predicate> predicates = new ConcurrentHashMap<String, Predicate>();
+
+	/** 失效次数，编译期间发生失效时不保存编译结果 */
+	private final AtomicLong generation = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		cacheBroadcaster.subscribe(CacheConstants.DATA_SCOPE_CHANNEL, message -> clear());
+	}
+
+	/**
+	 * 获取编译后的条件，未缓存时编译
+	 * 
+	 * @param key      缓存键
+	 * @param compiler 编译
+	 * @return 条件
+	 */
+	public Predicate get(String key, Supplier<Predicate> compiler) {
+		Predicate predicate = predicates.get(key);
+		if (predicate != null) {
+			return predicate;
+		}
+		long compiling = generation.get();
+		predicate = compiler.get();
+		if (predicates.size() >= MAX_SIZE) {
+			predicates.clear();
+		}
+		predicates.put(key, predicate);
+		if (generation.get() != compiling) {
+			predicates.remove(key, predicate);
+		}
+		return predicate;
+	}
+
+	/**
+	 * 角色、角色部门关联或菜单变更后使条件失效，存在事务时在提交后执行并通知其他节点
+	 */
+	public void invalidate() {
+		clear();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					clear();
+					cacheBroadcaster.publish(CacheConstants.DATA_SCOPE_CHANNEL, "");
+				}
+			});
+		} else {
+			cacheBroadcaster.publish(CacheConstants.DATA_SCOPE_CHANNEL, "");
+		}
+	}
+
+	private void clear() {
+		generation.incrementAndGet();
+		predicates.clear();
+	}
+
+	/**
+	 * 数据权限条件：以 #{params.xxx} 引用参数的SQL片段，及自定数据权限的角色ID
+	 */
+	public static class Predicate {
+		/** 不过滤数据 */
+		public static final Predicate NONE = new Predicate("", Collections.emptyList());
+
+		private final String sql;
+
+		private final List<Long> roleIds;
+
+		public Predicate(String sql, List<Long> roleIds) {
+			this.sql = sql;
+			this.roleIds = Collections.unmodifiableList(roleIds);
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		public List<Long> getRoleIds() {
+			return roleIds;
+		}
+	}
+}
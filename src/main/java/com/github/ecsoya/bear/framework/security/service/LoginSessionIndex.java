@@ -0,0 +1,283 @@
+package com.github.ecsoya.bear.framework.security.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.cache.ICache;
+import com.github.ecsoya.bear.framework.security.LoginUser;
+
+/**
+ * 在线会话索引：以过期时间为分数的令牌有序集合、每个用户的令牌有序集合，以及每个令牌的摘要信息，
+ * 在线用户列表无需 KEYS 扫描和反序列化完整的登录信息，移除用户的会话只读取该用户的令牌
+ * 
+ * @author angryred
+ */
+@Component
+public class LoginSessionIndex {
+	private static final Logger log = LoggerFactory.getLogger(LoginSessionIndex.class);
+
+	/** 每批读取的会话数 */
+	private static final int BATCH_SIZE = 500;
+
+	/** 每次清理最多处理的批数 */
+	private static final int PRUNE_MAX_BATCHES = 20;
+
+	public static final String TOKEN_ID = "tokenId";
+
+	public static final String USER_ID = "userId";
+
+	public static final String USER_NAME = "userName";
+
+	public static final String NICK_NAME = "nickName";
+
+	public static final String DEPT_NAME = "deptName";
+
+	public static final String IPADDR = "ipaddr";
+
+	public static final String LOGIN_LOCATION = "loginLocation";
+
+	public static final String BROWSER = "browser";
+
+	public static final String OS = "os";
+
+	public static final String LOGIN_TIME = "loginTime";
+
+	@Autowired
+	private ICache redisCache;
+
+	/**
+	 * 登记会话，写入摘要并加入索引
+	 * 
+	 * @param loginUser 登录信息
+	 */
+	public void add(LoginUser loginUser) {
+		String token = loginUser.getToken();
+		Map<String, String> summary = new HashMap<String, String>();
+		summary.put(TOKEN_ID, token);
+		summary.put(USER_ID, loginUser.getUserId() != null ? String.valueOf(loginUser.getUserId()) : null);
+		summary.put(USER_NAME, loginUser.getUser() != null ? loginUser.getUsername() : null);
+		summary.put(NICK_NAME, loginUser.getNickName());
+		summary.put(IPADDR, loginUser.getIpaddr());
+		summary.put(LOGIN_LOCATION, loginUser.getLoginLocation());
+		summary.put(BROWSER, loginUser.getBrowser());
+		summary.put(OS, loginUser.getOs());
+		summary.put(LOGIN_TIME, loginUser.getLoginTime() != null ? String.valueOf(loginUser.getLoginTime()) : null);
+		if (loginUser.getUser() != null && loginUser.getUser().getDept() != null) {
+			summary.put(DEPT_NAME, loginUser.getUser().getDept().getDeptName());
+		}
+		summary.values().removeIf(StringUtils::isNull);
+		long ttl = loginUser.getExpireTime() - System.currentTimeMillis();
+		String summaryKey = getSummaryKey(token);
+		// 命令一次发送，避免写入摘要后中断留下没有过期时间的摘要
+		redisCache.executePipelined(() -> {
+			redisCache.setCacheMap(summaryKey, summary);
+			redisCache.expire(summaryKey, ttl, TimeUnit.MILLISECONDS);
+			redisCache.zAdd(CacheConstants.LOGIN_TOKEN_INDEX_KEY, token, loginUser.getExpireTime());
+			if (loginUser.getUserId() != null) {
+				String userKey = getUserKey(loginUser.getUserId());
+				redisCache.zAdd(userKey, token, loginUser.getExpireTime());
+				redisCache.expire(userKey, ttl, TimeUnit.MILLISECONDS);
+			}
+		});
+	}
+
+	/**
+	 * 批量续期：只更新仍在索引中的令牌的分数，已移除的不再加入，并把摘要和用户索引的过期时间加入待写入的集合
+	 * 
+	 * @param expireAts 令牌及新的过期时间点
+	 * @param userIds   令牌所属的用户ID
+	 * @param timeouts  待写入的键及剩余毫秒数
+	 */
+	public void extend(Map<String, Long> expireAts, Map<String, Long> userIds, Map<String, Long> timeouts) {
+		long now = System.currentTimeMillis();
+		Map<String, Double> scores = new HashMap<String, Double>();
+		Map<String, Map<String, Double>> userScores = new HashMap<String, Map<String, Double>>();
+		expireAts.forEach((token, expireAt) -> {
+			scores.put(token, expireAt.doubleValue());
+			timeouts.put(getSummaryKey(token), expireAt - now);
+			Long userId = userIds.get(token);
+			if (userId != null) {
+				String userKey = getUserKey(userId);
+				userScores.computeIfAbsent(userKey, key -> new HashMap<String, Double>()).put(token,
+						expireAt.doubleValue());
+				// 用户索引随该用户最晚过期的会话过期
+				timeouts.merge(userKey, expireAt - now, Math::max);
+			}
+		});
+		redisCache.executePipelined(() -> {
+			redisCache.zUpdate(CacheConstants.LOGIN_TOKEN_INDEX_KEY, scores);
+			userScores.forEach(redisCache::zUpdate);
+		});
+	}
+
+	/**
+	 * 移除会话
+	 * 
+	 * @param token 令牌uuid
+	 */
+	public void remove(String token) {
+		remove(token, null);
+	}
+
+	/**
+	 * 移除会话，已知用户时同时移出用户索引，未知时留待用户索引过期
+	 * 
+	 * @param token  令牌uuid
+	 * @param userId 用户ID
+	 */
+	public void remove(String token, Long userId) {
+		redisCache.executePipelined(() -> {
+			redisCache.deleteObject(getSummaryKey(token));
+			redisCache.zRemove(CacheConstants.LOGIN_TOKEN_INDEX_KEY, List.of(token));
+			if (userId != null) {
+				redisCache.zRemove(getUserKey(userId), List.of(token));
+			}
+		});
+	}
+
+	/**
+	 * 移除用户的全部会话，只读取该用户的令牌索引
+	 * 
+	 * @param userId 用户ID
+	 * @return 移除的令牌uuid
+	 */
+	public Set<String> removeUser(Long userId) {
+		String userKey = getUserKey(userId);
+		Set<String> tokens = redisCache.zRangeByScore(userKey, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+				0, -1);
+		if (tokens == null || tokens.isEmpty()) {
+			return Collections.emptySet();
+		}
+		redisCache.executePipelined(() -> {
+			redisCache.deleteObject(getSummaryKeys(tokens));
+			redisCache.zRemove(CacheConstants.LOGIN_TOKEN_INDEX_KEY, tokens);
+			redisCache.deleteObject(userKey);
+		});
+		return tokens;
+	}
+
+	/**
+	 * 有效会话数
+	 */
+	public long count() {
+		return redisCache.zCount(CacheConstants.LOGIN_TOKEN_INDEX_KEY, System.currentTimeMillis(),
+				Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * 分页获取有效会话摘要，按过期时间倒序
+	 * 
+	 * @param offset 偏移
+	 * @param count  个数
+	 * @return 会话摘要
+	 */
+	public List<Map<String, String>> list(long offset, long count) {
+		Set<String> tokens = redisCache.zReverseRangeByScore(CacheConstants.LOGIN_TOKEN_INDEX_KEY,
+				System.currentTimeMillis(), Double.POSITIVE_INFINITY, offset, count);
+		return getSummaries(tokens);
+	}
+
+	/**
+	 * 按登录地址、用户名称筛选有效会话摘要，只读取摘要信息
+	 * 
+	 * @param ipaddr   登录地址
+	 * @param userName 用户名称
+	 * @return 会话摘要
+	 */
+	public List<Map<String, String>> search(String ipaddr, String userName) {
+		return filter(summary -> (StringUtils.isEmpty(ipaddr) || StringUtils.equals(ipaddr, summary.get(IPADDR)))
+				&& (StringUtils.isEmpty(userName) || StringUtils.equals(userName, summary.get(USER_NAME))));
+	}
+
+	/**
+	 * 分批读取有效会话摘要并筛选
+	 */
+	private List<Map<String, String>> filter(Predicate<Map<String, String>> predicate) {
+		List<Map<String, String>> result = new ArrayList<Map<String, String>>();
+		long now = System.currentTimeMillis();
+		for (long offset = 0;; offset += BATCH_SIZE) {
+			Set<String> tokens = redisCache.zReverseRangeByScore(CacheConstants.LOGIN_TOKEN_INDEX_KEY, now,
+					Double.POSITIVE_INFINITY, offset, BATCH_SIZE);
+			for (Map<String, String> summary : getSummaries(tokens)) {
+				if (predicate.test(summary)) {
+					result.add(summary);
+				}
+			}
+			if (tokens == null || tokens.size() < BATCH_SIZE) {
+				return result;
+			}
+		}
+	}
+
+	/**
+	 * 增量清理已过期的索引项，每次最多处理固定批数
+	 * 
+	 * @return 清理个数
+	 */
+	public int prune() {
+		int pruned = 0;
+		try {
+			long now = System.currentTimeMillis();
+			for (int i = 0; i < PRUNE_MAX_BATCHES; i++) {
+				Set<String> expired = redisCache.zRangeByScore(CacheConstants.LOGIN_TOKEN_INDEX_KEY, 0, now, 0,
+						BATCH_SIZE);
+				if (expired == null || expired.isEmpty()) {
+					break;
+				}
+				redisCache.zRemove(CacheConstants.LOGIN_TOKEN_INDEX_KEY, expired);
+				redisCache.deleteObject(getSummaryKeys(expired));
+				pruned += expired.size();
+				if (expired.size() < BATCH_SIZE) {
+					break;
+				}
+			}
+		} catch (Exception e) {
+			log.error("清理在线会话索引异常'{}'", e.getMessage());
+		}
+		return pruned;
+	}
+
+	private List<Map<String, String>> getSummaries(Collection<String> tokens) {
+		List<Map<String, String>> summaries = new ArrayList<Map<String, String>>();
+		if (tokens == null || tokens.isEmpty()) {
+			return summaries;
+		}
+		for (Map<String, String> summary : redisCache.<String>getCacheMaps(getSummaryKeys(tokens))) {
+			// 摘要已过期而索引尚未清理时跳过
+			if (!summary.isEmpty()) {
+				summaries.add(summary);
+			}
+		}
+		return summaries;
+	}
+
+	private List<String> getSummaryKeys(Collection<String> tokens) {
+		List<String> keys = new ArrayList<String>(tokens.size());
+		for (String token : tokens) {
+			keys.add(getSummaryKey(token));
+		}
+		return keys;
+	}
+
+	private String getSummaryKey(String token) {
+		return CacheConstants.LOGIN_TOKEN_SUMMARY_KEY + token;
+	}
+
+	private String getUserKey(Long userId) {
+		return CacheConstants.LOGIN_USER_TOKEN_INDEX_KEY + userId;
+	}
+}
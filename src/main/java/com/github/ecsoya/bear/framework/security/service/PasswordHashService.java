@@ -0,0 +1,195 @@
+package com.github.ecsoya.bear.framework.security.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.exception.ServiceException;
+import com.github.ecsoya.bear.common.utils.Threads;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 密码哈希服务：在独立的有界线程池中计算 BCrypt，队列满时快速拒绝，避免请求线程耗尽CPU
+ * 
+ * @author angryred
+ */
+@Component
+public class PasswordHashService {
+	private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+	// 哈希线程数，0表示与CPU核数相同
+	@Value("${user.password.hash.threads:0}")
+	private int threads;
+
+	// 等待队列长度
+	@Value("${user.password.hash.queue:200}")
+	private int queueCapacity;
+
+	// BCrypt 强度（4-31）
+	@Value("${user.password.hash.cost:10}")
+	private int cost;
+
+	// 等待哈希结果的超时时间（秒）
+	@Value("${user.password.hash.timeout:10}")
+	private int timeout;
+
+	private BCryptPasswordEncoder encoder;
+
+	private ThreadPoolExecutor executor;
+
+	private final LongAdder hashCount = new LongAdder();
+
+	private final LongAdder hashNanos = new LongAdder();
+
+	private final AtomicLong maxHashNanos = new AtomicLong();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	@PostConstruct
+	public void init() {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		encoder = new BCryptPasswordEncoder(cost);
+		executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, queueCapacity)),
+				new BasicThreadFactory.Builder().namingPattern("password-hash-%d").daemon(true).build(),
+				new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@PreDestroy
+	public void destroy() {
+		Threads.shutdownAndAwaitTermination(executor);
+	}
+
+	/**
+	 * 加密密码
+	 * 
+	 * @param rawPassword 密码
+	 * @return 加密字符串
+	 */
+	public String encode(String rawPassword) {
+		return await(submit(() -> encoder.encode(rawPassword)));
+	}
+
+	/**
+	 * 判断密码是否相同
+	 * 
+	 * @param rawPassword     密码
+	 * @param encodedPassword 加密后字符
+	 * @return 结果
+	 */
+	public boolean matches(String rawPassword, String encodedPassword) {
+		return await(submit(() -> encoder.matches(rawPassword, encodedPassword)));
+	}
+
+	/**
+	 * 批量加密同一密码（每个结果使用不同的盐），按线程数分批提交，不占满等待队列
+	 * 
+	 * @param rawPassword 密码
+	 * @param count       个数
+	 * @return 加密字符串列表
+	 */
+	public List<String> encodeAll(String rawPassword, int count) {
+		List<String> result = new ArrayList<String>(count);
+		int window = Math.max(1, executor.getCorePoolSize());
+		for (int i = 0; i < count; i += window) {
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+			for (int j = i; j < Math.min(i + window, count); j++) {
+				futures.add(submit(() -> encoder.encode(rawPassword)));
+			}
+			for (Future<String> future : futures) {
+				result.add(await(future));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 加密字符串的强度与当前配置不同时需要重新加密
+	 * 
+	 * @param encodedPassword 加密后字符
+	 * @return 是否需要重新加密
+	 */
+	public boolean needsRehash(String encodedPassword) {
+		if (encodedPassword == null) {
+			return false;
+		}
+		Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+		return !matcher.find() || Integer.parseInt(matcher.group(1)) != cost;
+	}
+
+	/**
+	 * 运行指标：线程数、队列长度、拒绝次数、哈希耗时
+	 */
+	public Map<String, Object> getStats() {
+		long count = hashCount.sum();
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("cost", cost);
+		stats.put("poolSize", executor.getPoolSize());
+		stats.put("activeCount", executor.getActiveCount());
+		stats.put("queueSize", executor.getQueue().size());
+		stats.put("queueCapacity", queueCapacity);
+		stats.put("completed", count);
+		stats.put("rejected", rejectedCount.sum());
+		stats.put("avgHashMillis", count == 0 ? 0D : hashNanos.sum() / 1e6 / count);
+		stats.put("maxHashMillis", maxHashNanos.get() / 1e6);
+		return stats;
+	}
+
+	private <T> Future<T> submit(Callable<T> task) {
+		try {
+			return executor.submit(() -> {
+				long start = System.nanoTime();
+				try {
+					return task.call();
+				} finally {
+					long elapsed = System.nanoTime() - start;
+					hashCount.increment();
+					hashNanos.add(elapsed);
+					maxHashNanos.accumulateAndGet(elapsed, Math::max);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedCount.increment();
+			throw new ServiceException("系统繁忙，请稍后再试");
+		}
+	}
+
+	private <T> T await(Future<T> future) {
+		try {
+			return future.get(timeout, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new ServiceException("系统繁忙，请稍后再试");
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new ServiceException("系统繁忙，请稍后再试");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new ServiceException(cause.getMessage());
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.github.ecsoya.bear.framework.security.service;
 
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
@@ -8,8 +9,9 @@ import org.springframework.util.CollectionUtils;
 import com.github.ecsoya.bear.common.utils.SecurityUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.framework.security.LoginUser;
+import com.github.ecsoya.bear.framework.security.PermissionDictionary;
+import com.github.ecsoya.bear.framework.security.PermissionDictionary.Compiled;
 import com.github.ecsoya.bear.framework.security.context.PermissionContextHolder;
-import com.github.ecsoya.bear.project.system.domain.SysRole;
 
 /**
  * 首创 自定义权限实现，ss取自SpringSecurity首字母
@@ -18,9 +20,6 @@ import com.github.ecsoya.bear.project.system.domain.SysRole;
  */
 @Service("ss")
 public class PermissionService {
-	/** 所有权限标识 */
-	private static final String ALL_PERMISSION = "*:*:*";
-
 	/** 管理员角色权限标识 */
 //	private static final String SUPER_ADMIN = "admin";
 
@@ -28,6 +27,18 @@ public class PermissionService {
 
 	private static final String PERMISSION_DELIMETER = ",";
 
+	/** 已编译的单个权限，同一表达式只编译一次 */
+	private final Map<String, Compiled> compiledPermissions = new ConcurrentHashMap<String, Compiled>();
+
+	/** 已编译的任一权限列表 */
+	private final Map<String, Compiled> compiledAnyPermissions = new ConcurrentHashMap<String, Compiled>();
+
+	/** 已编译的单个角色 */
+	private final Map<String, Compiled> compiledRoles = new ConcurrentHashMap<String, Compiled>();
+
+	/** 已编译的任一角色列表 */
+	private final Map<String, Compiled> compiledAnyRoles = new ConcurrentHashMap<String, Compiled>();
+
 	/**
 	 * 验证用户是否具备某权限
 	 * 
@@ -43,7 +54,8 @@ public class PermissionService {
 			return false;
 		}
 		PermissionContextHolder.setContext(permission);
-		return hasPermissions(loginUser.getPermissions(), permission);
+		return PermissionDictionary.intersects(loginUser.getPermissionBits(),
+				compile(PermissionDictionary.PERMISSIONS, compiledPermissions, StringUtils.trim(permission), null));
 	}
 
 	/**
@@ -71,13 +83,8 @@ public class PermissionService {
 			return false;
 		}
 		PermissionContextHolder.setContext(permissions);
-		Set<String> authorities = loginUser.getPermissions();
-		for (String permission : permissions.split(PERMISSION_DELIMETER)) {
-			if (permission != null && hasPermissions(authorities, permission)) {
-				return true;
-			}
-		}
-		return false;
+		return PermissionDictionary.intersects(loginUser.getPermissionBits(),
+				compile(PermissionDictionary.PERMISSIONS, compiledAnyPermissions, permissions, PERMISSION_DELIMETER));
 	}
 
 	/**
@@ -94,13 +101,8 @@ public class PermissionService {
 		if (StringUtils.isNull(loginUser) || CollectionUtils.isEmpty(loginUser.getUser().getRoles())) {
 			return false;
 		}
-		for (SysRole sysRole : loginUser.getUser().getRoles()) {
-			String roleKey = sysRole.getRoleKey();
-			if (/* SUPER_ADMIN.equals(roleKey) || */ roleKey.equals(StringUtils.trim(role))) {
-				return true;
-			}
-		}
-		return false;
+		return PermissionDictionary.intersects(loginUser.getRoleBits(),
+				compile(PermissionDictionary.ROLES, compiledRoles, StringUtils.trim(role), null));
 	}
 
 	/**
@@ -127,22 +129,26 @@ public class PermissionService {
 		if (StringUtils.isNull(loginUser) || CollectionUtils.isEmpty(loginUser.getUser().getRoles())) {
 			return false;
 		}
-		for (String role : roles.split(ROLE_DELIMETER)) {
-			if (hasRole(role)) {
-				return true;
-			}
-		}
-		return false;
+		return PermissionDictionary.intersects(loginUser.getRoleBits(),
+				compile(PermissionDictionary.ROLES, compiledAnyRoles, roles, ROLE_DELIMETER));
 	}
 
 	/**
-	 * 判断是否包含权限
+	 * 获取表达式编译后的位图，字典中新增通配授权或表达式中的标识被登记后重新编译
 	 * 
-	 * @param permissions 权限列表
-	 * @param permission  权限字符串
-	 * @return 用户是否具备某权限
+	 * @param dictionary 字典
+	 * @param cache      编译缓存
+	 * @param expression 以分隔符连接的标识列表
+	 * @param delimeter  分隔符，为空时按单个标识整体匹配
+	 * @return 能满足表达式的授权位图
 	 */
-	private boolean hasPermissions(Set<String> permissions, String permission) {
-		return permissions.contains(ALL_PERMISSION) || permissions.contains(StringUtils.trim(permission));
+	private long[] compile(PermissionDictionary dictionary, Map<String, Compiled> cache, String expression,
+			String delimeter) {
+		Compiled compiled = cache.get(expression);
+		if (compiled == null || !dictionary.isCurrent(compiled)) {
+			compiled = delimeter == null ? dictionary.compile(expression) : dictionary.compile(expression, delimeter);
+			cache.put(expression, compiled);
+		}
+		return compiled.getBits();
 	}
 }
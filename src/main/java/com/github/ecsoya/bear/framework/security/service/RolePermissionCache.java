@@ -0,0 +1,113 @@
+package com.github.ecsoya.bear.framework.security.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+import com.github.ecsoya.bear.project.system.domain.SysRoleMenu;
+import com.github.ecsoya.bear.project.system.mapper.SysMenuMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 角色权限快照，一次查询加载所有角色的菜单权限，所有用户共享
+ * 
+ * @author angryred
+ */
+@Component
+public class RolePermissionCache {
+	@Autowired
+	private SysMenuMapper menuMapper;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	/** 角色ID与权限标识，不可修改 */
+	private volatile Map<Long, Set<String>> snapshot;
+
+	/** 失效次数，加载期间发生失效时不保存加载结果 */
+	private final AtomicLong generation = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		cacheBroadcaster.subscribe(CacheConstants.ROLE_PERMS_CHANNEL, message -> clear());
+	}
+
+	/**
+	 * 获取角色的菜单权限
+	 * 
+	 * @param roleId 角色ID
+	 * @return 权限列表（只读）
+	 */
+	public Set<String> getPermissions(Long roleId) {
+		Set<String> perms = getSnapshot().get(roleId);
+		return perms != null ? perms : Collections.emptySet();
+	}
+
+	/**
+	 * 角色或菜单变更后使快照失效，存在事务时在提交后执行并通知其他节点
+	 */
+	public void invalidate() {
+		clear();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// 事务提交前其他线程可能已按旧数据重新加载，提交后再清理一次
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					clear();
+					cacheBroadcaster.publish(CacheConstants.ROLE_PERMS_CHANNEL, "");
+				}
+			});
+		} else {
+			cacheBroadcaster.publish(CacheConstants.ROLE_PERMS_CHANNEL, "");
+		}
+	}
+
+	private void clear() {
+		generation.incrementAndGet();
+		snapshot = null;
+	}
+
+	private Map<Long, Set<String>> getSnapshot() {
+		Map<Long, Set<String>> current = snapshot;
+		if (current != null) {
+			return current;
+		}
+		long loading = generation.get();
+		current = load();
+		synchronized (this) {
+			if (generation.get() == loading) {
+				snapshot = current;
+			}
+		}
+		return current;
+	}
+
+	private Map<Long, Set<String>> load() {
+		List<SysRoleMenu> list = menuMapper.selectRoleMenuPerms();
+		Map<Long, Set<String>> perms = new HashMap<Long, Set<String>>();
+		for (SysRoleMenu roleMenu : list) {
+			Set<String> rolePerms = perms.computeIfAbsent(roleMenu.getRoleId(), k -> new HashSet<String>());
+			for (String perm : roleMenu.getPerms().trim().split(",")) {
+				if (StringUtils.isNotEmpty(perm)) {
+					rolePerms.add(perm);
+				}
+			}
+		}
+		Map<Long, Set<String>> result = new HashMap<Long, Set<String>>(perms.size());
+		perms.forEach((roleId, rolePerms) -> result.put(roleId, Collections.unmodifiableSet(rolePerms)));
+		return Collections.unmodifiableMap(result);
+	}
+}
@@ -0,0 +1,134 @@
+package com.github.ecsoya.bear.framework.security.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.exception.UtilException;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
+import com.github.ecsoya.bear.project.system.domain.vo.RouterVo;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 前端路由缓存，按角色集合缓存序列化后的响应，相同角色的用户共享
+ *
+ * @author angryred
+ */
+@Component
+public class RouterCache {
+	/** 缓存的角色集合个数上限，超过时清空 */
+	private static final int MAX_SIZE = 1024;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final Map<String, Routers> routers = new ConcurrentHashMap<String, Routers>();
+
+	/** 失效次数，构建期间发生失效时不保存构建结果 */
+	private final AtomicLong generation = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		cacheBroadcaster.subscribe(CacheConstants.ROUTER_CHANNEL, message -> clear());
+	}
+
+	/**
+	 * 获取角色集合的路由，未缓存时构建
+	 *
+	 * @param key     角色集合
+	 * @param builder 构建路由
+	 * @return 路由响应
+	 */
+	public Routers get(String key, Supplier<List<RouterVo>> builder) {
+		Routers cached = routers.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		long building = generation.get();
+		cached = build(builder.get());
+		if (routers.size() >= MAX_SIZE) {
+			routers.clear();
+		}
+		routers.put(key, cached);
+		if (generation.get() != building) {
+			routers.remove(key, cached);
+		}
+		return cached;
+	}
+
+	/**
+	 * 序列化路由响应，ETag 取内容摘要
+	 *
+	 * @param list 路由列表
+	 * @return 路由响应
+	 */
+	public Routers build(List<RouterVo> list) {
+		try {
+			byte[] body = objectMapper.writeValueAsBytes(AjaxResult.success(list));
+			return new Routers(body, "\"routers-" + DigestUtils.md5DigestAsHex(body) + "\"");
+		} catch (JsonProcessingException e) {
+			throw new UtilException(e);
+		}
+	}
+
+	/**
+	 * 菜单或角色菜单关联变更后使路由失效，存在事务时在提交后执行并通知其他节点
+	 */
+	public void invalidate() {
+		clear();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					clear();
+					cacheBroadcaster.publish(CacheConstants.ROUTER_CHANNEL, "");
+				}
+			});
+		} else {
+			cacheBroadcaster.publish(CacheConstants.ROUTER_CHANNEL, "");
+		}
+	}
+
+	private void clear() {
+		generation.incrementAndGet();
+		routers.clear();
+	}
+
+	/**
+	 * 序列化后的路由响应及其 ETag
+	 */
+	public static class Routers {
+		private final byte[] body;
+
+		private final String etag;
+
+		public Routers(byte[] body, String etag) {
+			this.body = body;
+			this.etag = etag;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+	}
+}
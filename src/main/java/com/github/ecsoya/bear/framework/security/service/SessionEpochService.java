@@ -0,0 +1,191 @@
+package com.github.ecsoya.bear.framework.security.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.core.text.Convert;
+import com.github.ecsoya.bear.framework.cache.ICache;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 会话代数：按全局、用户、部门、角色维护的递增计数，签发令牌时写入令牌，
+ * 校验时令牌中的代数小于当前代数即视为已吊销，批量强退只需递增一个计数
+ * 
+ * @author angryred
+ */
+@Component
+public class SessionEpochService {
+	private static final Logger log = LoggerFactory.getLogger(SessionEpochService.class);
+
+	private static final String GLOBAL = "global";
+
+	private static final String USER = "user:";
+
+	private static final String DEPT = "dept:";
+
+	private static final String ROLE = "role:";
+
+	private static final char SEPARATOR = '=';
+
+	/** 未加载时重试加载的最小间隔（毫秒） */
+	private static final long RETRY_INTERVAL = 1000;
+
+	// 本地代数表刷新间隔（秒）
+	@Value("${token.epoch.refreshInterval:30}")
+	private long refreshInterval;
+
+	@Autowired
+	private ICache redisCache;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/** 本地代数表，不可修改，整体替换 */
+	private volatile Map<String, Long> epochs = Collections.emptyMap();
+
+	/** 代数表是否已从Redis加载成功 */
+	private volatile boolean loaded;
+
+	/** 最近一次尝试加载的时间 */
+	private volatile long lastAttempt;
+
+	@PostConstruct
+	public void init() {
+		cacheBroadcaster.subscribe(CacheConstants.SESSION_EPOCH_CHANNEL, this::apply);
+		// 启动时同步加载，未加载前无法判断令牌是否已吊销
+		reload();
+		scheduledExecutorService.scheduleWithFixedDelay(this::reload, refreshInterval, refreshInterval,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 代数表是否可用，未加载时按间隔同步重试
+	 * 
+	 * @return 是否已加载
+	 */
+	public boolean isLoaded() {
+		if (!loaded && System.currentTimeMillis() - lastAttempt >= RETRY_INTERVAL) {
+			synchronized (this) {
+				if (!loaded && System.currentTimeMillis() - lastAttempt >= RETRY_INTERVAL) {
+					reload();
+				}
+			}
+		}
+		return loaded;
+	}
+
+	public long getGlobalEpoch() {
+		return getEpoch(GLOBAL);
+	}
+
+	public long getUserEpoch(Long userId) {
+		return getEpoch(USER + userId);
+	}
+
+	public long getDeptEpoch(Long deptId) {
+		return getEpoch(DEPT + deptId);
+	}
+
+	public long getRoleEpoch(Long roleId) {
+		return getEpoch(ROLE + roleId);
+	}
+
+	/**
+	 * 吊销全部会话
+	 */
+	public void revokeAll() {
+		revoke(GLOBAL);
+	}
+
+	/**
+	 * 吊销用户的全部会话
+	 * 
+	 * @param userId 用户ID
+	 */
+	public void revokeUser(Long userId) {
+		revoke(USER + userId);
+	}
+
+	/**
+	 * 吊销部门下用户的全部会话
+	 * 
+	 * @param deptId 部门ID
+	 */
+	public void revokeDept(Long deptId) {
+		revoke(DEPT + deptId);
+	}
+
+	/**
+	 * 吊销拥有该角色的用户的全部会话
+	 * 
+	 * @param roleId 角色ID
+	 */
+	public void revokeRole(Long roleId) {
+		revoke(ROLE + roleId);
+	}
+
+	/**
+	 * 从Redis重新加载代数表
+	 */
+	public void reload() {
+		lastAttempt = System.currentTimeMillis();
+		try {
+			Map<String, Object> cached = redisCache.getCacheMap(CacheConstants.SESSION_EPOCH_KEY);
+			Map<String, Long> loaded = new HashMap<String, Long>(cached.size());
+			cached.forEach((field, value) -> loaded.put(field, Convert.toLong(value, 0L)));
+			synchronized (this) {
+				// 加载期间收到的变更不能被旧值覆盖
+				epochs.forEach((field, epoch) -> loaded.merge(field, epoch, Math::max));
+				epochs = Collections.unmodifiableMap(loaded);
+				this.loaded = true;
+			}
+		} catch (Exception e) {
+			log.error("加载会话代数异常'{}'", e.getMessage());
+		}
+	}
+
+	private long getEpoch(String field) {
+		Long epoch = epochs.get(field);
+		return epoch != null ? epoch : 0L;
+	}
+
+	private void revoke(String field) {
+		long epoch = redisCache.incrementCacheMapValue(CacheConstants.SESSION_EPOCH_KEY, field, 1);
+		update(field, epoch);
+		cacheBroadcaster.publish(CacheConstants.SESSION_EPOCH_CHANNEL, field + SEPARATOR + epoch);
+	}
+
+	private void apply(String message) {
+		int index = message.lastIndexOf(SEPARATOR);
+		if (index > 0) {
+			update(message.substring(0, index), Convert.toLong(message.substring(index + 1), 0L));
+		}
+	}
+
+	/**
+	 * 更新单个代数，只增不减
+	 */
+	private synchronized void update(String field, long epoch) {
+		if (epoch <= getEpoch(field)) {
+			return;
+		}
+		Map<String, Long> updated = new HashMap<String, Long>(epochs);
+		updated.put(field, epoch);
+		epochs = Collections.unmodifiableMap(updated);
+	}
+}
@@ -19,11 +19,13 @@ import com.github.ecsoya.bear.common.utils.DateUtils;
 import com.github.ecsoya.bear.common.utils.MessageUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.ip.IpUtils;
+import com.github.ecsoya.bear.framework.cache.ICache;
 import com.github.ecsoya.bear.framework.manager.AsyncManager;
 import com.github.ecsoya.bear.framework.manager.factory.AsyncFactory;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
 import com.github.ecsoya.bear.framework.security.LoginUser;
 import com.github.ecsoya.bear.framework.security.context.AuthenticationContextHolder;
+import com.github.ecsoya.bear.framework.security.context.LoginStateContextHolder.LoginState;
+import com.github.ecsoya.bear.framework.security.context.LoginStateContextHolder;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
 import com.github.ecsoya.bear.project.system.service.ISysConfigService;
 import com.github.ecsoya.bear.project.system.service.ISysUserService;
@@ -44,7 +46,7 @@ public class SysLoginService {
 	private AuthenticationManager authenticationManager;
 
 	@Autowired
-	private RedisCache redisCache;
+	private ICache redisCache;
 
 	@Autowired
 	private ISysUserService userService;
@@ -60,19 +62,8 @@ public class SysLoginService {
 		if (user == null) {
 			throw new UserNotExistsException();
 		}
-		String oldToken = tokenService.getTokenByUserId(user.getUserId());
-		String newToken = login(user.getUserName(), password, code, uuid, unblock);
-		try {
-			if (oldToken != null && !oldToken.equals(newToken)) {
-				LoginUser loginUser = tokenService.getLoginUser(oldToken);
-				if (loginUser != null) {
-					tokenService.delLoginUser(loginUser.getToken());
-				}
-			}
-		} catch (Exception e) {
-			// Ignored
-		}
-		return newToken;
+		// 邮箱登录成功后原有会话全部失效
+		return login(user.getUserName(), password, code, uuid, unblock, true);
 	}
 
 	/**
@@ -85,21 +76,70 @@ public class SysLoginService {
 	 * @return 结果
 	 */
 	public String login(String username, String password, String code, String uuid, String unblock) {
+		return login(username, password, code, uuid, unblock, false);
+	}
+
+	/**
+	 * 登录验证
+	 * 
+	 * @param username  用户名
+	 * @param password  密码
+	 * @param code      验证码
+	 * @param uuid      唯一标识
+	 * @param exclusive 是否吊销该用户已有的会话
+	 * @return 结果
+	 */
+	private String login(String username, String password, String code, String uuid, String unblock,
+			boolean exclusive) {
 		if (StringUtils.isNotEmpty(unblock)) {
 			passwordService.unblockUser(unblock);
 		}
-		// 验证码校验
-		validateCaptcha(username, code, uuid);
-		// 登录前置校验
-		loginPreCheck(username, password);
-		// 用户验证
+		// 验证码、密码错误次数、锁定次数由一次脚本读取
+		String verifyKey = CacheConstants.CAPTCHA_CODE_KEY + StringUtils.nvl(uuid, "");
+		LoginStateContextHolder.setContext(
+				passwordService.loadLoginState(username, verifyKey, configService.selectCaptchaEnabled()));
 		Authentication authentication = null;
+		try {
+			// 验证码校验
+			validateCaptcha(username, code, uuid);
+			// 登录前置校验
+			loginPreCheck(username, password);
+			// 用户验证
+			authentication = authenticate(username, password);
+		} finally {
+			LoginStateContextHolder.clearContext();
+		}
+		AsyncManager.me().schedule(AsyncFactory.recordLogininfor(username, Constants.LOGIN_SUCCESS,
+				MessageUtils.message("user.login.success")));
+		LoginUser loginUser = (LoginUser) authentication.getPrincipal();
+		recordLoginInfo(loginUser.getUserId());
+		if (exclusive) {
+			tokenService.removeToken(loginUser.getUserId());
+		}
+		// 生成token，会话写入合并为一次管道往返
+		String[] token = new String[1];
+		redisCache.executePipelined(() -> {
+			token[0] = tokenService.createToken(loginUser);
+			redisCache.setCacheObject(token[0], loginUser.getUserId());
+			tokenService.bindToken(loginUser.getUserId(), token[0]);
+		});
+		return token[0];
+	}
+
+	/**
+	 * 用户验证
+	 * 
+	 * @param username 用户名
+	 * @param password 密码
+	 * @return 验证结果
+	 */
+	private Authentication authenticate(String username, String password) {
 		try {
 			UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username,
 					password);
 			AuthenticationContextHolder.setContext(authenticationToken);
 			// 该方法会去调用UserDetailsServiceImpl.loadUserByUsername
-			authentication = authenticationManager.authenticate(authenticationToken);
+			return authenticationManager.authenticate(authenticationToken);
 		} catch (Exception e) {
 			if (e instanceof BadCredentialsException) {
 				AsyncManager.me().schedule(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL,
@@ -113,15 +153,6 @@ public class SysLoginService {
 		} finally {
 			AuthenticationContextHolder.clearContext();
 		}
-		AsyncManager.me().schedule(AsyncFactory.recordLogininfor(username, Constants.LOGIN_SUCCESS,
-				MessageUtils.message("user.login.success")));
-		LoginUser loginUser = (LoginUser) authentication.getPrincipal();
-		recordLoginInfo(loginUser.getUserId());
-		// 生成token
-		String token = tokenService.createToken(loginUser);
-		redisCache.setCacheObject(token, loginUser.getUserId());
-		tokenService.bindToken(loginUser.getUserId(), token);
-		return token;
 	}
 
 	/**
@@ -136,8 +167,14 @@ public class SysLoginService {
 		boolean captchaEnabled = configService.selectCaptchaEnabled();
 		if (captchaEnabled) {
 			String verifyKey = CacheConstants.CAPTCHA_CODE_KEY + StringUtils.nvl(uuid, "");
-			String captcha = redisCache.getCacheObject(verifyKey);
-			redisCache.deleteObject(verifyKey);
+			LoginState state = LoginStateContextHolder.getContext();
+			String captcha;
+			if (state != null) {
+				captcha = state.getCaptcha();
+			} else {
+				captcha = redisCache.getCacheObject(verifyKey);
+				redisCache.deleteObject(verifyKey);
+			}
 			if (captcha == null) {
 				AsyncManager.me().schedule(AsyncFactory.recordLogininfor(username, Constants.LOGIN_FAIL,
 						MessageUtils.message("user.jcaptcha.expire")));
@@ -1,14 +1,18 @@
 package com.github.ecsoya.bear.framework.security.service;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import com.github.ecsoya.bear.common.constant.CacheConstants;
 import com.github.ecsoya.bear.common.constant.Constants;
+import com.github.ecsoya.bear.common.core.text.Convert;
 import com.github.ecsoya.bear.common.exception.user.BlackListException;
 import com.github.ecsoya.bear.common.exception.user.UserPasswordNotMatchException;
 import com.github.ecsoya.bear.common.exception.user.UserPasswordRetryLimitExceedException;
@@ -16,11 +20,14 @@ import com.github.ecsoya.bear.common.utils.MessageUtils;
 import com.github.ecsoya.bear.common.utils.SecurityUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.sign.Base64;
+import com.github.ecsoya.bear.framework.cache.ICache;
 import com.github.ecsoya.bear.framework.manager.AsyncManager;
 import com.github.ecsoya.bear.framework.manager.factory.AsyncFactory;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
 import com.github.ecsoya.bear.framework.security.context.AuthenticationContextHolder;
+import com.github.ecsoya.bear.framework.security.context.LoginStateContextHolder.LoginState;
+import com.github.ecsoya.bear.framework.security.context.LoginStateContextHolder;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
+import com.github.ecsoya.bear.project.system.service.ISysUserService;
 
 /**
  * 登录密码方法
@@ -30,7 +37,7 @@ import com.github.ecsoya.bear.project.system.domain.SysUser;
 @Component
 public class SysPasswordService {
 	@Autowired
-	private RedisCache redisCache;
+	private ICache redisCache;
 
 	@Value(value = "${user.password.maxRetryCount}")
 	private int maxRetryCount;
@@ -44,6 +51,16 @@ public class SysPasswordService {
 	@Autowired(required = false)
 	private IUserUnlockService userUnlockService;
 
+	@SuppressWarnings("rawtypes")
+	@Autowired
+	private RedisScript<List> loginStateScript;
+
+	@Autowired
+	private PasswordHashService passwordHashService;
+
+	@Autowired
+	private ISysUserService userService;
+
 	/**
 	 * 登录账户密码错误次数缓存键名
 	 * 
@@ -58,6 +75,21 @@ public class SysPasswordService {
 		return CacheConstants.PWD_BLOCKED_CNT_KEY + username;
 	}
 
+	/**
+	 * 一次原子脚本取出并删除验证码，同时读取密码错误次数和锁定次数
+	 * 
+	 * @param username       用户名
+	 * @param captchaKey     验证码缓存键
+	 * @param captchaEnabled 是否开启验证码
+	 * @return 登录前置状态
+	 */
+	public LoginState loadLoginState(String username, String captchaKey, boolean captchaEnabled) {
+		List<?> result = redisCache.execute(loginStateScript,
+				Arrays.asList(captchaKey, getCacheKey(username), getBlockedKey(username)), captchaEnabled ? "1" : "0");
+		return new LoginState(Convert.toStr(result.get(0)), Convert.toInt(result.get(1)),
+				Convert.toInt(result.get(2)));
+	}
+
 	public boolean isLimited(String username) {
 		Integer retryCount = redisCache.getCacheObject(getCacheKey(username));
 		return retryCount != null && retryCount >= Integer.valueOf(maxRetryCount).intValue();
@@ -73,13 +105,15 @@ public class SysPasswordService {
 		String username = usernamePasswordAuthenticationToken.getName();
 		String password = usernamePasswordAuthenticationToken.getCredentials().toString();
 
-		Integer retryCount = redisCache.getCacheObject(getCacheKey(username));
+		// 优先使用登录脚本已读取的状态
+		LoginState state = LoginStateContextHolder.getContext();
+		Integer retryCount = state != null ? state.getRetryCount() : redisCache.getCacheObject(getCacheKey(username));
 
 		if (retryCount == null) {
 			retryCount = 0;
 		}
 		String blockedKey = getBlockedKey(username);
-		Integer blockedCount = redisCache.getCacheObject(blockedKey);
+		Integer blockedCount = state != null ? state.getBlockedCount() : redisCache.getCacheObject(blockedKey);
 		if (blockedCount != null && blockedCount >= Integer.valueOf(blockTime).intValue()) {
 			// 发解锁邮件给用户
 			String token = Base64.encode(blockedKey.getBytes());
@@ -113,22 +147,38 @@ public class SysPasswordService {
 				redisCache.setCacheObject(blockedKey, blockedCount);
 			}
 			throw new UserPasswordNotMatchException();
-		} else {
+		}
+		rehashIfNecessary(user, password);
+		if (state == null || state.getRetryCount() != null || state.getBlockedCount() != null) {
 			clearLoginRecordCache(username);
 		}
 	}
 
+	/**
+	 * 密码强度与当前配置不同时，登录成功后异步重新加密
+	 * 
+	 * @param user        用户信息
+	 * @param rawPassword 密码
+	 */
+	private void rehashIfNecessary(SysUser user, String rawPassword) {
+		if (!passwordHashService.needsRehash(user.getPassword())) {
+			return;
+		}
+		String userName = user.getUserName();
+		AsyncManager.me().execute(() -> {
+			String password = passwordHashService.encode(rawPassword);
+			if (userService.resetUserPwd(userName, password) > 0) {
+				user.setPassword(password);
+			}
+		});
+	}
+
 	public boolean matches(SysUser user, String rawPassword) {
 		return SecurityUtils.matchesPassword(rawPassword, user.getPassword());
 	}
 
 	public void clearLoginRecordCache(String loginName) {
-		if (redisCache.hasKey(getCacheKey(loginName))) {
-			redisCache.deleteObject(getCacheKey(loginName));
-		}
-		if (redisCache.hasKey(getBlockedKey(loginName))) {
-			redisCache.deleteObject(getBlockedKey(loginName));
-		}
+		redisCache.deleteObject(Arrays.asList(getCacheKey(loginName), getBlockedKey(loginName)));
 	}
 
 	public void unblockUser(String unblock) {
@@ -1,5 +1,6 @@
 package com.github.ecsoya.bear.framework.security.service;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -8,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.project.system.domain.SysRole;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
 import com.github.ecsoya.bear.project.system.service.ISysMenuService;
@@ -26,6 +28,9 @@ public class SysPermissionService {
 	@Autowired
 	private ISysMenuService menuService;
 
+	@Autowired
+	private RolePermissionCache rolePermissionCache;
+
 	/**
 	 * 获取角色数据权限
 	 * 
@@ -37,6 +42,13 @@ public class SysPermissionService {
 		// 管理员拥有所有权限
 		if (user.isAdmin()) {
 			roles.add("admin");
+		} else if (!CollectionUtils.isEmpty(user.getRoles())) {
+			// 取登录时加载的角色，不再按用户查询
+			for (SysRole role : user.getRoles()) {
+				if (StringUtils.isNotEmpty(role.getRoleKey())) {
+					roles.addAll(Arrays.asList(role.getRoleKey().trim().split(",")));
+				}
+			}
 		} else {
 			roles.addAll(roleService.selectRolePermissionByUserId(user.getUserId()));
 		}
@@ -59,7 +71,7 @@ public class SysPermissionService {
 			if (!CollectionUtils.isEmpty(roles)) {
 				// 多角色设置permissions属性，以便数据权限匹配权限
 				for (SysRole role : roles) {
-					Set<String> rolePerms = menuService.selectMenuPermsByRoleId(role.getRoleId());
+					Set<String> rolePerms = rolePermissionCache.getPermissions(role.getRoleId());
 					role.setPermissions(rolePerms);
 					perms.addAll(rolePerms);
 				}
@@ -11,9 +11,9 @@ import com.github.ecsoya.bear.common.exception.user.CaptchaExpireException;
 import com.github.ecsoya.bear.common.utils.MessageUtils;
 import com.github.ecsoya.bear.common.utils.SecurityUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.cache.ICache;
 import com.github.ecsoya.bear.framework.manager.AsyncManager;
 import com.github.ecsoya.bear.framework.manager.factory.AsyncFactory;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
 import com.github.ecsoya.bear.framework.security.RegisterBody;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
 import com.github.ecsoya.bear.project.system.service.ISysConfigService;
@@ -33,7 +33,7 @@ public class SysRegisterService {
 	private ISysConfigService configService;
 
 	@Autowired
-	private RedisCache redisCache;
+	private ICache redisCache;
 
 	/**
 	 * 注册
@@ -1,8 +1,13 @@
 package com.github.ecsoya.bear.framework.security.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,16 +20,23 @@ import com.github.ecsoya.bear.common.constant.Constants;
 import com.github.ecsoya.bear.common.core.text.Convert;
 import com.github.ecsoya.bear.common.utils.ServletUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.common.utils.bean.BeanUtils;
 import com.github.ecsoya.bear.common.utils.ip.AddressUtils;
 import com.github.ecsoya.bear.common.utils.ip.IpUtils;
 import com.github.ecsoya.bear.common.utils.uuid.IdUtils;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
+import com.github.ecsoya.bear.framework.cache.ICache;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+import com.github.ecsoya.bear.framework.redis.NearCache;
 import com.github.ecsoya.bear.framework.security.LoginUser;
+import com.github.ecsoya.bear.project.system.domain.SysRole;
+import com.github.ecsoya.bear.project.system.domain.SysUser;
 
 import eu.bitwalker.useragentutils.UserAgent;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
@@ -36,6 +48,15 @@ import jakarta.servlet.http.HttpServletRequest;
 public class TokenService {
 	private static final String LOGIN_USER_ID = "userId";
 
+	/** 令牌中的会话代数：全局、用户、部门、角色 */
+	private static final String EPOCH_GLOBAL = "ge";
+
+	private static final String EPOCH_USER = "ue";
+
+	private static final String EPOCH_DEPT = "de";
+
+	private static final String EPOCH_ROLES = "re";
+
 	private static final Logger log = LoggerFactory.getLogger(TokenService.class);
 
 	// 令牌自定义标识
@@ -56,8 +77,63 @@ public class TokenService {
 
 	private static final Long MILLIS_MINUTE_TEN = 20 * 60 * 1000L;
 
+	/** 续期方式：重写整个登录信息 */
+	private static final String REFRESH_MODE_REWRITE = "rewrite";
+
+	// 近端缓存最大条目数
+	@Value("${token.nearCache.maxSize:10000}")
+	private int nearCacheMaxSize;
+
+	// 近端缓存存活时间（秒）
+	@Value("${token.nearCache.ttl:60}")
+	private int nearCacheTtl;
+
+	// 续期方式：expire 仅延长过期时间，rewrite 重写登录信息
+	@Value("${token.refresh.mode:expire}")
+	private String refreshMode;
+
+	// 续期批量写入间隔（毫秒）
+	@Value("${token.refresh.flushInterval:500}")
+	private long refreshFlushInterval;
+
+	// 在线会话索引清理间隔（秒）
+	@Value("${token.index.pruneInterval:60}")
+	private long indexPruneInterval;
+
+	@Autowired
+	private ICache redisCache;
+
+	@Autowired
+	private LoginSessionIndex sessionIndex;
+
 	@Autowired
-	private RedisCache redisCache;
+	private SessionEpochService sessionEpochService;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/**
+	 * 待续期的令牌及新的过期时间点
+	 */
+	private final ConcurrentHashMap<String, PendingRefresh> pendingRefresh = new ConcurrentHashMap<>();
+
+	/**
+	 * 登录用户近端缓存，键为令牌uuid
+	 */
+	private NearCache<String, LoginUser> nearCache;
+
+	@PostConstruct
+	public void init() {
+		nearCache = new NearCache<>("login_user", nearCacheMaxSize, nearCacheTtl, TimeUnit.SECONDS);
+		cacheBroadcaster.subscribe(CacheConstants.LOGIN_TOKEN_CHANNEL, nearCache::invalidate);
+		scheduledExecutorService.scheduleWithFixedDelay(this::flushPendingRefresh, refreshFlushInterval,
+				refreshFlushInterval, TimeUnit.MILLISECONDS);
+		scheduledExecutorService.scheduleWithFixedDelay(sessionIndex::prune, indexPruneInterval, indexPruneInterval,
+				TimeUnit.SECONDS);
+	}
 
 	/**
 	 * 获取用户身份信息
@@ -70,14 +146,46 @@ public class TokenService {
 		return getLoginUser(token);
 	}
 
+	/**
+	 * 获取用户身份信息，返回的实例由近端缓存在同一会话的所有请求间共享，只读；需要修改时先复制
+	 * 
+	 * @param token 令牌
+	 * @return 用户信息
+	 */
 	public LoginUser getLoginUser(String token) {
 		if (StringUtils.isNotEmpty(token)) {
 			try {
 				Claims claims = parseToken(token);
 				// 解析对应的权限以及用户信息
 				String uuid = (String) claims.get(Constants.LOGIN_USER_KEY);
+				if (!sessionEpochService.isLoaded()) {
+					// 会话代数尚未加载，无法判断是否已吊销，按吊销处理但不清理会话
+					log.warn("会话代数尚未加载，拒绝令牌");
+					return null;
+				}
+				if (isRevoked(claims)) {
+					// 本节点仍缓存该会话时顺带清理，其余情况等待自然过期
+					if (nearCache.get(uuid) != null) {
+						delLoginUser(uuid);
+					}
+					return null;
+				}
+				LoginUser user = nearCache.get(uuid);
+				if (user != null) {
+					return user;
+				}
 				String userKey = getTokenKey(uuid);
-				LoginUser user = redisCache.getCacheObject(userKey);
+				user = redisCache.getCacheObject(userKey);
+				if (user != null && user.getExpireTime() != null) {
+					if (user.getExpireTime() <= System.currentTimeMillis()) {
+						// 续期只写过期时间，缓存内容中的过期时间仍是登录时的值，以剩余有效时间为准
+						long ttl = redisCache.getExpire(userKey);
+						if (ttl > 0) {
+							user.setExpireTime(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl));
+						}
+					}
+					nearCache.put(uuid, user, user.getExpireTime());
+				}
 				return user;
 			} catch (Exception e) {
 				log.error("获取用户信息异常'{}'", e.getMessage());
@@ -86,6 +194,23 @@ public class TokenService {
 		return null;
 	}
 
+	/**
+	 * 复制用户身份信息及其用户信息，修改后通过 setLoginUser 写回，不影响共享的实例
+	 * 
+	 * @param loginUser 用户身份信息
+	 * @return 副本
+	 */
+	public LoginUser copyLoginUser(LoginUser loginUser) {
+		LoginUser copy = new LoginUser();
+		BeanUtils.copyBeanProp(copy, loginUser);
+		if (loginUser.getUser() != null) {
+			SysUser user = new SysUser();
+			BeanUtils.copyBeanProp(user, loginUser.getUser());
+			copy.setUser(user);
+		}
+		return copy;
+	}
+
 	/**
 	 * 设置用户身份信息
 	 */
@@ -103,27 +228,48 @@ public class TokenService {
 		if (user == null) {
 			return;
 		}
-		removeToken(user.getUserId());
-		delLoginUser(user.getToken());
+		redisCache.deleteObject(getUserIdKey(user.getUserId()));
+		delLoginUser(user.getToken(), user.getUserId());
 	}
 
 	public void delLoginUser(String token) {
+		delLoginUser(token, null);
+	}
+
+	private void delLoginUser(String token, Long userId) {
 		if (StringUtils.isNotEmpty(token)) {
 			String userKey = getTokenKey(token);
+			pendingRefresh.remove(token);
 			redisCache.deleteObject(userKey);
+			sessionIndex.remove(token, userId);
+			invalidateNearCache(token);
 		}
 	}
 
+	/**
+	 * 吊销用户的全部会话，已签发的令牌因会话代数落后而失效
+	 * 
+	 * @param userId 用户ID
+	 */
 	public void removeToken(Long userId) {
-		String key = getUserIdKey(userId);
-		String token = redisCache.getCacheObject(key);
-		if (StringUtils.isNotEmpty(token)) {
-			LoginUser user = getLoginUser(token);
-			if (user != null) {
-				delLoginUser(user.getToken());
-			}
+		sessionEpochService.revokeUser(userId);
+		redisCache.deleteObject(getUserIdKey(userId));
+	}
+
+	/**
+	 * 吊销用户的全部会话，并按用户的令牌索引删除会话及在线会话索引，耗时与该用户的会话数成正比
+	 * 
+	 * @param userId 用户ID
+	 */
+	public void removeTokens(Long userId) {
+		removeToken(userId);
+		List<String> userKeys = new ArrayList<>();
+		for (String token : sessionIndex.removeUser(userId)) {
+			pendingRefresh.remove(token);
+			userKeys.add(getTokenKey(token));
 		}
-		redisCache.deleteObject(key);
+		// 近端缓存中的会话已因代数落后被拒绝，无需逐个通知
+		redisCache.deleteObject(userKeys);
 	}
 
 	public String getTokenByUserId(Long userId) {
@@ -158,9 +304,70 @@ public class TokenService {
 		Map<String, Object> claims = new HashMap<>();
 		claims.put(Constants.LOGIN_USER_KEY, token);
 		claims.put(LOGIN_USER_ID, loginUser.getUserId());
+		putEpochs(claims, loginUser);
 		return createToken(claims);
 	}
 
+	/**
+	 * 写入签发时的会话代数
+	 * 
+	 * @param claims    数据声明
+	 * @param loginUser 用户信息
+	 */
+	private void putEpochs(Map<String, Object> claims, LoginUser loginUser) {
+		claims.put(EPOCH_GLOBAL, sessionEpochService.getGlobalEpoch());
+		claims.put(EPOCH_USER, sessionEpochService.getUserEpoch(loginUser.getUserId()));
+		if (loginUser.getDeptId() != null) {
+			claims.put(EPOCH_DEPT,
+					loginUser.getDeptId() + ":" + sessionEpochService.getDeptEpoch(loginUser.getDeptId()));
+		}
+		if (loginUser.getUser() != null && loginUser.getUser().getRoles() != null) {
+			StringBuilder roles = new StringBuilder();
+			for (SysRole role : loginUser.getUser().getRoles()) {
+				if (roles.length() > 0) {
+					roles.append(',');
+				}
+				roles.append(role.getRoleId()).append(':').append(sessionEpochService.getRoleEpoch(role.getRoleId()));
+			}
+			claims.put(EPOCH_ROLES, roles.toString());
+		}
+	}
+
+	/**
+	 * 令牌签发时的会话代数是否已落后于当前代数
+	 * 
+	 * @param claims 数据声明
+	 * @return 是否已吊销
+	 */
+	private boolean isRevoked(Claims claims) {
+		if (Convert.toLong(claims.get(EPOCH_GLOBAL), 0L) < sessionEpochService.getGlobalEpoch()) {
+			return true;
+		}
+		Long userId = Convert.toLong(claims.get(LOGIN_USER_ID));
+		if (userId != null && Convert.toLong(claims.get(EPOCH_USER), 0L) < sessionEpochService.getUserEpoch(userId)) {
+			return true;
+		}
+		return isBehind((String) claims.get(EPOCH_DEPT), sessionEpochService::getDeptEpoch)
+				|| isBehind((String) claims.get(EPOCH_ROLES), sessionEpochService::getRoleEpoch);
+	}
+
+	/**
+	 * 以“编号:代数”逗号连接的代数是否有落后于当前代数的
+	 */
+	private boolean isBehind(String epochs, Function<Long, Long> current) {
+		if (StringUtils.isEmpty(epochs)) {
+			return false;
+		}
+		for (String epoch : epochs.split(",")) {
+			int index = epoch.indexOf(':');
+			if (index > 0 && Convert.toLong(epoch.substring(index + 1), 0L) < current
+					.apply(Convert.toLong(epoch.substring(0, index)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * 验证令牌有效期，相差不足20分钟，自动刷新缓存
 	 * 
@@ -171,10 +378,59 @@ public class TokenService {
 		long expireTime = loginUser.getExpireTime();
 		long currentTime = System.currentTimeMillis();
 		if (expireTime - currentTime <= MILLIS_MINUTE_TEN) {
-			refreshToken(loginUser);
+			if (REFRESH_MODE_REWRITE.equals(refreshMode)) {
+				refreshToken(loginUser);
+			} else {
+				extendToken(loginUser);
+			}
 		}
 	}
 
+	/**
+	 * 延长令牌有效期，只续期不重写缓存内容；同一令牌的并发续期合并为一次，由定时任务批量写入
+	 * 
+	 * @param loginUser 登录信息
+	 */
+	public void extendToken(LoginUser loginUser) {
+		long expireAt = System.currentTimeMillis() + expireTime * MILLIS_MINUTE;
+		loginUser.setExpireTime(expireAt);
+		pendingRefresh.merge(loginUser.getToken(), new PendingRefresh(loginUser.getUserId(), expireAt),
+				(current, refresh) -> current.expireAt >= refresh.expireAt ? current : refresh);
+		nearCache.put(loginUser.getToken(), loginUser, expireAt);
+	}
+
+	/**
+	 * 批量写入待续期的令牌
+	 */
+	public void flushPendingRefresh() {
+		if (pendingRefresh.isEmpty()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		Map<String, Long> expireAts = new HashMap<>();
+		Map<String, Long> userIds = new HashMap<>();
+		Map<String, Long> timeouts = new HashMap<>();
+		for (String token : pendingRefresh.keySet()) {
+			PendingRefresh refresh = pendingRefresh.remove(token);
+			if (refresh != null && refresh.expireAt > now) {
+				expireAts.put(token, refresh.expireAt);
+				userIds.put(token, refresh.userId);
+				timeouts.put(getTokenKey(token), refresh.expireAt - now);
+			}
+		}
+		try {
+			sessionIndex.extend(expireAts, userIds, timeouts);
+			redisCache.expire(timeouts, TimeUnit.MILLISECONDS);
+		} catch (Exception e) {
+			log.error("批量续期令牌异常'{}'", e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		flushPendingRefresh();
+	}
+
 	/**
 	 * 刷新令牌有效期
 	 * 
@@ -184,8 +440,29 @@ public class TokenService {
 		loginUser.setLoginTime(System.currentTimeMillis());
 		loginUser.setExpireTime(loginUser.getLoginTime() + expireTime * MILLIS_MINUTE);
 		// 根据uuid将loginUser缓存
+		pendingRefresh.remove(loginUser.getToken());
 		String userKey = getTokenKey(loginUser.getToken());
 		redisCache.setCacheObject(userKey, loginUser, expireTime, TimeUnit.MINUTES);
+		sessionIndex.add(loginUser);
+		nearCache.put(loginUser.getToken(), loginUser, loginUser.getExpireTime());
+		cacheBroadcaster.publish(CacheConstants.LOGIN_TOKEN_CHANNEL, loginUser.getToken());
+	}
+
+	/**
+	 * 使本节点及其他节点的近端缓存失效
+	 * 
+	 * @param uuid 令牌uuid
+	 */
+	private void invalidateNearCache(String uuid) {
+		nearCache.invalidate(uuid);
+		cacheBroadcaster.publish(CacheConstants.LOGIN_TOKEN_CHANNEL, uuid);
+	}
+
+	/**
+	 * 近端缓存统计信息
+	 */
+	public Map<String, Object> getNearCacheStats() {
+		return nearCache.getStats();
 	}
 
 	/**
@@ -260,4 +537,18 @@ public class TokenService {
 	private String getTokenKey(String uuid) {
 		return CacheConstants.LOGIN_TOKEN_KEY + uuid;
 	}
+
+	/**
+	 * 待续期的令牌所属用户及新的过期时间点
+	 */
+	private static class PendingRefresh {
+		private final Long userId;
+
+		private final long expireAt;
+
+		PendingRefresh(Long userId, long expireAt) {
+			this.userId = userId;
+			this.expireAt = expireAt;
+		}
+	}
 }
@@ -53,6 +53,11 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 	}
 
 	public UserDetails createLoginUser(SysUser user) {
-		return new LoginUser(user.getUserId(), user.getDeptId(), user, permissionService.getMenuPermission(user));
+		LoginUser loginUser = new LoginUser(user.getUserId(), user.getDeptId(), user,
+				permissionService.getMenuPermission(user));
+		// 登录时即编译权限、角色位图
+		loginUser.getPermissionBits();
+		loginUser.getRoleBits();
+		return loginUser;
 	}
 }
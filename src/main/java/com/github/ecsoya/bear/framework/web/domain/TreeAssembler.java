@@ -0,0 +1,175 @@
+package com.github.ecsoya.bear.framework.web.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 树结构组装，按ID建立一次索引后链接父子节点，再从根节点逐层展开，耗时与节点数成正比
+ * <p>
+ * 不修改传入的列表；父节点不在列表中的节点为根节点，层级成环的节点不可达，不出现在结果中。配置完成后可在多线程间共享。
+ *
+ * @param <T> 节点类型
+ * @author angryred
+ */
+public class TreeAssembler<T> {
+	private final Function<? super T, ?> idGetter;
+
+	private final Function<? super T, ?> parentIdGetter;
+
+	private BiConsumer<? super T, List<T>> childrenSetter;
+
+	private Function<? super T, String> labelGetter;
+
+	private Comparator<? super T> comparator;
+
+	/**
+	 * @param idGetter       节点ID
+	 * @param parentIdGetter 父节点ID
+	 */
+	public TreeAssembler(Function<? super T, ?> idGetter, Function<? super T, ?> parentIdGetter) {
+		this.idGetter = idGetter;
+		this.parentIdGetter = parentIdGetter;
+	}
+
+	/**
+	 * 设置子节点，组装节点本身时使用
+	 */
+	public TreeAssembler<T> children(BiConsumer<? super T, List<T>> childrenSetter) {
+		this.childrenSetter = childrenSetter;
+		return this;
+	}
+
+	/**
+	 * 节点名称，组装下拉树时使用
+	 */
+	public TreeAssembler<T> label(Function<? super T, String> labelGetter) {
+		this.labelGetter = labelGetter;
+		return this;
+	}
+
+	/**
+	 * 同级节点按显示顺序排列，顺序为空的排在最后，相同时保持列表中的顺序
+	 */
+	public TreeAssembler<T> orderBy(Function<? super T, Integer> orderNumGetter) {
+		this.comparator = Comparator.comparing(orderNumGetter, Comparator.nullsLast(Comparator.naturalOrder()));
+		return this;
+	}
+
+	/**
+	 * 组装树结构，父节点不在列表中的节点为根节点；没有根节点时（全部成环）原样返回所有节点
+	 *
+	 * @param nodes 节点列表
+	 * @return 根节点列表
+	 */
+	public List<T> build(List<T> nodes) {
+		return assemble(nodes, false, null, node -> node, this::setChildren);
+	}
+
+	/**
+	 * 组装指定父节点下的树结构，父节点不在列表中的其他节点不可达
+	 *
+	 * @param nodes        节点列表
+	 * @param rootParentId 根节点的父节点ID
+	 * @return 根节点列表
+	 */
+	public List<T> build(List<T> nodes, Object rootParentId) {
+		return assemble(nodes, true, rootParentId, node -> node, this::setChildren);
+	}
+
+	/**
+	 * 直接组装下拉树，不修改节点本身；节点ID需为数字
+	 *
+	 * @param nodes 节点列表
+	 * @return 下拉树结构列表
+	 */
+	public List<TreeSelect> buildSelect(List<T> nodes) {
+		return assemble(nodes, false, null, this::toTreeSelect, TreeSelect::setChildren);
+	}
+
+	private void setChildren(T node, List<T> children) {
+		if (childrenSetter != null) {
+			childrenSetter.accept(node, children);
+		}
+	}
+
+	private TreeSelect toTreeSelect(T node) {
+		TreeSelect treeSelect = new TreeSelect();
+		treeSelect.setId(((Number) idGetter.apply(node)).longValue());
+		treeSelect.setLabel(labelGetter != null ? labelGetter.apply(node) : null);
+		return treeSelect;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R> List<R> assemble(List<T> source, boolean fixedRoot, Object rootParentId, Function<T, R> creator,
+			BiConsumer<R, List<R>> setter) {
+		List<T> nodes = source;
+		if (comparator != null) {
+			nodes = new ArrayList<T>(source);
+			nodes.sort(comparator);
+		}
+		int size = nodes.size();
+		Map<Object, Integer> positions = new HashMap<Object, Integer>(size * 4 / 3 + 1);
+		for (int i = 0; i < size; i++) {
+			positions.putIfAbsent(idGetter.apply(nodes.get(i)), i);
+		}
+		// head 为第一个子节点，next 为下一个兄弟节点，count 为子节点数，-1 表示没有
+		int[] head = new int[size];
+		int[] next = new int[size];
+		int[] count = new int[size];
+		Arrays.fill(head, -1);
+		int root = -1;
+		// 倒序插入链表头，同级节点保持列表中的顺序
+		for (int i = size - 1; i >= 0; i--) {
+			T node = nodes.get(i);
+			Object parentId = parentIdGetter.apply(node);
+			Integer parent = positions.get(parentId);
+			boolean isRoot = fixedRoot ? Objects.equals(parentId, rootParentId) : parent == null || parent == i;
+			if (isRoot) {
+				next[i] = root;
+				root = i;
+			} else if (parent != null && parent != i) {
+				next[i] = head[parent];
+				head[parent] = i;
+				count[parent]++;
+			}
+		}
+		if (root == -1 && !fixedRoot && size > 0) {
+			Arrays.fill(head, -1);
+			Arrays.fill(count, 0);
+			for (int i = size - 1; i >= 0; i--) {
+				next[i] = root;
+				root = i;
+			}
+		}
+		// 逐层展开，每个节点只有一个父节点，最多入队一次
+		List<R> roots = new ArrayList<R>();
+		Object[] values = new Object[size];
+		int[] queue = new int[size];
+		int tail = 0;
+		for (int i = root; i != -1; i = next[i]) {
+			R value = creator.apply(nodes.get(i));
+			values[i] = value;
+			roots.add(value);
+			queue[tail++] = i;
+		}
+		for (int current = 0; current < tail; current++) {
+			int parent = queue[current];
+			List<R> children = new ArrayList<R>(count[parent]);
+			for (int i = head[parent]; i != -1; i = next[i]) {
+				R value = creator.apply(nodes.get(i));
+				values[i] = value;
+				children.add(value);
+				queue[tail++] = i;
+			}
+			setter.accept((R) values[parent], children);
+		}
+		return roots;
+	}
+}
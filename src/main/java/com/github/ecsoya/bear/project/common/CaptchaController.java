@@ -16,7 +16,7 @@ import com.github.ecsoya.bear.common.constant.CacheConstants;
 import com.github.ecsoya.bear.common.constant.Constants;
 import com.github.ecsoya.bear.common.utils.sign.Base64;
 import com.github.ecsoya.bear.common.utils.uuid.IdUtils;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
+import com.github.ecsoya.bear.framework.cache.ICache;
 import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
 import com.github.ecsoya.bear.project.system.service.ISysConfigService;
 import com.google.code.kaptcha.Producer;
@@ -38,7 +38,7 @@ public class CaptchaController {
 	private Producer captchaProducerMath;
 
 	@Autowired
-	private RedisCache redisCache;
+	private ICache redisCache;
 
 	// 验证码类型
 	@Value("${global.captchaType}")
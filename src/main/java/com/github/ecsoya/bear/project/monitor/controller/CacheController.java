@@ -1,28 +1,42 @@
 package com.github.ecsoya.bear.project.monitor.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisCallback;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.alibaba.fastjson2.JSON;
 import com.github.ecsoya.bear.common.constant.CacheConstants;
 import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.common.utils.ip.IpUtils;
+import com.github.ecsoya.bear.framework.aspectj.lang.annotation.Anonymous;
+import com.github.ecsoya.bear.framework.cache.CacheMetrics;
+import com.github.ecsoya.bear.framework.cache.ICache;
+import com.github.ecsoya.bear.framework.cache.ScanPage;
+import com.github.ecsoya.bear.framework.redis.HotKeyDetector;
+import com.github.ecsoya.bear.framework.redis.RedisCircuitBreaker;
+import com.github.ecsoya.bear.framework.redis.NearCache;
+import com.github.ecsoya.bear.framework.redis.codec.CodecRedisSerializer;
 import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
 import com.github.ecsoya.bear.project.monitor.domain.SysCache;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 /**
  * 缓存监控
  * 
@@ -32,7 +46,27 @@ import com.github.ecsoya.bear.project.monitor.domain.SysCache;
 @RequestMapping("/monitor/cache")
 public class CacheController {
 	@Autowired
-	private RedisTemplate<String, String> redisTemplate;
+	private ICache redisCache;
+
+	@Autowired
+	private CodecRedisSerializer codecRedisSerializer;
+
+	@Autowired
+	private CacheMetrics cacheMetrics;
+
+	@Autowired
+	private HotKeyDetector hotKeyDetector;
+
+	@Autowired
+	private RedisCircuitBreaker circuitBreaker;
+
+	/** 外部采集指标的令牌，为空时不开放外部采集 */
+	@Value("${cache.metrics.scrapeToken:}")
+	private String scrapeToken;
+
+	/** 允许外部采集的IP，分号分隔，支持通配和网段，为空时不限制 */
+	@Value("${cache.metrics.scrapeAllowIps:}")
+	private String scrapeAllowIps;
 
 	private final static List<SysCache> caches = new ArrayList<SysCache>();
 	{
@@ -48,10 +82,9 @@ public class CacheController {
 	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
 	@GetMapping()
 	public AjaxResult getInfo() throws Exception {
-		Properties info = (Properties) redisTemplate.execute((RedisCallback<Object>) connection -> connection.info());
-		Properties commandStats = (Properties) redisTemplate
-				.execute((RedisCallback<Object>) connection -> connection.info("commandstats"));
-		Object dbSize = redisTemplate.execute((RedisCallback<Object>) connection -> connection.dbSize());
+		Properties info = redisCache.info(null);
+		Properties commandStats = redisCache.info("commandstats");
+		Object dbSize = redisCache.dbSize();
 
 		Map<String, Object> result = new HashMap<>(3);
 		result.put("info", info);
@@ -75,17 +108,105 @@ public class CacheController {
 		return AjaxResult.success(caches);
 	}
 
+	/**
+	 * 进程内近端缓存统计（命中、未命中、容量）
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+	@GetMapping("/getNearCaches")
+	public AjaxResult getNearCaches() {
+		return AjaxResult.success(NearCache.getAllStats());
+	}
+
+	/**
+	 * 缓存值编码统计（二进制与JSON抽样对比）
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+	@GetMapping("/getCodecStats")
+	public AjaxResult getCodecStats() {
+		return AjaxResult.success(codecRedisSerializer.getStats());
+	}
+
+	/**
+	 * 按业务前缀的缓存指标（命中率、操作耗时、抽样估算的键数和内存占用）
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+	@GetMapping("/getMetrics")
+	public AjaxResult getMetrics(@RequestParam(required = false, defaultValue = "false") boolean refresh) {
+		if (refresh) {
+			cacheMetrics.sample();
+		}
+		return AjaxResult.success(cacheMetrics.getStats());
+	}
+
+	/**
+	 * 当前热点键（抽样估算的读取次数、是否已提升到本节点）
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+	@GetMapping("/getHotKeys")
+	public AjaxResult getHotKeys() {
+		return AjaxResult.success(hotKeyDetector.getHotKeys());
+	}
+
+	/**
+	 * Redis 熔断器状态与最近的状态变更
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+	@GetMapping("/getBreaker")
+	public AjaxResult getBreaker() {
+		return AjaxResult.success(circuitBreaker.getStats());
+	}
+
+	/**
+	 * 缓存指标，Prometheus 文本格式，供外部采集
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
+	@GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+	public String metrics() {
+		return cacheMetrics.scrape();
+	}
+
+	/**
+	 * 缓存指标，供 Prometheus 等外部采集，不使用登录令牌；请求头 X-Metrics-Token 需与采集令牌一致
+	 */
+	@Anonymous
+	@GetMapping(value = "/metrics/scrape", produces = "text/plain; version=0.0.4; charset=utf-8")
+	public ResponseEntity<String> scrape(HttpServletRequest request) {
+		if (!isScrapeAllowed(request)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		return ResponseEntity.ok(cacheMetrics.scrape());
+	}
+
+	private boolean isScrapeAllowed(HttpServletRequest request) {
+		String token = request.getHeader("X-Metrics-Token");
+		if (StringUtils.isEmpty(scrapeToken) || StringUtils.isEmpty(token)) {
+			return false;
+		}
+		if (StringUtils.isNotEmpty(scrapeAllowIps)
+				&& !IpUtils.isMatchedIp(scrapeAllowIps, IpUtils.getIpAddr(request))) {
+			return false;
+		}
+		// 固定耗时比较，避免按耗时猜测令牌
+		return MessageDigest.isEqual(scrapeToken.getBytes(StandardCharsets.UTF_8),
+				token.getBytes(StandardCharsets.UTF_8));
+	}
+
 	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
 	@GetMapping("/getKeys/{cacheName}")
-	public AjaxResult getCacheKeys(@PathVariable String cacheName) {
-		Set<String> cacheKeys = redisTemplate.keys(cacheName + "*");
-		return AjaxResult.success(cacheKeys);
+	public AjaxResult getCacheKeys(@PathVariable String cacheName,
+			@RequestParam(required = false, defaultValue = ScanPage.FINISHED) String cursor,
+			@RequestParam(required = false, defaultValue = "100") int count) {
+		// 按游标分页，返回的 cursor 为 0 时表示已全部获取
+		ScanPage page = redisCache.scan(cacheName + "*", cursor, Math.min(Math.max(count, 1), 1000));
+		return AjaxResult.success(page.getKeys()).put("cursor", page.getCursor());
 	}
 
 	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
 	@GetMapping("/getValue/{cacheName}/{cacheKey}")
 	public AjaxResult getCacheValue(@PathVariable String cacheName, @PathVariable String cacheKey) {
-		String cacheValue = redisTemplate.opsForValue().get(cacheKey);
+		// 缓存值可能是二进制格式，统一解码后以JSON展示
+		Object value = redisCache.getCacheObject(cacheKey);
+		String cacheValue = value == null || value instanceof String ? (String) value : JSON.toJSONString(value);
 		SysCache sysCache = new SysCache(cacheName, cacheKey, cacheValue);
 		return AjaxResult.success(sysCache);
 	}
@@ -93,23 +214,21 @@ public class CacheController {
 	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
 	@DeleteMapping("/clearCacheName/{cacheName}")
 	public AjaxResult clearCacheName(@PathVariable String cacheName) {
-		Collection<String> cacheKeys = redisTemplate.keys(cacheName + "*");
-		redisTemplate.delete(cacheKeys);
+		redisCache.deleteByPattern(cacheName + "*");
 		return AjaxResult.success();
 	}
 
 	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
 	@DeleteMapping("/clearCacheKey/{cacheKey}")
 	public AjaxResult clearCacheKey(@PathVariable String cacheKey) {
-		redisTemplate.delete(cacheKey);
+		redisCache.deleteObject(cacheKey);
 		return AjaxResult.success();
 	}
 
 	@PreAuthorize("@ss.hasPermi('monitor:cache:list')")
 	@DeleteMapping("/clearCacheAll")
 	public AjaxResult clearCacheAll() {
-		Collection<String> cacheKeys = redisTemplate.keys("*");
-		redisTemplate.delete(cacheKeys);
+		redisCache.deleteByPattern("*");
 		return AjaxResult.success();
 	}
 }
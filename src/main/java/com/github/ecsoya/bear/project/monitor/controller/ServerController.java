@@ -1,10 +1,12 @@
 package com.github.ecsoya.bear.project.monitor.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.github.ecsoya.bear.framework.security.service.PasswordHashService;
 import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
 import com.github.ecsoya.bear.framework.web.domain.Server;
 
@@ -16,6 +18,9 @@ import com.github.ecsoya.bear.framework.web.domain.Server;
 @RestController
 @RequestMapping("/monitor/server")
 public class ServerController {
+	@Autowired
+	private PasswordHashService passwordHashService;
+
 	@PreAuthorize("@ss.hasPermi('monitor:server:list')")
 	@GetMapping()
 	public AjaxResult getInfo() throws Exception {
@@ -23,4 +28,13 @@ public class ServerController {
 		server.copyTo();
 		return AjaxResult.success(server);
 	}
+
+	/**
+	 * 密码哈希线程池指标
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:server:list')")
+	@GetMapping("/passwordHash")
+	public AjaxResult passwordHash() {
+		return AjaxResult.success(passwordHashService.getStats());
+	}
 }
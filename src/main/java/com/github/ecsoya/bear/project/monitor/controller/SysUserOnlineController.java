@@ -1,9 +1,8 @@
 package com.github.ecsoya.bear.project.monitor.controller;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,15 +12,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.github.ecsoya.bear.common.constant.CacheConstants;
+import com.github.ecsoya.bear.common.utils.ServletUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.framework.aspectj.lang.annotation.Log;
 import com.github.ecsoya.bear.framework.aspectj.lang.enums.BusinessType;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
-import com.github.ecsoya.bear.framework.security.LoginUser;
+import com.github.ecsoya.bear.framework.security.service.LoginSessionIndex;
+import com.github.ecsoya.bear.framework.security.service.SessionEpochService;
+import com.github.ecsoya.bear.framework.security.service.TokenService;
 import com.github.ecsoya.bear.framework.web.controller.BaseController;
 import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
+import com.github.ecsoya.bear.framework.web.page.PageDomain;
 import com.github.ecsoya.bear.framework.web.page.TableDataInfo;
+import com.github.ecsoya.bear.framework.web.page.TableSupport;
 import com.github.ecsoya.bear.project.monitor.domain.SysUserOnline;
 import com.github.ecsoya.bear.project.system.service.ISysUserOnlineService;
 
@@ -37,38 +39,99 @@ public class SysUserOnlineController extends BaseController {
 	private ISysUserOnlineService userOnlineService;
 
 	@Autowired
-	private RedisCache redisCache;
+	private LoginSessionIndex sessionIndex;
+
+	@Autowired
+	private TokenService tokenService;
+
+	@Autowired
+	private SessionEpochService sessionEpochService;
 
 	@PreAuthorize("@ss.hasPermi('monitor:online:list')")
 	@GetMapping("/list")
 	public TableDataInfo list(String ipaddr, String userName) {
-		Collection<String> keys = redisCache.keys(CacheConstants.LOGIN_TOKEN_KEY + "*");
-		List<SysUserOnline> userOnlineList = new ArrayList<SysUserOnline>();
-		for (String key : keys) {
-			LoginUser user = redisCache.getCacheObject(key);
-			if (StringUtils.isNotEmpty(ipaddr) && StringUtils.isNotEmpty(userName)) {
-				userOnlineList.add(userOnlineService.selectOnlineByInfo(ipaddr, userName, user));
-			} else if (StringUtils.isNotEmpty(ipaddr)) {
-				userOnlineList.add(userOnlineService.selectOnlineByIpaddr(ipaddr, user));
-			} else if (StringUtils.isNotEmpty(userName) && StringUtils.isNotNull(user.getUser())) {
-				userOnlineList.add(userOnlineService.selectOnlineByUserName(userName, user));
-			} else {
-				userOnlineList.add(userOnlineService.loginUserToUserOnline(user));
+		// 从在线会话索引读取摘要，传入分页参数时分页返回
+		List<Map<String, String>> summaries;
+		long total;
+		boolean paged = StringUtils.isNotEmpty(ServletUtils.getParameter(TableSupport.PAGE_SIZE));
+		if (StringUtils.isNotEmpty(ipaddr) || StringUtils.isNotEmpty(userName)) {
+			summaries = sessionIndex.search(ipaddr, userName);
+			total = summaries.size();
+			if (paged) {
+				PageDomain page = TableSupport.buildPageRequest();
+				int from = Math.min(Math.max(page.getPageNum() - 1, 0) * page.getPageSize(), summaries.size());
+				summaries = summaries.subList(from, Math.min(from + page.getPageSize(), summaries.size()));
 			}
+		} else if (paged) {
+			PageDomain page = TableSupport.buildPageRequest();
+			total = sessionIndex.count();
+			summaries = sessionIndex.list((long) Math.max(page.getPageNum() - 1, 0) * page.getPageSize(),
+					page.getPageSize());
+		} else {
+			summaries = sessionIndex.search(null, null);
+			total = summaries.size();
+		}
+		List<SysUserOnline> userOnlineList = new ArrayList<SysUserOnline>();
+		for (Map<String, String> summary : summaries) {
+			userOnlineList.add(userOnlineService.summaryToUserOnline(summary));
 		}
-		Collections.reverse(userOnlineList);
-		userOnlineList.removeAll(Collections.singleton(null));
-		return getDataTable(userOnlineList);
+		TableDataInfo rspData = getDataTable(userOnlineList);
+		rspData.setTotal(total);
+		return rspData;
 	}
 
 	/**
 	 * 强退用户
 	 */
-	@PreAuthorize("@ss.hasPermi('monitor:online:list')")
+	@PreAuthorize("@ss.hasPermi('monitor:online:forceLogout')")
 	@Log(title = "在线用户", businessType = BusinessType.FORCE)
 	@DeleteMapping("/{tokenId}")
 	public AjaxResult forceLogout(@PathVariable String tokenId) {
-		redisCache.deleteObject(CacheConstants.LOGIN_TOKEN_KEY + tokenId);
+		tokenService.delLoginUser(tokenId);
+		return success();
+	}
+
+	/**
+	 * 强退用户的全部会话
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:online:batchLogout')")
+	@Log(title = "在线用户", businessType = BusinessType.FORCE)
+	@DeleteMapping("/user/{userId}")
+	public AjaxResult forceLogoutUser(@PathVariable Long userId) {
+		tokenService.removeTokens(userId);
+		return success();
+	}
+
+	/**
+	 * 强退部门下的全部用户
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:online:batchLogout')")
+	@Log(title = "在线用户", businessType = BusinessType.FORCE)
+	@DeleteMapping("/dept/{deptId}")
+	public AjaxResult forceLogoutDept(@PathVariable Long deptId) {
+		sessionEpochService.revokeDept(deptId);
+		return success();
+	}
+
+	/**
+	 * 强退拥有该角色的全部用户
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:online:batchLogout')")
+	@Log(title = "在线用户", businessType = BusinessType.FORCE)
+	@DeleteMapping("/role/{roleId}")
+	public AjaxResult forceLogoutRole(@PathVariable Long roleId) {
+		sessionEpochService.revokeRole(roleId);
+		return success();
+	}
+
+	/**
+	 * 强退全部用户
+	 */
+	@PreAuthorize("@ss.hasPermi('monitor:online:batchLogout')")
+	@Log(title = "在线用户", businessType = BusinessType.FORCE)
+	@DeleteMapping("/all")
+	public AjaxResult forceLogoutAll() {
+		sessionEpochService.revokeAll();
 		return success();
 	}
 }
@@ -118,4 +118,14 @@ public class SysDeptController extends BaseController {
 		deptService.checkDeptDataScope(deptId);
 		return toAjax(deptService.deleteDeptById(deptId));
 	}
+
+	/**
+	 * 重建部门层级关系
+	 */
+	@PreAuthorize("@ss.hasPermi('system:dept:edit')")
+	@Log(title = "部门管理", businessType = BusinessType.UPDATE)
+	@PutMapping("/rebuildClosure")
+	public AjaxResult rebuildClosure() {
+		return success(deptService.rebuildDeptClosure());
+	}
 }
@@ -1,9 +1,12 @@
 package com.github.ecsoya.bear.project.system.controller;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,12 +16,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.poi.ExcelUtil;
 import com.github.ecsoya.bear.framework.aspectj.lang.annotation.Log;
 import com.github.ecsoya.bear.framework.aspectj.lang.enums.BusinessType;
+import com.github.ecsoya.bear.framework.cache.DictIndex;
 import com.github.ecsoya.bear.framework.web.controller.BaseController;
 import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
 import com.github.ecsoya.bear.framework.web.page.TableDataInfo;
@@ -42,6 +48,9 @@ public class SysDictDataController extends BaseController {
 	@Autowired
 	private ISysDictTypeService dictTypeService;
 
+	@Autowired
+	private DictIndex dictIndex;
+
 	@PreAuthorize("@ss.hasPermi('system:dict:list')")
 	@GetMapping("/list")
 	public TableDataInfo list(SysDictData dictData) {
@@ -69,10 +78,13 @@ public class SysDictDataController extends BaseController {
 	}
 
 	/**
-	 * 根据字典类型查询字典数据信息
+	 * 根据字典类型查询字典数据信息，字典未变更时返回 304
 	 */
 	@GetMapping(value = "/type/{dictType}")
-	public AjaxResult dictType(@PathVariable String dictType) {
+	public AjaxResult dictType(@PathVariable String dictType, WebRequest request, HttpServletResponse response) {
+		if (notModified(request, response)) {
+			return null;
+		}
 		List<SysDictData> data = dictTypeService.selectDictDataByType(dictType);
 		if (StringUtils.isNull(data)) {
 			data = new ArrayList<SysDictData>();
@@ -80,6 +92,27 @@ public class SysDictDataController extends BaseController {
 		return success(data);
 	}
 
+	/**
+	 * 批量根据字典类型查询字典数据信息，字典未变更时返回 304
+	 */
+	@GetMapping(value = "/types")
+	public AjaxResult dictTypes(@RequestParam String[] dictTypes, WebRequest request, HttpServletResponse response) {
+		if (notModified(request, response)) {
+			return null;
+		}
+		return success(dictTypeService.selectDictDataByTypes(Arrays.asList(dictTypes)));
+	}
+
+	/**
+	 * 以字典版本号作为 ETag，与请求的 If-None-Match 一致时不再查询
+	 * <p>
+	 * 版本号在查询前读取，返回的数据不会比 ETag 旧；允许浏览器保存响应但每次都需校验。
+	 */
+	private boolean notModified(WebRequest request, HttpServletResponse response) {
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+		return request.checkNotModified("\"dict-" + dictIndex.getVersion() + "\"");
+	}
+
 	/**
 	 * 新增字典类型
 	 */
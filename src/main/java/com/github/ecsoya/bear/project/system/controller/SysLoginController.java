@@ -1,21 +1,24 @@
 package com.github.ecsoya.bear.project.system.controller;
 
-import java.util.List;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.github.ecsoya.bear.common.constant.Constants;
 import com.github.ecsoya.bear.common.utils.SecurityUtils;
 import com.github.ecsoya.bear.framework.security.LoginBody;
 import com.github.ecsoya.bear.framework.security.service.SysLoginService;
+import com.github.ecsoya.bear.framework.security.service.RouterCache.Routers;
 import com.github.ecsoya.bear.framework.security.service.SysPermissionService;
 import com.github.ecsoya.bear.framework.web.domain.AjaxResult;
-import com.github.ecsoya.bear.project.system.domain.SysMenu;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
 import com.github.ecsoya.bear.project.system.service.ISysMenuService;
 
@@ -71,14 +74,17 @@ public class SysLoginController {
 	}
 
 	/**
-	 * 获取路由信息
+	 * 获取路由信息，返回按角色集合缓存的响应，路由未变更时返回 304
 	 * 
 	 * @return 路由信息
 	 */
 	@GetMapping("getRouters")
-	public AjaxResult getRouters() {
-		Long userId = SecurityUtils.getUserId();
-		List<SysMenu> menus = menuService.selectMenuTreeByUserId(userId);
-		return AjaxResult.success(menuService.buildMenus(menus));
+	public ResponseEntity<byte[]> getRouters(WebRequest request) {
+		Routers routers = menuService.selectRoutersByUser(SecurityUtils.getLoginUser().getUser());
+		if (request.checkNotModified(routers.getEtag())) {
+			return null;
+		}
+		return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate())
+				.contentType(MediaType.APPLICATION_JSON).body(routers.getBody());
 	}
 }
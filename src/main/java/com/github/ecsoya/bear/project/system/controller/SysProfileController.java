@@ -57,7 +57,8 @@ public class SysProfileController extends BaseController {
 	@Log(title = "个人信息", businessType = BusinessType.UPDATE)
 	@PutMapping
 	public AjaxResult updateProfile(@RequestBody SysUser user) {
-		LoginUser loginUser = getLoginUser();
+		// 在副本上修改，更新成功后再写回缓存
+		LoginUser loginUser = tokenService.copyLoginUser(getLoginUser());
 		SysUser currentUser = loginUser.getUser();
 		currentUser.setNickName(user.getNickName());
 		currentUser.setEmail(user.getEmail());
@@ -94,6 +95,7 @@ public class SysProfileController extends BaseController {
 		}
 		if (userService.resetUserPwd(userName, SecurityUtils.encryptPassword(newPassword)) > 0) {
 			// 更新缓存用户密码
+			loginUser = tokenService.copyLoginUser(loginUser);
 			loginUser.getUser().setPassword(SecurityUtils.encryptPassword(newPassword));
 			tokenService.setLoginUser(loginUser);
 			return success();
@@ -114,6 +116,7 @@ public class SysProfileController extends BaseController {
 				AjaxResult ajax = AjaxResult.success();
 				ajax.put("imgUrl", avatar);
 				// 更新缓存用户头像
+				loginUser = tokenService.copyLoginUser(loginUser);
 				loginUser.getUser().setAvatar(avatar);
 				tokenService.setLoginUser(loginUser);
 				return ajax;
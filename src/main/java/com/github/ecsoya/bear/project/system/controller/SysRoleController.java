@@ -121,6 +121,7 @@ public class SysRoleController extends BaseController {
 			// 更新缓存用户权限
 			LoginUser loginUser = getLoginUser();
 			if (StringUtils.isNotNull(loginUser.getUser()) && !loginUser.getUser().isAdmin()) {
+				loginUser = tokenService.copyLoginUser(loginUser);
 				loginUser.setPermissions(permissionService.getMenuPermission(loginUser.getUser()));
 				loginUser.setUser(userService.selectUserByUserName(loginUser.getUser().getUserName()));
 				tokenService.setLoginUser(loginUser);
@@ -0,0 +1,144 @@
+package com.github.ecsoya.bear.project.system.domain;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.ecsoya.bear.common.core.text.Convert;
+
+/**
+ * 参数配置快照，不可修改；参数值在创建时解析为布尔和整数，读取时不再转换
+ *
+ * @author angryred
+ */
+public class ConfigSnapshot {
+	/** 空快照 */
+	public static final ConfigSnapshot EMPTY = new ConfigSnapshot(0, Collections.emptyMap());
+
+	/** 版本号，每次参数变更加一 */
+	private final long version;
+
+	/** 参数键名与参数值 */
+	private final Map<String, Value> values;
+
+	private ConfigSnapshot(long version, Map<String, Value> values) {
+		this.version = version;
+		this.values = values;
+	}
+
+	/**
+	 * 创建快照
+	 *
+	 * @param version 版本号
+	 * @param configs 参数键名与参数键值
+	 * @return 快照
+	 */
+	public static ConfigSnapshot of(long version, Map<String, String> configs) {
+		Map<String, Value> values = new HashMap<String, Value>(configs.size() * 4 / 3 + 1);
+		configs.forEach((key, value) -> values.put(key, new Value(value)));
+		return new ConfigSnapshot(version, values);
+	}
+
+	/**
+	 * 在当前快照基础上应用变更，生成新的快照
+	 *
+	 * @param version 新版本号
+	 * @param changed 新增或修改的参数
+	 * @param removed 删除的参数键名
+	 * @return 新的快照
+	 */
+	public ConfigSnapshot apply(long version, Map<String, String> changed, Collection<String> removed) {
+		Map<String, Value> values = new HashMap<String, Value>(this.values);
+		removed.forEach(values::remove);
+		changed.forEach((key, value) -> values.put(key, new Value(value)));
+		return new ConfigSnapshot(version, values);
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int size() {
+		return values.size();
+	}
+
+	public boolean contains(String configKey) {
+		return values.containsKey(configKey);
+	}
+
+	/**
+	 * 获取参数键值
+	 *
+	 * @param configKey 参数键名
+	 * @return 参数键值，不存在时为空
+	 */
+	public String getString(String configKey) {
+		Value value = values.get(configKey);
+		return value != null ? value.text : null;
+	}
+
+	/**
+	 * 获取参数键值
+	 *
+	 * @param configKey    参数键名
+	 * @param defaultValue 不存在时的默认值
+	 * @return 参数键值
+	 */
+	public String getString(String configKey, String defaultValue) {
+		String text = getString(configKey);
+		return text != null ? text : defaultValue;
+	}
+
+	/**
+	 * 获取布尔型参数（true/yes/ok/1 为真，false/no/0 为假）
+	 *
+	 * @param configKey    参数键名
+	 * @param defaultValue 不存在或无法转换时的默认值
+	 * @return 参数值
+	 */
+	public boolean getBoolean(String configKey, boolean defaultValue) {
+		Value value = values.get(configKey);
+		return value != null && value.bool != null ? value.bool : defaultValue;
+	}
+
+	/**
+	 * 获取整数型参数
+	 *
+	 * @param configKey    参数键名
+	 * @param defaultValue 不存在或无法转换时的默认值
+	 * @return 参数值
+	 */
+	public long getLong(String configKey, long defaultValue) {
+		Value value = values.get(configKey);
+		return value != null && value.number != null ? value.number : defaultValue;
+	}
+
+	/**
+	 * 获取整数型参数
+	 *
+	 * @param configKey    参数键名
+	 * @param defaultValue 不存在或无法转换时的默认值
+	 * @return 参数值
+	 */
+	public int getInt(String configKey, int defaultValue) {
+		return (int) getLong(configKey, defaultValue);
+	}
+
+	/**
+	 * 参数值及预先解析的类型值
+	 */
+	private static final class Value {
+		private final String text;
+
+		private final Boolean bool;
+
+		private final Long number;
+
+		private Value(String text) {
+			this.text = text;
+			this.bool = Convert.toBool(text, null);
+			this.number = Convert.toLong(text, null);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.github.ecsoya.bear.project.system.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 部门层级关系 sys_dept_closure
+ * 
+ * @author angryred
+ */
+public class SysDeptClosure {
+	/** 上级部门ID */
+	private Long ancestorId;
+
+	/** 下级部门ID */
+	private Long descendantId;
+
+	/** 层级距离（自身为0） */
+	private Integer depth;
+
+	public Long getAncestorId() {
+		return ancestorId;
+	}
+
+	public void setAncestorId(Long ancestorId) {
+		this.ancestorId = ancestorId;
+	}
+
+	public Long getDescendantId() {
+		return descendantId;
+	}
+
+	public void setDescendantId(Long descendantId) {
+		this.descendantId = descendantId;
+	}
+
+	public Integer getDepth() {
+		return depth;
+	}
+
+	public void setDepth(Integer depth) {
+		this.depth = depth;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE).append("ancestorId", getAncestorId())
+				.append("descendantId", getDescendantId()).append("depth", getDepth()).toString();
+	}
+}
@@ -15,6 +15,9 @@ public class SysRoleMenu {
 	/** 菜单ID */
 	private Long menuId;
 
+	/** 菜单权限标识 */
+	private String perms;
+
 	public Long getRoleId() {
 		return roleId;
 	}
@@ -31,9 +34,17 @@ public class SysRoleMenu {
 		this.menuId = menuId;
 	}
 
+	public String getPerms() {
+		return perms;
+	}
+
+	public void setPerms(String perms) {
+		this.perms = perms;
+	}
+
 	@Override
 	public String toString() {
 		return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE).append("roleId", getRoleId())
-				.append("menuId", getMenuId()).toString();
+				.append("menuId", getMenuId()).append("perms", getPerms()).toString();
 	}
 }
@@ -0,0 +1,62 @@
+package com.github.ecsoya.bear.project.system.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+
+import com.github.ecsoya.bear.project.system.domain.SysDeptClosure;
+
+/**
+ * 部门层级关系表 数据层
+ * 
+ * @author angryred
+ */
+public interface SysDeptClosureMapper {
+	/**
+	 * 新增部门时写入其与自身及全部上级部门的关系
+	 * 
+	 * @param deptId   部门ID
+	 * @param parentId 父部门ID
+	 * @return 结果
+	 */
+	public int insertDeptClosure(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
+
+	/**
+	 * 部门移动前删除其子树与原上级部门的关系
+	 * 
+	 * @param deptId 部门ID
+	 * @return 结果
+	 */
+	public int deleteDeptClosureAncestors(Long deptId);
+
+	/**
+	 * 部门移动后写入其子树与新上级部门的关系
+	 * 
+	 * @param deptId   部门ID
+	 * @param parentId 新的父部门ID
+	 * @return 结果
+	 */
+	public int insertDeptClosureAncestors(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
+
+	/**
+	 * 查询层级关系中的部门数（自身关系条数）
+	 * 
+	 * @return 结果
+	 */
+	public int selectDeptClosureCount();
+
+	/**
+	 * 清空部门层级关系
+	 * 
+	 * @return 结果
+	 */
+	public int deleteDeptClosureAll();
+
+	/**
+	 * 批量新增部门层级关系
+	 * 
+	 * @param closureList 部门层级关系列表
+	 * @return 结果
+	 */
+	public int batchDeptClosure(List<SysDeptClosure> closureList);
+}
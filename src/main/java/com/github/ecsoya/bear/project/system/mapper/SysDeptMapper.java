@@ -54,6 +54,21 @@ public interface SysDeptMapper {
 	 */
 	public int selectNormalChildrenDeptById(Long deptId);
 
+	/**
+	 * 根据ID查询部门及其全部上级、下级部门（含已删除）
+	 * 
+	 * @param deptId 部门ID
+	 * @return 部门列表
+	 */
+	public List<SysDept> selectDeptLineageById(Long deptId);
+
+	/**
+	 * 查询全部部门（含已删除）的父部门，用于重建部门层级关系
+	 * 
+	 * @return 部门列表，仅含部门ID和父部门ID
+	 */
+	public List<SysDept> selectDeptParentList();
+
 	/**
 	 * 是否存在子节点
 	 * 
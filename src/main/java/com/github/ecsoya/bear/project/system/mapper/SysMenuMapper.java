@@ -5,6 +5,7 @@ import java.util.List;
 import org.apache.ibatis.annotations.Param;
 
 import com.github.ecsoya.bear.project.system.domain.SysMenu;
+import com.github.ecsoya.bear.project.system.domain.SysRoleMenu;
 
 /**
  * 菜单表 数据层
@@ -51,6 +52,13 @@ public interface SysMenuMapper {
 	 */
 	public List<String> selectMenuPermsByRoleId(Long roleId);
 
+	/**
+	 * 查询所有角色的菜单权限
+	 * 
+	 * @return 角色与权限标识列表
+	 */
+	public List<SysRoleMenu> selectRoleMenuPerms();
+
 	/**
 	 * 根据用户ID查询菜单
 	 * 
@@ -66,6 +74,14 @@ public interface SysMenuMapper {
 	 */
 	public List<SysMenu> selectMenuTreeByUserId(Long userId);
 
+	/**
+	 * 根据角色ID集合查询菜单
+	 * 
+	 * @param roleIds 角色ID集合
+	 * @return 菜单列表
+	 */
+	public List<SysMenu> selectMenuTreeByRoleIds(List<Long> roleIds);
+
 	/**
 	 * 根据角色ID查询菜单树信息
 	 * 
@@ -2,6 +2,7 @@ package com.github.ecsoya.bear.project.system.service;
 
 import java.util.List;
 
+import com.github.ecsoya.bear.project.system.domain.ConfigSnapshot;
 import com.github.ecsoya.bear.project.system.domain.SysConfig;
 
 /**
@@ -35,6 +36,13 @@ public interface ISysConfigService {
 	 */
 	public boolean selectCaptchaEnabled();
 
+	/**
+	 * 获取参数配置快照，按类型读取参数
+	 * 
+	 * @return 当前快照
+	 */
+	public ConfigSnapshot getConfigSnapshot();
+
 	/**
 	 * 查询参数配置列表
 	 * 
@@ -121,4 +121,11 @@ public interface ISysDeptService {
 	 * @return 结果
 	 */
 	public int deleteDeptById(Long deptId);
+
+	/**
+	 * 按父部门重建部门层级关系
+	 * 
+	 * @return 写入的关系条数
+	 */
+	public int rebuildDeptClosure();
 }
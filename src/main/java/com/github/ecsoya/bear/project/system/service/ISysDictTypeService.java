@@ -1,6 +1,8 @@
 package com.github.ecsoya.bear.project.system.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.github.ecsoya.bear.project.system.domain.SysDictData;
 import com.github.ecsoya.bear.project.system.domain.SysDictType;
@@ -34,6 +36,14 @@ public interface ISysDictTypeService {
 	 */
 	public List<SysDictData> selectDictDataByType(String dictType);
 
+	/**
+	 * 批量根据字典类型查询字典数据
+	 * 
+	 * @param dictTypes 字典类型集合
+	 * @return 字典类型与字典数据集合，不存在的类型为空集合
+	 */
+	public Map<String, List<SysDictData>> selectDictDataByTypes(Collection<String> dictTypes);
+
 	/**
 	 * 根据字典类型ID查询信息
 	 * 
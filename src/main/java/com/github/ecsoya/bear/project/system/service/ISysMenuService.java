@@ -3,8 +3,10 @@ package com.github.ecsoya.bear.project.system.service;
 import java.util.List;
 import java.util.Set;
 
+import com.github.ecsoya.bear.framework.security.service.RouterCache.Routers;
 import com.github.ecsoya.bear.framework.web.domain.TreeSelect;
 import com.github.ecsoya.bear.project.system.domain.SysMenu;
+import com.github.ecsoya.bear.project.system.domain.SysUser;
 import com.github.ecsoya.bear.project.system.domain.vo.RouterVo;
 
 /**
@@ -70,6 +72,14 @@ public interface ISysMenuService {
 	 */
 	public List<RouterVo> buildMenus(List<SysMenu> menus);
 
+	/**
+	 * 查询用户的前端路由，按角色集合缓存序列化后的响应
+	 * 
+	 * @param user 用户信息
+	 * @return 路由响应
+	 */
+	public Routers selectRoutersByUser(SysUser user);
+
 	/**
 	 * 构建前端所需要树结构
 	 * 
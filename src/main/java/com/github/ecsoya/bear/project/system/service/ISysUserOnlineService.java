@@ -1,5 +1,7 @@
 package com.github.ecsoya.bear.project.system.service;
 
+import java.util.Map;
+
 import com.github.ecsoya.bear.framework.security.LoginUser;
 import com.github.ecsoya.bear.project.monitor.domain.SysUserOnline;
 
@@ -44,4 +46,12 @@ public interface ISysUserOnlineService {
 	 * @return 在线用户
 	 */
 	public SysUserOnline loginUserToUserOnline(LoginUser user);
+
+	/**
+	 * 由在线会话摘要设置在线用户信息
+	 * 
+	 * @param summary 会话摘要
+	 * @return 在线用户
+	 */
+	public SysUserOnline summaryToUserOnline(Map<String, String> summary);
 }
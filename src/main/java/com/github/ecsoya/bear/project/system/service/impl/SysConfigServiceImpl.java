@@ -1,18 +1,32 @@
 package com.github.ecsoya.bear.project.system.service.impl;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.github.ecsoya.bear.common.constant.CacheConstants;
 import com.github.ecsoya.bear.common.constant.UserConstants;
 import com.github.ecsoya.bear.common.core.text.Convert;
 import com.github.ecsoya.bear.common.exception.ServiceException;
 import com.github.ecsoya.bear.common.utils.StringUtils;
-import com.github.ecsoya.bear.framework.redis.RedisCache;
+import com.github.ecsoya.bear.framework.cache.ICache;
+import com.github.ecsoya.bear.framework.redis.CacheBroadcaster;
+import com.github.ecsoya.bear.project.system.domain.ConfigSnapshot;
 import com.github.ecsoya.bear.project.system.domain.SysConfig;
 import com.github.ecsoya.bear.project.system.mapper.SysConfigMapper;
 import com.github.ecsoya.bear.project.system.service.ISysConfigService;
@@ -26,11 +40,29 @@ import jakarta.annotation.PostConstruct;
  */
 @Service
 public class SysConfigServiceImpl implements ISysConfigService {
+	private static final Logger log = LoggerFactory.getLogger(SysConfigServiceImpl.class);
+
+	/** 全部重置时的变更通知 */
+	private static final String ALL_CONFIGS = "*";
+
 	@Autowired
 	private SysConfigMapper configMapper;
 
 	@Autowired
-	private RedisCache redisCache;
+	private ICache redisCache;
+
+	@Autowired
+	private CacheBroadcaster cacheBroadcaster;
+
+	@Autowired
+	private ScheduledExecutorService scheduledExecutorService;
+
+	/** 与缓存中的版本号比对的间隔（秒），变更另有实时通知 */
+	@Value("${cache.config.refreshInterval:60}")
+	private int refreshInterval;
+
+	/** 全部参数的进程内快照，读取参数不再访问缓存和数据库 */
+	private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
 
 	/**
 	 * 项目启动时，初始化参数到缓存
@@ -38,6 +70,9 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	@PostConstruct
 	public void init() {
 		loadingConfigCache();
+		cacheBroadcaster.subscribe(CacheConstants.SYS_CONFIG_CHANNEL, this::onConfigChanged);
+		scheduledExecutorService.scheduleWithFixedDelay(this::checkVersion, refreshInterval, refreshInterval,
+				TimeUnit.SECONDS);
 	}
 
 	/**
@@ -71,18 +106,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	 */
 	@Override
 	public String selectConfigValueByKey(String configKey) {
-		String configValue = Convert.toStr(redisCache.getCacheObject(getCacheKey(configKey)));
-		if (StringUtils.isNotEmpty(configValue)) {
-			return configValue;
-		}
-		SysConfig config = new SysConfig();
-		config.setConfigKey(configKey);
-		SysConfig retConfig = configMapper.selectConfig(config);
-		if (StringUtils.isNotNull(retConfig)) {
-			redisCache.setCacheObject(getCacheKey(configKey), retConfig.getConfigValue());
-			return retConfig.getConfigValue();
-		}
-		return StringUtils.EMPTY;
+		return snapshot.getString(configKey, StringUtils.EMPTY);
 	}
 
 	/**
@@ -92,11 +116,17 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	 */
 	@Override
 	public boolean selectCaptchaEnabled() {
-		String captchaEnabled = selectConfigValueByKey("sys.account.captchaEnabled");
-		if (StringUtils.isEmpty(captchaEnabled)) {
-			return true;
-		}
-		return Convert.toBool(captchaEnabled);
+		return snapshot.getBoolean("sys.account.captchaEnabled", true);
+	}
+
+	/**
+	 * 获取参数配置快照
+	 * 
+	 * @return 当前快照
+	 */
+	@Override
+	public ConfigSnapshot getConfigSnapshot() {
+		return snapshot;
 	}
 
 	/**
@@ -121,6 +151,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
 		int row = configMapper.insertConfig(config);
 		if (row > 0) {
 			redisCache.setCacheObject(getCacheKey(config.getConfigKey()), config.getConfigValue());
+			publishChange(Collections.singletonList(config.getConfigKey()));
 		}
 		return row;
 	}
@@ -134,14 +165,18 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	@Override
 	public int updateConfig(SysConfig config) {
 		SysConfig temp = configMapper.selectConfigById(config.getConfigId());
+		List<String> configKeys = new ArrayList<String>(2);
 		if (!StringUtils.equals(temp.getConfigKey(), config.getConfigKey())) {
 			redisCache.deleteObject(getCacheKey(temp.getConfigKey()));
+			configKeys.add(temp.getConfigKey());
 		}
 
 		int row = configMapper.updateConfig(config);
 		if (row > 0) {
 			redisCache.setCacheObject(getCacheKey(config.getConfigKey()), config.getConfigValue());
+			configKeys.add(config.getConfigKey());
 		}
+		publishChange(configKeys);
 		return row;
 	}
 
@@ -169,6 +204,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	 */
 	@Override
 	public void deleteConfigByIds(Long[] configIds) {
+		List<String> configKeys = new ArrayList<String>(configIds.length);
 		for (Long configId : configIds) {
 			SysConfig config = selectConfigById(configId);
 			if (StringUtils.equals(UserConstants.YES, config.getConfigType())) {
@@ -176,7 +212,9 @@ public class SysConfigServiceImpl implements ISysConfigService {
 			}
 			configMapper.deleteConfigById(configId);
 			redisCache.deleteObject(getCacheKey(config.getConfigKey()));
+			configKeys.add(config.getConfigKey());
 		}
+		publishChange(configKeys);
 	}
 
 	/**
@@ -184,10 +222,17 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	 */
 	@Override
 	public void loadingConfigCache() {
+		// 先读版本号再查询，期间发生的变更会使版本号不一致，下次比对时重新加载
+		long version = getVersion();
 		List<SysConfig> configsList = configMapper.selectConfigList(new SysConfig());
+		Map<String, String> configs = new LinkedHashMap<String, String>(configsList.size());
+		Map<String, String> cacheConfigs = new LinkedHashMap<String, String>(configsList.size());
 		for (SysConfig config : configsList) {
-			redisCache.setCacheObject(getCacheKey(config.getConfigKey()), config.getConfigValue());
+			configs.put(config.getConfigKey(), config.getConfigValue());
+			cacheConfigs.put(getCacheKey(config.getConfigKey()), config.getConfigValue());
 		}
+		redisCache.setCacheObjects(cacheConfigs);
+		snapshot = ConfigSnapshot.of(version, configs);
 	}
 
 	/**
@@ -195,8 +240,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	 */
 	@Override
 	public void clearConfigCache() {
-		Collection<String> keys = redisCache.keys(CacheConstants.SYS_CONFIG_KEY + "*");
-		redisCache.deleteObject(keys);
+		redisCache.deleteByPattern(CacheConstants.SYS_CONFIG_KEY + "*");
 	}
 
 	/**
@@ -205,7 +249,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
 	@Override
 	public void resetConfigCache() {
 		clearConfigCache();
-		loadingConfigCache();
+		publishChange(Collections.singletonList(ALL_CONFIGS));
 	}
 
 	/**
@@ -224,6 +268,88 @@ public class SysConfigServiceImpl implements ISysConfigService {
 		return UserConstants.UNIQUE;
 	}
 
+	/**
+	 * 参数变更后增加版本号、更新本节点快照并通知其他节点，存在事务时在提交后执行
+	 * 
+	 * @param configKeys 变更的参数键名
+	 */
+	private void publishChange(List<String> configKeys) {
+		if (configKeys.isEmpty()) {
+			return;
+		}
+		Runnable action = () -> {
+			long version = redisCache.increment(CacheConstants.SYS_CONFIG_VERSION_KEY, 1);
+			reloadConfigs(version, configKeys);
+			cacheBroadcaster.publish(CacheConstants.SYS_CONFIG_CHANNEL, version + ":" + String.join(",", configKeys));
+		};
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+	/**
+	 * 其他节点的参数变更通知，格式为 版本号:参数键名,参数键名
+	 */
+	private void onConfigChanged(String message) {
+		int index = message.indexOf(':');
+		if (index < 0) {
+			return;
+		}
+		reloadConfigs(Convert.toLong(message.substring(0, index), 0L),
+				Arrays.asList(message.substring(index + 1).split(",")));
+	}
+
+	/**
+	 * 从数据库重新读取变更的参数并生成新的快照；版本号不连续（有通知丢失）或全部重置时重新加载全部参数
+	 */
+	private synchronized void reloadConfigs(long version, List<String> configKeys) {
+		ConfigSnapshot current = snapshot;
+		if (version <= current.getVersion()) {
+			return;
+		}
+		if (version != current.getVersion() + 1 || configKeys.contains(ALL_CONFIGS)) {
+			loadingConfigCache();
+			return;
+		}
+		Map<String, String> changed = new HashMap<String, String>();
+		List<String> removed = new ArrayList<String>();
+		for (String configKey : configKeys) {
+			SysConfig config = selectConfigByKey(configKey);
+			if (config != null) {
+				changed.put(configKey, config.getConfigValue());
+			} else {
+				removed.add(configKey);
+			}
+		}
+		snapshot = current.apply(version, changed, removed);
+	}
+
+	/**
+	 * 定时与缓存中的版本号比对，不一致时重新加载，避免错过通知
+	 */
+	private void checkVersion() {
+		try {
+			if (getVersion() != snapshot.getVersion()) {
+				synchronized (this) {
+					loadingConfigCache();
+				}
+			}
+		} catch (Exception e) {
+			log.warn("参数配置版本比对失败: {}", e.getMessage());
+		}
+	}
+
+	private long getVersion() {
+		return Convert.toLong(redisCache.getCacheObject(CacheConstants.SYS_CONFIG_VERSION_KEY), 0L);
+	}
+
 	/**
 	 * 设置cache key
 	 * 
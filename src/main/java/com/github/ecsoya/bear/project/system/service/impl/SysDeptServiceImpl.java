@@ -1,12 +1,17 @@
 package com.github.ecsoya.bear.project.system.service.impl;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.github.ecsoya.bear.common.constant.UserConstants;
 import com.github.ecsoya.bear.common.core.text.Convert;
@@ -14,15 +19,25 @@ import com.github.ecsoya.bear.common.exception.ServiceException;
 import com.github.ecsoya.bear.common.utils.SecurityUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.spring.SpringUtils;
+import com.github.ecsoya.bear.framework.aspectj.DataScopeAspect;
 import com.github.ecsoya.bear.framework.aspectj.lang.annotation.DataScope;
+import com.github.ecsoya.bear.framework.cache.DeptIndex;
+import com.github.ecsoya.bear.framework.cache.DeptIndex.Hierarchy;
+import com.github.ecsoya.bear.framework.security.LoginUser;
+import com.github.ecsoya.bear.framework.security.context.PermissionContextHolder;
+import com.github.ecsoya.bear.framework.web.domain.TreeAssembler;
 import com.github.ecsoya.bear.framework.web.domain.TreeSelect;
 import com.github.ecsoya.bear.project.system.domain.SysDept;
+import com.github.ecsoya.bear.project.system.domain.SysDeptClosure;
 import com.github.ecsoya.bear.project.system.domain.SysRole;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
+import com.github.ecsoya.bear.project.system.mapper.SysDeptClosureMapper;
 import com.github.ecsoya.bear.project.system.mapper.SysDeptMapper;
 import com.github.ecsoya.bear.project.system.mapper.SysRoleMapper;
 import com.github.ecsoya.bear.project.system.service.ISysDeptService;
 
+import jakarta.annotation.PostConstruct;
+
 /**
  * 部门管理 服务实现
  * 
@@ -30,12 +45,36 @@ import com.github.ecsoya.bear.project.system.service.ISysDeptService;
  */
 @Service
 public class SysDeptServiceImpl implements ISysDeptService {
+	/** 重建部门层级关系时每批写入的条数 */
+	private static final int CLOSURE_BATCH_SIZE = 500;
+
+	/** 部门树组装，同级按显示顺序排列 */
+	private static final TreeAssembler<SysDept> DEPT_TREE = new TreeAssembler<SysDept>(SysDept::getDeptId,
+			SysDept::getParentId).children(SysDept::setChildren).label(SysDept::getDeptName)
+			.orderBy(SysDept::getOrderNum);
+
 	@Autowired
 	private SysDeptMapper deptMapper;
 
+	@Autowired
+	private SysDeptClosureMapper deptClosureMapper;
+
 	@Autowired
 	private SysRoleMapper roleMapper;
 
+	@Autowired
+	private DeptIndex deptIndex;
+
+	/**
+	 * 项目启动时，部门层级关系缺失（如升级后首次启动）则重建；此时不经过事务代理，中途失败时下次启动再次重建
+	 */
+	@PostConstruct
+	public void init() {
+		if (deptClosureMapper.selectDeptClosureCount() != deptMapper.selectDeptParentList().size()) {
+			rebuildDeptClosure();
+		}
+	}
+
 	/**
 	 * 查询部门管理数据
 	 * 
@@ -56,6 +95,17 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	 */
 	@Override
 	public List<TreeSelect> selectDeptTreeList(SysDept dept) {
+		if (dept.getDeptId() == null && dept.getParentId() == null && StringUtils.isEmpty(dept.getDeptName())
+				&& StringUtils.isEmpty(dept.getStatus())) {
+			Hierarchy hierarchy = deptIndex.getHierarchy();
+			if (SysUser.isAdmin(SecurityUtils.getUserId())) {
+				return hierarchy.getTree();
+			}
+			Predicate<Long> scope = getDeptScope(hierarchy);
+			if (scope != null) {
+				return hierarchy.buildTree(d -> scope.test(d.getDeptId()));
+			}
+		}
 		List<SysDept> depts = SpringUtils.getAopProxy(this).selectDeptList(dept);
 		return buildDeptTreeSelect(depts);
 	}
@@ -68,19 +118,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	 */
 	@Override
 	public List<SysDept> buildDeptTree(List<SysDept> depts) {
-		List<SysDept> returnList = new ArrayList<SysDept>();
-		List<Long> tempList = depts.stream().map(SysDept::getDeptId).collect(Collectors.toList());
-		for (SysDept dept : depts) {
-			// 如果是顶级节点, 遍历该父节点的所有子节点
-			if (!tempList.contains(dept.getParentId())) {
-				recursionFn(depts, dept);
-				returnList.add(dept);
-			}
-		}
-		if (returnList.isEmpty()) {
-			returnList = depts;
-		}
-		return returnList;
+		return DEPT_TREE.build(depts);
 	}
 
 	/**
@@ -91,8 +129,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	 */
 	@Override
 	public List<TreeSelect> buildDeptTreeSelect(List<SysDept> depts) {
-		List<SysDept> deptTrees = buildDeptTree(depts);
-		return deptTrees.stream().map(TreeSelect::new).collect(Collectors.toList());
+		return DEPT_TREE.buildSelect(depts);
 	}
 
 	/**
@@ -126,7 +163,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	 */
 	@Override
 	public int selectNormalChildrenDeptById(Long deptId) {
-		return deptMapper.selectNormalChildrenDeptById(deptId);
+		return deptIndex.getHierarchy().countNormalDescendants(deptId);
 	}
 
 	/**
@@ -177,15 +214,59 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	@Override
 	public void checkDeptDataScope(Long deptId) {
 		if (!SysUser.isAdmin(SecurityUtils.getUserId())) {
-			SysDept dept = new SysDept();
-			dept.setDeptId(deptId);
-			List<SysDept> depts = SpringUtils.getAopProxy(this).selectDeptList(dept);
-			if (StringUtils.isEmpty(depts)) {
+			Hierarchy hierarchy = deptIndex.getHierarchy();
+			Predicate<Long> scope = getDeptScope(hierarchy);
+			boolean visible;
+			if (scope != null) {
+				visible = hierarchy.contains(deptId) && scope.test(deptId);
+			} else {
+				SysDept dept = new SysDept();
+				dept.setDeptId(deptId);
+				visible = StringUtils.isNotEmpty(SpringUtils.getAopProxy(this).selectDeptList(dept));
+			}
+			if (!visible) {
 				throw new ServiceException("没有权限访问部门数据！");
 			}
 		}
 	}
 
+	/**
+	 * 当前用户的部门数据权限，与查询部门列表的数据权限条件一致
+	 * 
+	 * @param hierarchy 部门层级索引
+	 * @return 部门是否可见，自定数据权限需要查询角色部门关联，此时为空
+	 */
+	private Predicate<Long> getDeptScope(Hierarchy hierarchy) {
+		LoginUser loginUser = SecurityUtils.getLoginUser();
+		SysUser user = loginUser.getUser();
+		String permission = PermissionContextHolder.getContext();
+		Set<Long> deptIds = new HashSet<Long>();
+		Set<Long> ancestorIds = new HashSet<Long>();
+		boolean matched = false;
+		for (SysRole role : user.getRoles()) {
+			if (!DataScopeAspect.matchesPermission(role, permission)) {
+				continue;
+			}
+			matched = true;
+			String dataScope = role.getDataScope();
+			if (DataScopeAspect.DATA_SCOPE_ALL.equals(dataScope)) {
+				return deptId -> true;
+			} else if (DataScopeAspect.DATA_SCOPE_DEPT.equals(dataScope)) {
+				deptIds.add(user.getDeptId());
+			} else if (DataScopeAspect.DATA_SCOPE_DEPT_AND_CHILD.equals(dataScope)) {
+				ancestorIds.add(user.getDeptId());
+			} else if (!DataScopeAspect.DATA_SCOPE_SELF.equals(dataScope)) {
+				// 自定数据权限等
+				return null;
+			}
+		}
+		if (!matched) {
+			return deptId -> false;
+		}
+		return deptId -> deptIds.contains(deptId)
+				|| ancestorIds.stream().anyMatch(ancestorId -> hierarchy.isSelfOrDescendant(ancestorId, deptId));
+	}
+
 	/**
 	 * 新增保存部门信息
 	 * 
@@ -193,6 +274,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	 * @return 结果
 	 */
 	@Override
+	@Transactional
 	public int insertDept(SysDept dept) {
 		SysDept info = deptMapper.selectDeptById(dept.getParentId());
 		// 如果父节点不为正常状态,则不允许新增子节点
@@ -200,7 +282,10 @@ public class SysDeptServiceImpl implements ISysDeptService {
 			throw new ServiceException("部门停用，不允许新增");
 		}
 		dept.setAncestors(info.getAncestors() + "," + dept.getParentId());
-		return deptMapper.insertDept(dept);
+		int result = deptMapper.insertDept(dept);
+		deptClosureMapper.insertDeptClosure(dept.getDeptId(), dept.getParentId());
+		deptIndex.changed(dept.getDeptId());
+		return result;
 	}
 
 	/**
@@ -210,14 +295,23 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	 * @return 结果
 	 */
 	@Override
+	@Transactional
 	public int updateDept(SysDept dept) {
 		SysDept newParentDept = deptMapper.selectDeptById(dept.getParentId());
 		SysDept oldDept = deptMapper.selectDeptById(dept.getDeptId());
 		if (StringUtils.isNotNull(newParentDept) && StringUtils.isNotNull(oldDept)) {
 			String newAncestors = newParentDept.getAncestors() + "," + newParentDept.getDeptId();
 			String oldAncestors = oldDept.getAncestors();
+			if (ArrayUtils.contains(Convert.toLongArray(newAncestors), dept.getDeptId())) {
+				throw new ServiceException("修改部门'" + dept.getDeptName() + "'失败，上级部门不能是自己的下级部门");
+			}
 			dept.setAncestors(newAncestors);
 			updateDeptChildren(dept.getDeptId(), newAncestors, oldAncestors);
+			if (!dept.getParentId().equals(oldDept.getParentId())) {
+				// 子树内部的关系不变，只替换子树与上级部门的关系
+				deptClosureMapper.deleteDeptClosureAncestors(dept.getDeptId());
+				deptClosureMapper.insertDeptClosureAncestors(dept.getDeptId(), dept.getParentId());
+			}
 		}
 		int result = deptMapper.updateDept(dept);
 		if (UserConstants.DEPT_NORMAL.equals(dept.getStatus()) && StringUtils.isNotEmpty(dept.getAncestors())
@@ -225,6 +319,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
 			// 如果该部门是启用状态，则启用该部门的所有上级部门
 			updateParentDeptStatusNormal(dept);
 		}
+		deptIndex.changed(dept.getDeptId());
 		return result;
 	}
 
@@ -264,42 +359,41 @@ public class SysDeptServiceImpl implements ISysDeptService {
 	 */
 	@Override
 	public int deleteDeptById(Long deptId) {
-		return deptMapper.deleteDeptById(deptId);
+		int result = deptMapper.deleteDeptById(deptId);
+		deptIndex.changed(deptId);
+		return result;
 	}
 
 	/**
-	 * 递归列表
+	 * 按父部门重建部门层级关系
+	 * 
+	 * @return 写入的关系条数
 	 */
-	private void recursionFn(List<SysDept> list, SysDept t) {
-		// 得到子节点列表
-		List<SysDept> childList = getChildList(list, t);
-		t.setChildren(childList);
-		for (SysDept tChild : childList) {
-			if (hasChild(list, tChild)) {
-				recursionFn(list, tChild);
+	@Override
+	@Transactional
+	public int rebuildDeptClosure() {
+		List<SysDept> depts = deptMapper.selectDeptParentList();
+		Map<Long, Long> parents = new HashMap<Long, Long>(depts.size() * 2);
+		depts.forEach(dept -> parents.put(dept.getDeptId(), dept.getParentId()));
+		List<SysDeptClosure> closures = new ArrayList<SysDeptClosure>();
+		for (SysDept dept : depts) {
+			Set<Long> visited = new HashSet<Long>();
+			Long ancestorId = dept.getDeptId();
+			int depth = 0;
+			// 顶级部门的父部门不存在，层级成环时同样停止
+			while (parents.containsKey(ancestorId) && visited.add(ancestorId)) {
+				SysDeptClosure closure = new SysDeptClosure();
+				closure.setAncestorId(ancestorId);
+				closure.setDescendantId(dept.getDeptId());
+				closure.setDepth(depth++);
+				closures.add(closure);
+				ancestorId = parents.get(ancestorId);
 			}
 		}
-	}
-
-	/**
-	 * 得到子节点列表
-	 */
-	private List<SysDept> getChildList(List<SysDept> list, SysDept t) {
-		List<SysDept> tlist = new ArrayList<SysDept>();
-		Iterator<SysDept> it = list.iterator();
-		while (it.hasNext()) {
-			SysDept n = (SysDept) it.next();
-			if (StringUtils.isNotNull(n.getParentId()) && n.getParentId().longValue() == t.getDeptId().longValue()) {
-				tlist.add(n);
-			}
+		deptClosureMapper.deleteDeptClosureAll();
+		for (int i = 0; i < closures.size(); i += CLOSURE_BATCH_SIZE) {
+			deptClosureMapper.batchDeptClosure(closures.subList(i, Math.min(i + CLOSURE_BATCH_SIZE, closures.size())));
 		}
-		return tlist;
-	}
-
-	/**
-	 * 判断是否有子节点
-	 */
-	private boolean hasChild(List<SysDept> list, SysDept t) {
-		return getChildList(list, t).size() > 0 ? true : false;
+		return closures.size();
 	}
 }
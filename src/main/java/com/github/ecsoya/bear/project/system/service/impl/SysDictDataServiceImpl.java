@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.github.ecsoya.bear.common.utils.DictUtils;
+import com.github.ecsoya.bear.framework.cache.DictIndex;
 import com.github.ecsoya.bear.project.system.domain.SysDictData;
 import com.github.ecsoya.bear.project.system.mapper.SysDictDataMapper;
 import com.github.ecsoya.bear.project.system.service.ISysDictDataService;
@@ -20,6 +21,9 @@ public class SysDictDataServiceImpl implements ISysDictDataService {
 	@Autowired
 	private SysDictDataMapper dictDataMapper;
 
+	@Autowired
+	private DictIndex dictIndex;
+
 	/**
 	 * 根据条件分页查询字典数据
 	 * 
@@ -66,6 +70,7 @@ public class SysDictDataServiceImpl implements ISysDictDataService {
 			dictDataMapper.deleteDictDataById(dictCode);
 			List<SysDictData> dictDatas = dictDataMapper.selectDictDataByType(data.getDictType());
 			DictUtils.setDictCache(data.getDictType(), dictDatas);
+			dictIndex.changed(data.getDictType());
 		}
 	}
 
@@ -81,6 +86,7 @@ public class SysDictDataServiceImpl implements ISysDictDataService {
 		if (row > 0) {
 			List<SysDictData> dictDatas = dictDataMapper.selectDictDataByType(data.getDictType());
 			DictUtils.setDictCache(data.getDictType(), dictDatas);
+			dictIndex.changed(data.getDictType());
 		}
 		return row;
 	}
@@ -97,6 +103,7 @@ public class SysDictDataServiceImpl implements ISysDictDataService {
 		if (row > 0) {
 			List<SysDictData> dictDatas = dictDataMapper.selectDictDataByType(data.getDictType());
 			DictUtils.setDictCache(data.getDictType(), dictDatas);
+			dictIndex.changed(data.getDictType());
 		}
 		return row;
 	}
@@ -1,11 +1,15 @@
 package com.github.ecsoya.bear.project.system.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +17,8 @@ import com.github.ecsoya.bear.common.constant.UserConstants;
 import com.github.ecsoya.bear.common.exception.ServiceException;
 import com.github.ecsoya.bear.common.utils.DictUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.cache.CacheLoader;
+import com.github.ecsoya.bear.framework.cache.DictIndex;
 import com.github.ecsoya.bear.project.system.domain.SysDictData;
 import com.github.ecsoya.bear.project.system.domain.SysDictType;
 import com.github.ecsoya.bear.project.system.mapper.SysDictDataMapper;
@@ -34,11 +40,32 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 	@Autowired
 	private SysDictDataMapper dictDataMapper;
 
+	@Autowired
+	private DictIndex dictIndex;
+
+	/** 数据库中不存在的字典类型在本节点记录的时间（秒） */
+	@Value("${cache.loader.absentTtl:60}")
+	private long absentTtl;
+
+	/** 加载期间可返回的上次读到的值的保留时间（秒） */
+	@Value("${cache.loader.staleTtl:600}")
+	private long staleTtl;
+
+	/** 字典缓存未命中时的加载器 */
+	private CacheLoader<List<SysDictData>> dictLoader;
+
 	/**
 	 * 项目启动时，初始化字典到缓存
 	 */
 	@PostConstruct
 	public void init() {
+		dictLoader = new CacheLoader<List<SysDictData>>("dict", dictType -> {
+			List<SysDictData> dictDatas = DictUtils.getDictCache(dictType);
+			return StringUtils.isNotEmpty(dictDatas) ? dictDatas : null;
+		}, DictUtils::setDictCache, dictType -> {
+			List<SysDictData> dictDatas = dictDataMapper.selectDictDataByType(dictType);
+			return StringUtils.isNotEmpty(dictDatas) ? dictDatas : null;
+		}, absentTtl, staleTtl);
 		loadingDictCache();
 	}
 
@@ -71,16 +98,25 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 	 */
 	@Override
 	public List<SysDictData> selectDictDataByType(String dictType) {
-		List<SysDictData> dictDatas = DictUtils.getDictCache(dictType);
-		if (StringUtils.isNotEmpty(dictDatas)) {
-			return dictDatas;
-		}
-		dictDatas = dictDataMapper.selectDictDataByType(dictType);
-		if (StringUtils.isNotEmpty(dictDatas)) {
-			DictUtils.setDictCache(dictType, dictDatas);
-			return dictDatas;
+		return dictLoader.get(dictType);
+	}
+
+	/**
+	 * 批量根据字典类型查询字典数据，缓存中的类型一次读取，未命中的类型逐个加载
+	 * 
+	 * @param dictTypes 字典类型集合
+	 * @return 字典类型与字典数据集合，不存在的类型为空集合
+	 */
+	@Override
+	public Map<String, List<SysDictData>> selectDictDataByTypes(Collection<String> dictTypes) {
+		Map<String, List<SysDictData>> dictDataMap = DictUtils.getDictCaches(new LinkedHashSet<String>(dictTypes));
+		for (Map.Entry<String, List<SysDictData>> entry : dictDataMap.entrySet()) {
+			if (StringUtils.isEmpty(entry.getValue())) {
+				List<SysDictData> dictDatas = dictLoader.get(entry.getKey());
+				entry.setValue(dictDatas != null ? dictDatas : new ArrayList<SysDictData>());
+			}
 		}
-		return null;
+		return dictDataMap;
 	}
 
 	/**
@@ -119,6 +155,7 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 			}
 			dictTypeMapper.deleteDictTypeById(dictId);
 			DictUtils.removeDictCache(dictType.getDictType());
+			dictIndex.changed(dictType.getDictType());
 		}
 	}
 
@@ -132,9 +169,10 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 		Map<String, List<SysDictData>> dictDataMap = dictDataMapper.selectDictDataList(dictData).stream()
 				.collect(Collectors.groupingBy(SysDictData::getDictType));
 		for (Map.Entry<String, List<SysDictData>> entry : dictDataMap.entrySet()) {
-			DictUtils.setDictCache(entry.getKey(), entry.getValue().stream()
-					.sorted(Comparator.comparing(SysDictData::getDictSort)).collect(Collectors.toList()));
+			entry.setValue(entry.getValue().stream().sorted(Comparator.comparing(SysDictData::getDictSort))
+					.collect(Collectors.toList()));
 		}
+		DictUtils.setDictCaches(dictDataMap);
 	}
 
 	/**
@@ -143,6 +181,8 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 	@Override
 	public void clearDictCache() {
 		DictUtils.clearDictCache();
+		dictLoader.invalidateAll();
+		dictIndex.changed(null);
 	}
 
 	/**
@@ -152,6 +192,7 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 	public void resetDictCache() {
 		clearDictCache();
 		loadingDictCache();
+		dictIndex.changed(null);
 	}
 
 	/**
@@ -165,6 +206,7 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 		int row = dictTypeMapper.insertDictType(dict);
 		if (row > 0) {
 			DictUtils.setDictCache(dict.getDictType(), null);
+			dictIndex.changed(dict.getDictType());
 		}
 		return row;
 	}
@@ -184,6 +226,11 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
 		if (row > 0) {
 			List<SysDictData> dictDatas = dictDataMapper.selectDictDataByType(dict.getDictType());
 			DictUtils.setDictCache(dict.getDictType(), dictDatas);
+			if (!oldDict.getDictType().equals(dict.getDictType())) {
+				DictUtils.removeDictCache(oldDict.getDictType());
+				dictIndex.changed(oldDict.getDictType());
+			}
+			dictIndex.changed(dict.getDictType());
 		}
 		return row;
 	}
@@ -3,7 +3,6 @@ package com.github.ecsoya.bear.project.system.service.impl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -16,6 +15,11 @@ import com.github.ecsoya.bear.common.constant.Constants;
 import com.github.ecsoya.bear.common.constant.UserConstants;
 import com.github.ecsoya.bear.common.utils.SecurityUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
+import com.github.ecsoya.bear.framework.security.service.DataScopeCache;
+import com.github.ecsoya.bear.framework.security.service.RolePermissionCache;
+import com.github.ecsoya.bear.framework.security.service.RouterCache;
+import com.github.ecsoya.bear.framework.security.service.RouterCache.Routers;
+import com.github.ecsoya.bear.framework.web.domain.TreeAssembler;
 import com.github.ecsoya.bear.framework.web.domain.TreeSelect;
 import com.github.ecsoya.bear.project.system.domain.SysMenu;
 import com.github.ecsoya.bear.project.system.domain.SysRole;
@@ -36,6 +40,11 @@ import com.github.ecsoya.bear.project.system.service.ISysMenuService;
 public class SysMenuServiceImpl implements ISysMenuService {
 	public static final String PREMISSION_STRING = "perms[\"{0}\"]";
 
+	/** 菜单树组装，同级按显示顺序排列 */
+	private static final TreeAssembler<SysMenu> MENU_TREE = new TreeAssembler<SysMenu>(SysMenu::getMenuId,
+			SysMenu::getParentId).children(SysMenu::setChildren).label(SysMenu::getMenuName)
+			.orderBy(SysMenu::getOrderNum);
+
 	@Autowired
 	private SysMenuMapper menuMapper;
 
@@ -45,6 +54,15 @@ public class SysMenuServiceImpl implements ISysMenuService {
 	@Autowired
 	private SysRoleMenuMapper roleMenuMapper;
 
+	@Autowired
+	private RolePermissionCache rolePermissionCache;
+
+	@Autowired
+	private RouterCache routerCache;
+
+	@Autowired
+	private DataScopeCache dataScopeCache;
+
 	/**
 	 * 根据用户查询系统菜单列表
 	 * 
@@ -151,6 +169,29 @@ public class SysMenuServiceImpl implements ISysMenuService {
 		return buildMenus(null, menus);
 	}
 
+	/**
+	 * 查询用户的前端路由，按角色集合缓存序列化后的响应
+	 * <p>
+	 * 管理员共用一份；角色取自登录信息，角色停用或菜单变更时缓存失效，未加载角色的用户按用户ID查询且不缓存。
+	 * 
+	 * @param user 用户信息
+	 * @return 路由响应
+	 */
+	@Override
+	public Routers selectRoutersByUser(SysUser user) {
+		if (SecurityUtils.isAdmin(user.getUserId())) {
+			return routerCache.get("admin", () -> buildMenus(getChildPerms(menuMapper.selectMenuTreeAll(), 0)));
+		}
+		List<SysRole> roles = user.getRoles();
+		if (StringUtils.isEmpty(roles)) {
+			return routerCache.build(buildMenus(selectMenuTreeByUserId(user.getUserId())));
+		}
+		List<Long> roleIds = roles.stream().map(SysRole::getRoleId).distinct().sorted().collect(Collectors.toList());
+		String key = StringUtils.join(roleIds, ",");
+		return routerCache.get(key,
+				() -> buildMenus(getChildPerms(menuMapper.selectMenuTreeByRoleIds(roleIds), 0)));
+	}
+
 	private List<RouterVo> buildMenus(SysMenu parent, List<SysMenu> menus) {
 		List<RouterVo> routers = new LinkedList<RouterVo>();
 		for (SysMenu menu : menus) {
@@ -207,23 +248,7 @@ public class SysMenuServiceImpl implements ISysMenuService {
 	 */
 	@Override
 	public List<SysMenu> buildMenuTree(List<SysMenu> menus) {
-		List<SysMenu> returnList = new ArrayList<SysMenu>();
-		List<Long> tempList = new ArrayList<Long>();
-		for (SysMenu dept : menus) {
-			tempList.add(dept.getMenuId());
-		}
-		for (Iterator<SysMenu> iterator = menus.iterator(); iterator.hasNext();) {
-			SysMenu menu = (SysMenu) iterator.next();
-			// 如果是顶级节点, 遍历该父节点的所有子节点
-			if (!tempList.contains(menu.getParentId())) {
-				recursionFn(menus, menu);
-				returnList.add(menu);
-			}
-		}
-		if (returnList.isEmpty()) {
-			returnList = menus;
-		}
-		return returnList;
+		return MENU_TREE.build(menus);
 	}
 
 	/**
@@ -234,8 +259,7 @@ public class SysMenuServiceImpl implements ISysMenuService {
 	 */
 	@Override
 	public List<TreeSelect> buildMenuTreeSelect(List<SysMenu> menus) {
-		List<SysMenu> menuTrees = buildMenuTree(menus);
-		return menuTrees.stream().map(TreeSelect::new).collect(Collectors.toList());
+		return MENU_TREE.buildSelect(menus);
 	}
 
 	/**
@@ -281,7 +305,11 @@ public class SysMenuServiceImpl implements ISysMenuService {
 	 */
 	@Override
 	public int insertMenu(SysMenu menu) {
-		return menuMapper.insertMenu(menu);
+		int rows = menuMapper.insertMenu(menu);
+		rolePermissionCache.invalidate();
+		routerCache.invalidate();
+		dataScopeCache.invalidate();
+		return rows;
 	}
 
 	/**
@@ -292,7 +320,11 @@ public class SysMenuServiceImpl implements ISysMenuService {
 	 */
 	@Override
 	public int updateMenu(SysMenu menu) {
-		return menuMapper.updateMenu(menu);
+		int rows = menuMapper.updateMenu(menu);
+		rolePermissionCache.invalidate();
+		routerCache.invalidate();
+		dataScopeCache.invalidate();
+		return rows;
 	}
 
 	/**
@@ -303,7 +335,11 @@ public class SysMenuServiceImpl implements ISysMenuService {
 	 */
 	@Override
 	public int deleteMenuById(Long menuId) {
-		return menuMapper.deleteMenuById(menuId);
+		int rows = menuMapper.deleteMenuById(menuId);
+		rolePermissionCache.invalidate();
+		routerCache.invalidate();
+		dataScopeCache.invalidate();
+		return rows;
 	}
 
 	/**
@@ -421,55 +457,7 @@ public class SysMenuServiceImpl implements ISysMenuService {
 	 * @return String
 	 */
 	public List<SysMenu> getChildPerms(List<SysMenu> list, int parentId) {
-		List<SysMenu> returnList = new ArrayList<SysMenu>();
-		for (Iterator<SysMenu> iterator = list.iterator(); iterator.hasNext();) {
-			SysMenu t = (SysMenu) iterator.next();
-			// 一、根据传入的某个父节点ID,遍历该父节点的所有子节点
-			if (t.getParentId() == parentId) {
-				recursionFn(list, t);
-				returnList.add(t);
-			}
-		}
-		return returnList;
-	}
-
-	/**
-	 * 递归列表
-	 * 
-	 * @param list
-	 * @param t
-	 */
-	private void recursionFn(List<SysMenu> list, SysMenu t) {
-		// 得到子节点列表
-		List<SysMenu> childList = getChildList(list, t);
-		t.setChildren(childList);
-		for (SysMenu tChild : childList) {
-			if (hasChild(list, tChild)) {
-				recursionFn(list, tChild);
-			}
-		}
-	}
-
-	/**
-	 * 得到子节点列表
-	 */
-	private List<SysMenu> getChildList(List<SysMenu> list, SysMenu t) {
-		List<SysMenu> tlist = new ArrayList<SysMenu>();
-		Iterator<SysMenu> it = list.iterator();
-		while (it.hasNext()) {
-			SysMenu n = (SysMenu) it.next();
-			if (n.getParentId().longValue() == t.getMenuId().longValue()) {
-				tlist.add(n);
-			}
-		}
-		return tlist;
-	}
-
-	/**
-	 * 判断是否有子节点
-	 */
-	private boolean hasChild(List<SysMenu> list, SysMenu t) {
-		return getChildList(list, t).size() > 0;
+		return MENU_TREE.build(list, Long.valueOf(parentId));
 	}
 
 	/**
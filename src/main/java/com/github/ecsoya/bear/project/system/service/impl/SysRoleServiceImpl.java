@@ -16,6 +16,9 @@ import com.github.ecsoya.bear.common.utils.SecurityUtils;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.spring.SpringUtils;
 import com.github.ecsoya.bear.framework.aspectj.lang.annotation.DataScope;
+import com.github.ecsoya.bear.framework.security.service.DataScopeCache;
+import com.github.ecsoya.bear.framework.security.service.RolePermissionCache;
+import com.github.ecsoya.bear.framework.security.service.RouterCache;
 import com.github.ecsoya.bear.project.system.domain.SysRole;
 import com.github.ecsoya.bear.project.system.domain.SysRoleDept;
 import com.github.ecsoya.bear.project.system.domain.SysRoleMenu;
@@ -46,6 +49,15 @@ public class SysRoleServiceImpl implements ISysRoleService {
 	@Autowired
 	private SysRoleDeptMapper roleDeptMapper;
 
+	@Autowired
+	private RolePermissionCache rolePermissionCache;
+
+	@Autowired
+	private DataScopeCache dataScopeCache;
+
+	@Autowired
+	private RouterCache routerCache;
+
 	/**
 	 * 根据条件分页查询角色数据
 	 * 
@@ -226,6 +238,7 @@ public class SysRoleServiceImpl implements ISysRoleService {
 	public int updateRole(SysRole role) {
 		// 修改角色信息
 		roleMapper.updateRole(role);
+		dataScopeCache.invalidate();
 		// 删除角色与菜单关联
 		roleMenuMapper.deleteRoleMenuByRoleId(role.getRoleId());
 		return insertRoleMenu(role);
@@ -239,6 +252,8 @@ public class SysRoleServiceImpl implements ISysRoleService {
 	 */
 	@Override
 	public int updateRoleStatus(SysRole role) {
+		dataScopeCache.invalidate();
+		routerCache.invalidate();
 		return roleMapper.updateRole(role);
 	}
 
@@ -255,6 +270,7 @@ public class SysRoleServiceImpl implements ISysRoleService {
 		roleMapper.updateRole(role);
 		// 删除角色与部门关联
 		roleDeptMapper.deleteRoleDeptByRoleId(role.getRoleId());
+		dataScopeCache.invalidate();
 		// 新增角色和部门信息（数据权限）
 		return insertRoleDept(role);
 	}
@@ -277,6 +293,8 @@ public class SysRoleServiceImpl implements ISysRoleService {
 		if (list.size() > 0) {
 			rows = roleMenuMapper.batchRoleMenu(list);
 		}
+		rolePermissionCache.invalidate();
+		routerCache.invalidate();
 		return rows;
 	}
 
@@ -314,6 +332,9 @@ public class SysRoleServiceImpl implements ISysRoleService {
 		roleMenuMapper.deleteRoleMenuByRoleId(roleId);
 		// 删除角色与部门关联
 		roleDeptMapper.deleteRoleDeptByRoleId(roleId);
+		rolePermissionCache.invalidate();
+		routerCache.invalidate();
+		dataScopeCache.invalidate();
 		return roleMapper.deleteRoleById(roleId);
 	}
 
@@ -338,6 +359,9 @@ public class SysRoleServiceImpl implements ISysRoleService {
 		roleMenuMapper.deleteRoleMenu(roleIds);
 		// 删除角色与部门关联
 		roleDeptMapper.deleteRoleDept(roleIds);
+		rolePermissionCache.invalidate();
+		routerCache.invalidate();
+		dataScopeCache.invalidate();
 		return roleMapper.deleteRoleByIds(roleIds);
 	}
 
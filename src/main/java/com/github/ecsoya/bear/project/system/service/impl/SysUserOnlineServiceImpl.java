@@ -1,9 +1,13 @@
 package com.github.ecsoya.bear.project.system.service.impl;
 
+import java.util.Map;
+
 import org.springframework.stereotype.Service;
 
+import com.github.ecsoya.bear.common.core.text.Convert;
 import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.framework.security.LoginUser;
+import com.github.ecsoya.bear.framework.security.service.LoginSessionIndex;
 import com.github.ecsoya.bear.project.monitor.domain.SysUserOnline;
 import com.github.ecsoya.bear.project.system.service.ISysUserOnlineService;
 
@@ -85,4 +89,25 @@ public class SysUserOnlineServiceImpl implements ISysUserOnlineService {
 		}
 		return sysUserOnline;
 	}
+
+	/**
+	 * 由在线会话摘要设置在线用户信息
+	 * 
+	 * @param summary 会话摘要
+	 * @return 在线用户
+	 */
+	@Override
+	public SysUserOnline summaryToUserOnline(Map<String, String> summary) {
+		SysUserOnline sysUserOnline = new SysUserOnline();
+		sysUserOnline.setTokenId(summary.get(LoginSessionIndex.TOKEN_ID));
+		sysUserOnline.setUserName(summary.get(LoginSessionIndex.USER_NAME));
+		sysUserOnline.setNickName(summary.get(LoginSessionIndex.NICK_NAME));
+		sysUserOnline.setDeptName(summary.get(LoginSessionIndex.DEPT_NAME));
+		sysUserOnline.setIpaddr(summary.get(LoginSessionIndex.IPADDR));
+		sysUserOnline.setLoginLocation(summary.get(LoginSessionIndex.LOGIN_LOCATION));
+		sysUserOnline.setBrowser(summary.get(LoginSessionIndex.BROWSER));
+		sysUserOnline.setOs(summary.get(LoginSessionIndex.OS));
+		sysUserOnline.setLoginTime(Convert.toLong(summary.get(LoginSessionIndex.LOGIN_TIME)));
+		return sysUserOnline;
+	}
 }
@@ -1,6 +1,7 @@
 package com.github.ecsoya.bear.project.system.service.impl;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,6 +19,7 @@ import com.github.ecsoya.bear.common.utils.StringUtils;
 import com.github.ecsoya.bear.common.utils.bean.BeanValidators;
 import com.github.ecsoya.bear.common.utils.spring.SpringUtils;
 import com.github.ecsoya.bear.framework.aspectj.lang.annotation.DataScope;
+import com.github.ecsoya.bear.framework.security.service.PasswordHashService;
 import com.github.ecsoya.bear.project.system.domain.SysPost;
 import com.github.ecsoya.bear.project.system.domain.SysRole;
 import com.github.ecsoya.bear.project.system.domain.SysUser;
@@ -60,6 +62,9 @@ public class SysUserServiceImpl implements ISysUserService {
 	@Autowired
 	private ISysConfigService configService;
 
+	@Autowired
+	private PasswordHashService passwordHashService;
+
 	@Autowired
 	protected Validator validator;
 
@@ -451,13 +456,26 @@ public class SysUserServiceImpl implements ISysUserService {
 		StringBuilder successMsg = new StringBuilder();
 		StringBuilder failureMsg = new StringBuilder();
 		String password = configService.selectConfigValueByKey("sys.user.initPassword");
+		// 验证是否存在这个用户
+		List<SysUser> existUsers = new ArrayList<SysUser>(userList.size());
+		int newUserNum = 0;
 		for (SysUser user : userList) {
+			SysUser u = userMapper.selectUserByUserName(user.getUserName());
+			existUsers.add(u);
+			if (StringUtils.isNull(u)) {
+				newUserNum++;
+			}
+		}
+		// 新用户的初始密码在密码哈希线程池中批量加密
+		Iterator<String> passwords = passwordHashService.encodeAll(password, newUserNum).iterator();
+		for (int i = 0; i < userList.size(); i++) {
+			SysUser user = userList.get(i);
 			try {
-				// 验证是否存在这个用户
-				SysUser u = userMapper.selectUserByUserName(user.getUserName());
+				SysUser u = existUsers.get(i);
 				if (StringUtils.isNull(u)) {
+					String encodedPassword = passwords.next();
 					BeanValidators.validateWithException(validator, user);
-					user.setPassword(SecurityUtils.encryptPassword(password));
+					user.setPassword(encodedPassword);
 					user.setCreateBy(operName);
 					userMapper.insertUser(user);
 					successNum++;